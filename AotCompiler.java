@@ -0,0 +1,222 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.jar.*;
+import java.util.stream.Stream;
+
+/**
+ * COMPILE: übersetzt ein ganzes BASIC-Programm (über JavaGen) in Java-Klassen und
+ * schreibt ein ausführbares Jar. Das Jar enthält die Laufzeit (Interpreter, Nodes, ...)
+ * und nur die Builtin-Funktionen, die das Programm tatsächlich aufruft.
+ *
+ * Aufbau: BasicMain (main, Slots, Funktionen) + BasicProgram0..k mit je CHUNK Zeilen.
+ * Die Teile sind Jit.Region-Implementierungen; Sprünge über Teilgrenzen laufen über main.
+ */
+final class AotCompiler {
+    static final String MAIN = "BasicMain";
+    static final int CHUNK = 1024;          // Zeilen je Klasse (Konstantenpool-Grenze)
+    private static final int LINES_PER_STRING = 4000;
+
+    // Laufzeitklassen, die jedes Jar braucht (jeweils samt geschachtelter Klassen)
+    private static final List<String> RUNTIME = List.of(
+            "Interpreter", "Nodes", "FunctionRegistry", "BuiltinFunction", "Jit", "JavaGen", "Tokenizer", "Parser", "OutputSink", "Profiler", "Events", "Text", "Numbers", "Search", "OffHeap", "Sparse");
+
+    private AotCompiler() {}
+
+    /** Übersetzt das Programm des Interpreters nach {@code jar}. */
+    static void compile(Interpreter interp, Path jar) throws IOException {
+        if (!JavaGen.compilerAvailable()) throw new Interpreter.BasicException("COMPILE braucht ein JDK (kein Java-Compiler gefunden).");
+        int[] lines = interp.programLines();
+        if (lines.length == 0) throw new Interpreter.BasicException("Kein Programm vorhanden.");
+        Interpreter.Statement[] program = interp.compileProgram(lines);
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        Set<String> functions = new TreeSet<>();
+        int parts = (lines.length + CHUNK - 1) / CHUNK;
+        List<Object[]> refs = new ArrayList<>();   // je Teil die gebundenen Funktionen (k[])
+        for (int i = 0; i < parts; i++) {
+            JavaGen gen = new JavaGen(false);
+            int lo = i * CHUNK, hi = Math.min(lines.length, lo + CHUNK) - 1;
+            sources.put("BasicProgram" + i, gen.regionClass("BasicProgram" + i, program, lines, lo, hi));
+            functions.addAll(gen.functions());
+            refs.add(gen.constants());
+        }
+        List<BuiltinFunction> used = new ArrayList<>();
+        for (String name : functions) {
+            BuiltinFunction f = interp.functions().get(name);
+            if (f == null) throw new Interpreter.BasicException("Unbekannte Funktion: " + name);
+            used.add(f);
+        }
+        sources.put(MAIN, mainClass(interp, lines, refs, used));
+
+        Map<String, byte[]> classes;
+        try { classes = JavaGen.compile(sources); }
+        catch (IllegalStateException ex) { throw new Interpreter.BasicException("COMPILE fehlgeschlagen: " + ex.getMessage()); }
+
+        Set<String> runtime = new LinkedHashSet<>(RUNTIME);
+        for (BuiltinFunction f : used) runtime.add(f.getClass().getName());
+        writeJar(jar, classes, runtime);
+    }
+
+    private static String mainClass(Interpreter interp, int[] lines, List<Object[]> refs, List<BuiltinFunction> used) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.io.*;\nimport java.nio.charset.StandardCharsets;\n\n");
+        sb.append("public final class ").append(MAIN).append(" {\n");
+        sb.append("    private static final String[] LINES = {\n");
+        for (int i = 0; i < lines.length; i += LINES_PER_STRING) {
+            StringBuilder chunk = new StringBuilder();
+            for (int j = i; j < Math.min(lines.length, i + LINES_PER_STRING); j++) {
+                if (j > i) chunk.append(',');
+                chunk.append(lines[j]);
+            }
+            sb.append("        \"").append(chunk).append("\",\n");
+        }
+        sb.append("    };\n\n");
+        sb.append("    public static void main(String[] args) throws IOException {\n");
+        sb.append("        FunctionRegistry fn = new FunctionRegistry();\n");
+        for (BuiltinFunction f : used) {
+            try { f.getClass().getConstructor(); }
+            catch (NoSuchMethodException ex) { throw new Interpreter.BasicException("Funktion " + f.name() + " nicht übersetzbar (kein Standardkonstruktor)"); }
+            sb.append("        fn.register(new ").append(f.getClass().getName()).append("());\n");
+        }
+        sb.append("        Interpreter rt = new Interpreter(fn);\n");
+        for (String v : interp.symbolNames(false)) sb.append("        rt.varSlot(").append(JavaGen.literal(v)).append(");\n");
+        for (String a : interp.symbolNames(true)) sb.append("        rt.arraySlot(").append(JavaGen.literal(a)).append(");\n");
+        sb.append("        Jit.Region[] parts = {");
+        for (int i = 0; i < refs.size(); i++) {
+            sb.append(i > 0 ? "," : "").append("\n            new BasicProgram").append(i).append("(new Object[]{");
+            Object[] k = refs.get(i);
+            for (int j = 0; j < k.length; j++)
+                sb.append(j > 0 ? ", " : "").append("fn.get(").append(JavaGen.literal(((BuiltinFunction) k[j]).name())).append(")");
+            sb.append("})");
+        }
+        sb.append("\n        };\n");
+        sb.append("        int[] lines = new int[").append(lines.length).append("];\n");
+        sb.append("        int n = 0;\n");
+        sb.append("        for (String s : LINES) for (String ln : s.split(\",\")) lines[n++] = Integer.parseInt(ln);\n");
+        sb.append("        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));\n");
+        sb.append("        OutputSink out = OutputSink.stdout(OutputSink.Flush.SIZE);\n");
+        sb.append("        Interpreter.Context c = new Interpreter.Context(rt, in, out, lines);\n");
+        sb.append("        int pc = 0;\n");
+        sb.append("        try {\n");
+        sb.append("            while (pc < lines.length && !c.stop) pc = parts[pc / ").append(CHUNK).append("].run(c, pc);\n");
+        sb.append("        } catch (RuntimeException e) {\n");
+        sb.append("            out.flush();\n");
+        sb.append("            System.err.println(\"Zeile \" + c.currentLine + \": \" + e.getMessage());\n");
+        sb.append("            String trace = c.traceDump();\n");
+        sb.append("            if (trace != null) System.err.println(trace);\n");
+        sb.append("            System.exit(1);\n");
+        sb.append("        }\n");
+        sb.append("        out.flush();\n");
+        sb.append("    }\n}\n");
+        return sb.toString();
+    }
+
+    private static void writeJar(Path jar, Map<String, byte[]> classes, Set<String> runtime) throws IOException {
+        Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().put(Attributes.Name.MAIN_CLASS, MAIN);
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(jar), mf)) {
+            for (var e : classes.entrySet()) put(jos, e.getKey().replace('.', '/') + ".class", e.getValue());
+            copyRuntime(jos, runtime);
+        }
+    }
+
+    // Klassendateien der Laufzeit aus dem eigenen Klassenpfad-Eintrag (Verzeichnis oder Jar) kopieren
+    private static void copyRuntime(JarOutputStream jos, Set<String> runtime) throws IOException {
+        Path src;
+        try { src = Paths.get(Interpreter.class.getProtectionDomain().getCodeSource().getLocation().toURI()); }
+        catch (Exception ex) { throw new IOException("Fundort der Laufzeitklassen unbekannt", ex); }
+        Set<String> missing = new TreeSet<>(runtime);
+        if (Files.isDirectory(src)) {
+            copyMatching(jos, src, runtime, missing);
+        } else {
+            try (FileSystem fs = FileSystems.newFileSystem(src, (ClassLoader) null)) {
+                copyMatching(jos, fs.getPath("/"), runtime, missing);
+            }
+        }
+        if (!missing.isEmpty()) throw new IOException("Laufzeitklassen nicht gefunden: " + missing);
+    }
+
+    private static void copyMatching(JarOutputStream jos, Path root, Set<String> runtime, Set<String> missing) throws IOException {
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path p : (Iterable<Path>) files.sorted()::iterator) {
+                String file = p.getFileName().toString();
+                if (!file.endsWith(".class")) continue;
+                String cls = file.substring(0, file.length() - ".class".length());
+                int dollar = cls.indexOf('$');
+                String top = (dollar < 0) ? cls : cls.substring(0, dollar);
+                if (!runtime.contains(top)) continue;
+                put(jos, file, Files.readAllBytes(p));
+                missing.remove(top);
+            }
+        }
+    }
+
+    private static void put(JarOutputStream jos, String name, byte[] data) throws IOException {
+        jos.putNextEntry(new JarEntry(name));
+        jos.write(data);
+        jos.closeEntry();
+    }
+
+    /* ============================ VERGLEICH ============================ */
+
+    /**
+     * Vergleichs-Harness: startet das Programm {@code runs}-mal per Interpreter ({@code MiniBasic --run})
+     * und als übersetztes Jar, jeweils als eigener Prozess mit derselben Eingabe.
+     * Prüft die Ausgabe (stdout, Byte für Byte) und den Exit-Code und meldet die Laufzeiten.
+     * @return true, wenn alle Ausgaben übereinstimmen
+     */
+    static boolean compare(Path bas, Path inputFile, int runs, PrintStream out) throws IOException, InterruptedException {
+        Interpreter interp = new Interpreter(FunctionRegistry.createDefault());
+        interp.load(bas);
+        Path jar = Files.createTempFile("minibasic-", ".jar");
+        try {
+            long t0 = System.nanoTime();
+            compile(interp, jar);
+            out.printf(Locale.ROOT, "COMPILE: %.1f ms, %d Bytes%n", (System.nanoTime() - t0) / 1e6, Files.size(jar));
+
+            byte[] input = (inputFile == null) ? new byte[0] : Files.readAllBytes(inputFile);
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            List<String> viaInterp = List.of(java, "-cp", System.getProperty("java.class.path"), "MiniBasic", "--run", bas.toString());
+            List<String> viaJar = List.of(java, "-jar", jar.toString());
+
+            long[] ti = new long[runs], ta = new long[runs];
+            boolean same = true;
+            for (int r = 0; r < runs; r++) {
+                Exec a = exec(viaInterp, input), b = exec(viaJar, input);
+                ti[r] = a.nanos; ta[r] = b.nanos;
+                if (a.exit != b.exit || !Arrays.equals(a.stdout, b.stdout)) {
+                    same = false;
+                    out.println("Lauf " + (r + 1) + ": Ausgabe unterschiedlich (Exit " + a.exit + " / " + b.exit
+                            + ", erste Abweichung bei Byte " + Arrays.mismatch(a.stdout, b.stdout) + ")");
+                }
+            }
+            out.println("Ausgabe identisch: " + (same ? "ja" : "NEIN") + " (" + runs + " Läufe)");
+            out.printf(Locale.ROOT, "Interpreter: min %.1f ms, Median %.1f ms%n", min(ti) / 1e6, median(ti) / 1e6);
+            out.printf(Locale.ROOT, "Jar:         min %.1f ms, Median %.1f ms%n", min(ta) / 1e6, median(ta) / 1e6);
+            return same;
+        } finally {
+            Files.deleteIfExists(jar);
+        }
+    }
+
+    private record Exec(byte[] stdout, int exit, long nanos) {}
+
+    private static Exec exec(List<String> cmd, byte[] input) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+        Process p = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        CompletableFuture<Void> feed = CompletableFuture.runAsync(() -> {
+            try (OutputStream os = p.getOutputStream()) { os.write(input); }
+            catch (IOException ignored) { /* Prozess liest nicht */ }
+        });
+        byte[] stdout = p.getInputStream().readAllBytes();
+        int exit = p.waitFor();
+        feed.join();
+        return new Exec(stdout, exit, System.nanoTime() - t0);
+    }
+
+    private static long min(long[] a) { return Arrays.stream(a).min().orElse(0); }
+    private static long median(long[] a) { long[] s = a.clone(); Arrays.sort(s); return s[s.length / 2]; }
+}
@@ -0,0 +1,311 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * BENCH [name|datei] [läufe]: misst ganze Programme mit den Einstellungen des aufrufenden
+ * Interpreters (Engine, JIT, Optimierer ...), aber in einem eigenen Interpreter; das
+ * Programm im Editor bleibt unberührt.
+ *
+ * Je Programm erst so viele Aufwärmläufe wie Messläufe, dann die Messläufe mit verworfener
+ * Ausgabe. Gemeldet werden min/Median/p99 der RUN-Zeit (inkl. Start), Anweisungen/s
+ * (gezählt in einem eigenen Lauf im Baum-Interpreter ohne JIT) und die im ausführenden
+ * Thread allozierten Bytes je Lauf.
+ */
+final class Bench {
+    static final int DEFAULT_RUNS = 10;
+
+    // eingebaute Suite: Rugg/Feldman BM1..BM8 (Kilobaud 1977, Zählschleifen wie im Original bis 1000),
+    // dazu Sieb, N-Damen, Mandelbrot, kurzlebige Strings, CSV-Felder und ein wachsender Bericht
+    static final Map<String, String> SUITE = new LinkedHashMap<>();
+    static {
+        SUITE.put("BM1", """
+                300 PRINT "S"
+                400 FOR K = 1 TO 1000
+                500 NEXT K
+                700 PRINT "E"
+                800 END
+                """);
+        SUITE.put("BM2", """
+                300 PRINT "S"
+                400 K = 0
+                500 K = K + 1
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                """);
+        SUITE.put("BM3", """
+                300 PRINT "S"
+                400 K = 0
+                500 K = K + 1
+                510 A = K / K * K + K - K
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                """);
+        SUITE.put("BM4", """
+                300 PRINT "S"
+                400 K = 0
+                500 K = K + 1
+                510 A = K / 2 * 3 + 4 - 5
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                """);
+        SUITE.put("BM5", """
+                300 PRINT "S"
+                400 K = 0
+                500 K = K + 1
+                510 A = K / 2 * 3 + 4 - 5
+                520 GOSUB 820
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                820 RETURN
+                """);
+        SUITE.put("BM6", """
+                300 PRINT "S"
+                400 K = 0
+                430 DIM M(5)
+                500 K = K + 1
+                510 A = K / 2 * 3 + 4 - 5
+                520 GOSUB 820
+                530 FOR L = 1 TO 5
+                540 NEXT L
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                820 RETURN
+                """);
+        SUITE.put("BM7", """
+                300 PRINT "S"
+                400 K = 0
+                430 DIM M(5)
+                500 K = K + 1
+                510 A = K / 2 * 3 + 4 - 5
+                520 GOSUB 820
+                530 FOR L = 1 TO 5
+                535 M(L) = A
+                540 NEXT L
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                820 RETURN
+                """);
+        // im Original A=K^2; MiniBasic hat keinen Potenzoperator
+        SUITE.put("BM8", """
+                300 PRINT "S"
+                400 K = 0
+                500 K = K + 1
+                530 A = POW(K, 2)
+                540 B = LOG(K)
+                550 C = SIN(K)
+                600 IF K < 1000 THEN 500
+                700 PRINT "E"
+                800 END
+                """);
+        SUITE.put("SIEVE", """
+                10 REM Sieb des Eratosthenes bis 20000
+                20 N = 20000
+                30 DIM F(20000)
+                40 C = 0
+                50 FOR I = 2 TO N
+                60 IF F(I) = 1 THEN 110
+                70 C = C + 1
+                80 IF I * I > N THEN 110
+                90 FOR J = I * I TO N STEP I
+                100 F(J) = 1 : NEXT J
+                110 NEXT I
+                120 PRINT C
+                """);
+        SUITE.put("QUEENS", """
+                10 REM N-Damen (N = 8), alle Lösungen zählen
+                20 N = 8 : S = 0
+                30 DIM Q(8)
+                40 R = 1 : Q(1) = 0
+                50 Q(R) = Q(R) + 1
+                60 IF Q(R) > N THEN 170
+                70 I = 1
+                80 IF I >= R THEN 130
+                90 D = Q(R) - Q(I)
+                100 IF D = 0 THEN 50
+                110 IF ABS(D) = R - I THEN 50
+                120 I = I + 1 : GOTO 80
+                130 IF R < N THEN 160
+                140 S = S + 1
+                150 GOTO 50
+                160 R = R + 1 : Q(R) = 0 : GOTO 50
+                170 R = R - 1
+                180 IF R > 0 THEN 50
+                190 PRINT S
+                """);
+        SUITE.put("MANDEL", """
+                10 REM Mandelbrot-Menge als Text, 48 x 16 Zeichen
+                20 FOR Y = 0 TO 15
+                30 L$ = ""
+                40 FOR X = 0 TO 47
+                50 CR = X / 16 - 2
+                60 CI = Y / 8 - 1
+                70 ZR = 0 : ZI = 0 : K = 0
+                80 T = ZR * ZR - ZI * ZI + CR
+                90 ZI = 2 * ZR * ZI + CI
+                100 ZR = T
+                110 K = K + 1
+                120 IF ZR * ZR + ZI * ZI > 4 THEN 160
+                130 IF K < 60 THEN 80
+                140 L$ = L$ + "#"
+                150 GOTO 170
+                160 L$ = L$ + " "
+                170 NEXT X
+                180 PRINT L$
+                190 NEXT Y
+                """);
+        SUITE.put("STRINGS", """
+                10 REM viele kurze, kurzlebige Zeichenketten
+                20 C = 0
+                30 FOR I = 1 TO 2000
+                40 A$ = STR$(I) + "-" + CHR$(65 + I - INT(I / 26) * 26)
+                50 B$ = LEFT$(A$, 2) + RIGHT$(A$, 1) + MID$("ABCDEFGHIJ", I - INT(I / 8) * 8 + 1, 3)
+                60 IF LEN(B$) > 5 THEN C = C + 1
+                70 T$ = UCASE$(LCASE$(B$))
+                80 NEXT I
+                90 PRINT C; " "; T$
+                """);
+        // gemischte Felder mit VAL lesen (auch ungültige) und Zahlen in Masse ausgeben
+        SUITE.put("CSV", """
+                10 REM CSV-Felder, teils keine Zahlen
+                20 DIM F$(8)
+                30 F$(1) = "12" : F$(2) = "n/a" : F$(3) = "3.25" : F$(4) = "" : F$(5) = "-7" : F$(6) = "x1" : F$(7) = "1e3" : F$(8) = " 42 "
+                40 S = 0
+                50 FOR I = 1 TO 5000
+                60 V = VAL(F$(I - INT((I - 1) / 8) * 8))
+                70 S = S + V
+                80 PRINT I; ";"; V; ";"; S
+                90 NEXT I
+                """);
+        // ein großer Bericht per A$ = A$ + ..., danach Ausschnitte daraus
+        SUITE.put("REPORT", """
+                10 REM Bericht mit 20000 Zeilen in einer Zeichenkette
+                20 R$ = ""
+                30 FOR I = 1 TO 20000
+                40 R$ = R$ + "Posten " + STR$(I) + ": " + LEFT$("Artikelnummer und Beschreibung", 20) + CHR$(10)
+                50 NEXT I
+                60 K$ = MID$(R$, 1000, 100000)
+                70 PRINT LEN(R$); " "; LEN(K$); " "; RIGHT$(K$, 12)
+                """);
+    }
+
+    private Bench() {}
+
+    /** Argumente von BENCH auswerten und messen; ohne Namen die ganze Suite. */
+    static void command(Interpreter settings, String arg, PrintStream out) throws IOException {
+        String[] a = arg.isBlank() ? new String[0] : arg.strip().split("\\s+");
+        int runs = DEFAULT_RUNS;
+        int names = a.length;
+        if (names > 0 && a[names - 1].chars().allMatch(Character::isDigit)) {
+            runs = Integer.parseInt(a[--names]);
+            if (runs < 1) throw new Interpreter.BasicException("BENCH: mindestens 1 Lauf");
+        }
+        if (names > 1) throw new Interpreter.BasicException("BENCH [name|datei] [läufe]");
+
+        Map<String, List<String>> programs = new LinkedHashMap<>();
+        if (names == 0) {
+            for (var e : SUITE.entrySet()) programs.put(e.getKey(), e.getValue().lines().toList());
+        } else {
+            String src = SUITE.get(a[0].toUpperCase(Locale.ROOT));
+            if (src != null) programs.put(a[0].toUpperCase(Locale.ROOT), src.lines().toList());
+            else programs.put(a[0], Files.readAllLines(Paths.get(a[0]), StandardCharsets.UTF_8));
+        }
+
+        out.printf(Locale.ROOT, "BENCH: %d Läufe nach %d zum Aufwärmen, Engine %s, JIT %s, Optimierer %s, Ausgabe verworfen%n",
+                runs, runs, settings.engine(), settings.jitEnabled() ? "an" : "aus", settings.optimize() ? "an" : "aus");
+        out.printf(Locale.ROOT, "%-10s %10s %10s %10s %12s %14s%n", "Programm", "min ms", "Median ms", "p99 ms", "Anw./s", "Bytes/Lauf");
+        for (var e : programs.entrySet()) measure(settings, e.getKey(), e.getValue(), runs, out);
+    }
+
+    private static void measure(Interpreter settings, String name, List<String> lines, int runs, PrintStream out) {
+        Interpreter rt = like(settings);
+        Interpreter counter = like(settings);
+        counter.setEngine(Interpreter.Engine.TREE);
+        counter.setJitEnabled(false);
+        for (Interpreter i : List.of(rt, counter)) load(i, lines);
+
+        OutputSink discard = new OutputSink(Channels.newChannel(OutputStream.nullOutputStream()),
+                StandardCharsets.UTF_8, OutputSink.Flush.SIZE);
+        BufferedReader noInput = new BufferedReader(Reader.nullReader());
+        try {
+            counter.run(noInput, discard);
+            long statements = counter.lastStatements();
+
+            for (int i = 0; i < runs; i++) rt.run(noInput, discard);
+            long[] nanos = new long[runs];
+            long bytes = 0;
+            for (int i = 0; i < runs; i++) {
+                long a0 = allocatedBytes();
+                long t0 = System.nanoTime();
+                rt.run(noInput, discard);
+                nanos[i] = System.nanoTime() - t0;
+                bytes += allocatedBytes() - a0;
+            }
+            Arrays.sort(nanos);
+            long median = nanos[runs / 2];
+            long p99 = nanos[(int) Math.ceil(runs * 0.99) - 1];
+            String perSec = (statements > 0) ? si(statements * 1e9 / median) : "-";
+            String alloc = (allocatedBytes() < 0) ? "-" : String.format(Locale.ROOT, "%,d", bytes / runs);
+            out.printf(Locale.ROOT, "%-10s %10.3f %10.3f %10.3f %12s %14s%n",
+                    name, nanos[0] / 1e6, median / 1e6, p99 / 1e6, perSec, alloc);
+        } catch (Interpreter.BasicException ex) {
+            out.printf("%-10s ! Fehler: %s%n", name, ex.getMessage());
+        } finally {
+            rt.setCompileThreads(1);              // beendet einen evtl. angelegten Übersetzungs-Pool
+            counter.setCompileThreads(1);
+        }
+    }
+
+    // eigener Interpreter mit denselben Einstellungen
+    private static Interpreter like(Interpreter s) {
+        Interpreter rt = new Interpreter(s.functions());
+        rt.setEngine(s.engine());
+        rt.setOptimize(s.optimize());
+        rt.setLazyCompile(s.lazyCompile());
+        rt.setJitThreshold(s.jitThreshold());
+        rt.setJitEnabled(s.jitEnabled());
+        rt.setMaxStackDepth(s.maxStackDepth());
+        rt.setTraceSize(s.traceSize());
+        rt.setCompileThreads(s.compileThreads());
+        return rt;
+    }
+
+    // Zeilen wie Interpreter.load: "<nr> <text>", Leerzeilen überspringen
+    private static void load(Interpreter rt, List<String> lines) {
+        for (String line : lines) {
+            line = line.strip();
+            if (line.isEmpty()) continue;
+            int sp = line.indexOf(' ');
+            try {
+                if (sp > 0) rt.addOrReplaceLine(Integer.parseInt(line.substring(0, sp)), line.substring(sp + 1).strip());
+            } catch (NumberFormatException ex) {
+                throw new Interpreter.BasicException("Ungültige Zeilennummer: " + line);
+            }
+        }
+    }
+
+    // im aktuellen Thread allozierte Bytes (HotSpot), -1 wenn nicht messbar
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                && t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+            return t.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static String si(double v) {
+        if (v >= 1e9) return String.format(Locale.ROOT, "%.2f G", v / 1e9);
+        if (v >= 1e6) return String.format(Locale.ROOT, "%.2f M", v / 1e6);
+        if (v >= 1e3) return String.format(Locale.ROOT, "%.2f k", v / 1e3);
+        return String.format(Locale.ROOT, "%.0f", v);
+    }
+}
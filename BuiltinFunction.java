@@ -4,4 +4,22 @@ public interface BuiltinFunction {
     String name(); // Groß geschrieben, z. B. "RND" oder "INT"
     // darf Fehler werfen, wenn Arity/Typen falsch sind
     Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args);
+    // true: Ergebnis hängt nur von den Argumenten ab (keine Seiteneffekte, kein Zufall/Zeit);
+    // der Optimierer darf Aufrufe mit konstanten Argumenten dann vorab ausrechnen
+    default boolean pure() { return false; }
+    // wirft bei falscher Argumentzahl; der Parser prüft damit schon beim Übersetzen
+    // (Standard: keine Prüfung, dann meldet call den Fehler zur Laufzeit)
+    default void checkArity(int argc) {}
+    // Variante für einen Aufrufknoten, dessen Argumente teils Literale sind (constants[i], sonst null),
+    // z. B. mit vorübersetztem Suchmuster; der Knoten übergibt später genau diese Werte
+    default BuiltinFunction specialize(Interpreter.Value[] constants) { return this; }
+
+    // Aufrufe mit fester Argumentzahl ohne Liste (der Parser bindet die Funktion an den Knoten);
+    // ohne Überschreiben laufen sie über call(List), bestehende Funktionen bleiben gültig
+    default Interpreter.Value call0(Interpreter rt) { return call(rt, List.of()); }
+    default Interpreter.Value call1(Interpreter rt, Interpreter.Value a) { return call(rt, List.of(a)); }
+    default Interpreter.Value call2(Interpreter rt, Interpreter.Value a, Interpreter.Value b) { return call(rt, List.of(a, b)); }
+    default Interpreter.Value call3(Interpreter rt, Interpreter.Value a, Interpreter.Value b, Interpreter.Value c) {
+        return call(rt, List.of(a, b, c));
+    }
 }
@@ -0,0 +1,65 @@
+import jdk.jfr.*;
+
+/**
+ * JFR-Ereignisse (Java Flight Recorder), um BASIC-Abläufe neben GC und Threads in derselben
+ * Aufzeichnung zu sehen. Alle sind standardmäßig aus; einschalten z. B. mit
+ * {@code -XX:StartFlightRecording:settings=default,settings=minibasic.jfc}.
+ *
+ * Solange nicht aufgezeichnet wird, sind begin/end/commit leer und das Ereignisobjekt wird
+ * vom JIT wegoptimiert; die Felder werden erst nach shouldCommit() befüllt.
+ */
+final class Events {
+    private Events() {}
+
+    @Name("minibasic.ProgramRun")
+    @Label("Programmlauf")
+    @Category("MiniBasic")
+    @Description("Ein RUN vom Start bis zum Ende oder Fehler")
+    @Enabled(false)
+    static final class ProgramRun extends Event {
+        @Label("Zeilen") int lines;
+        @Label("Neu übersetzte Zeilen") int compiledLines;
+        @Label("Start bis erste Anweisung") @Timespan(Timespan.NANOSECONDS) long startup;
+        @Label("Anweisungen") @Description("Nur im Baum-Interpreter ohne JIT gezählt, sonst -1") long statements;
+        @Label("Engine") String engine;
+        @Label("Zeile") @Description("Zuletzt ausgeführte BASIC-Zeile") int line;
+        @Label("Fehler") String error;
+    }
+
+    @Name("minibasic.BuiltinCall")
+    @Label("Langsamer Builtin-Aufruf")
+    @Category("MiniBasic")
+    @Enabled(false)
+    @Threshold("1 ms")
+    static final class BuiltinCall extends Event {
+        @Label("Funktion") String function;
+        @Label("Zeile") int line;
+    }
+
+    @Name("minibasic.InputWait")
+    @Label("Warten auf INPUT")
+    @Category("MiniBasic")
+    @Enabled(false)
+    static final class InputWait extends Event {
+        @Label("Variable") String variable;
+        @Label("Zeile") int line;
+    }
+
+    @Name("minibasic.PauseSleep")
+    @Label("PAUSE")
+    @Category("MiniBasic")
+    @Enabled(false)
+    static final class PauseSleep extends Event {
+        @Label("Angefordert") @Timespan(Timespan.MILLISECONDS) long requested;
+        @Label("Zeile") int line;
+    }
+
+    static void builtin(BuiltinCall ev, Interpreter rt, BuiltinFunction fn) {
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.function = fn.name();
+            ev.line = rt.currentLine();
+            ev.commit();
+        }
+    }
+}
@@ -2,11 +2,20 @@ import java.util.List;
 
 public class FnASC implements BuiltinFunction {
     @Override public String name() { return "ASC"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("ASC erwartet 1 Argument");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("ASC erwartet 1 Argument");
-        String s = args.get(0).asString();
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        String s = x.asString();
         if (s.isEmpty()) throw new Interpreter.BasicException("ASC: leerer String");
         return Interpreter.Value.number((int)s.charAt(0) & 0xFF);
     }
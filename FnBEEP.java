@@ -2,10 +2,19 @@ import java.util.List;
 
 public class FnBEEP implements BuiltinFunction {
     @Override public String name() { return "BEEP"; }
+    @Override public void checkArity(int argc) {
+        if (argc != 0) throw new Interpreter.BasicException("BEEP erwartet keine Argumente");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 0) throw new Interpreter.BasicException("BEEP erwartet keine Argumente");
+        checkArity(args.size());
+        return call0(rt);
+    }
+
+    @Override
+    public Interpreter.Value call0(Interpreter rt) {
+        rt.flushOutput();
         System.out.print("\u0007"); // Terminal-Bell
         System.out.flush();
         return Interpreter.Value.number(0);
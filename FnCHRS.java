@@ -2,11 +2,20 @@ import java.util.List;
 
 public class FnCHRS implements BuiltinFunction {
     @Override public String name() { return "CHR$"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("CHR$ erwartet 1 Argument");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("CHR$ erwartet 1 Argument");
-        int code = (int)Math.floor(args.get(0).asNumber());
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        int code = (int)Math.floor(x.asNumber());
         if (code < 0) code = 0;
         if (code > 255) code = 255; // QBASIC: 0..255
         char ch = (char) code;
@@ -0,0 +1,33 @@
+import java.util.List;
+
+public class FnCOUNT implements BuiltinFunction {
+    private final Search search;                       // konstantes Muster, sonst null (dann Cache)
+
+    public FnCOUNT() { this(null); }
+    private FnCOUNT(Search search) { this.search = search; }
+
+    @Override public String name() { return "COUNT"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 2) throw new Interpreter.BasicException("COUNT erwartet 2 Argumente");
+    }
+
+    @Override
+    public BuiltinFunction specialize(Interpreter.Value[] constants) {
+        Interpreter.Value sub = (constants.length == 2) ? constants[1] : null;
+        if (sub == null) return (search == null) ? this : new FnCOUNT();
+        return new FnCOUNT(Search.compile(sub.asText()));
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call2(rt, args.get(0), args.get(1));
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value s, Interpreter.Value sub) {
+        Search f = (search != null) ? search : Search.of(sub.asText());
+        return Interpreter.Value.number(f.count(s.asText()));
+    }
+}
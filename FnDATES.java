@@ -3,8 +3,18 @@ import java.time.LocalDate;
 
 public class FnDATES implements BuiltinFunction {
     @Override public String name() { return "DATE$"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 0) throw new Interpreter.BasicException("DATE$ erwartet keine Argumente");
+    @Override public void checkArity(int argc) {
+        if (argc != 0) throw new Interpreter.BasicException("DATE$ erwartet keine Argumente");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call0(rt);
+    }
+
+    @Override
+    public Interpreter.Value call0(Interpreter rt) {
         LocalDate d = LocalDate.now();
         String s = String.format("%04d-%02d-%02d", d.getYear(), d.getMonthValue(), d.getDayOfMonth());
         return Interpreter.Value.string(s);
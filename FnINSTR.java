@@ -1,25 +1,49 @@
 import java.util.List;
 
 public class FnINSTR implements BuiltinFunction {
+    private final Search search;                       // konstantes Muster, sonst null (dann Cache)
+
+    public FnINSTR() { this(null); }
+    private FnINSTR(Search search) { this.search = search; }
+
     @Override public String name() { return "INSTR"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc < 2 || argc > 3) throw new Interpreter.BasicException("INSTR erwartet 2 oder 3 Argumente");
+    }
+
+    @Override
+    public BuiltinFunction specialize(Interpreter.Value[] constants) {
+        Interpreter.Value sub = (constants.length >= 2) ? constants[constants.length - 1] : null;
+        if (sub == null) return (search == null) ? this : new FnINSTR();
+        return new FnINSTR(Search.compile(sub.asText()));
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() < 2 || args.size() > 3)
-            throw new Interpreter.BasicException("INSTR erwartet 2 oder 3 Argumente");
-        int start = 1;
-        String s, sub;
-        if (args.size() == 2) {
-            s = args.get(0).asString();
-            sub = args.get(1).asString();
-        } else {
-            start = (int)Math.floor(args.get(0).asNumber());
-            s = args.get(1).asString();
-            sub = args.get(2).asString();
-        }
+        checkArity(args.size());
+        if (args.size() == 2) return call2(rt, args.get(0), args.get(1));
+        return call3(rt, args.get(0), args.get(1), args.get(2));
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value s, Interpreter.Value sub) {
+        return instr(1, s.asText(), search(sub));
+    }
+
+    @Override
+    public Interpreter.Value call3(Interpreter rt, Interpreter.Value start, Interpreter.Value s, Interpreter.Value sub) {
+        return instr((int)Math.floor(start.asNumber()), s.asText(), search(sub));
+    }
+
+    private Search search(Interpreter.Value sub) {
+        return (search != null) ? search : Search.of(sub.asText());
+    }
+
+    private static Interpreter.Value instr(int start, CharSequence s, Search sub) {
         if (start < 1) start = 1;
-        if (sub.isEmpty()) return Interpreter.Value.number(start <= s.length()+1 ? start : 0);
-        int pos = s.indexOf(sub, Math.min(start - 1, Math.max(0, s.length())));
+        if (sub.length() == 0) return Interpreter.Value.number(start <= s.length()+1 ? start : 0);
+        int pos = sub.indexOf(s, Math.min(start - 1, s.length()));
         return Interpreter.Value.number(pos >= 0 ? (pos + 1) : 0);
     }
 }
@@ -2,10 +2,21 @@ import java.util.List;
 
 public class FnLOG implements BuiltinFunction {
     @Override public String name() { return "LOG"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("LOG erwartet 1 Argument");
-        double x = args.get(0).asNumber();
-        if (x <= 0) throw new Interpreter.BasicException("LOG: x>0 nötig");
-        return Interpreter.Value.number(Math.log(x)); // natürlicher Logarithmus
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("LOG erwartet 1 Argument");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        double d = x.asNumber();
+        if (d <= 0) throw new Interpreter.BasicException("LOG: x>0 nötig");
+        return Interpreter.Value.number(Math.log(d)); // natürlicher Logarithmus
     }
 }
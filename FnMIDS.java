@@ -2,21 +2,35 @@ import java.util.List;
 
 public class FnMIDS implements BuiltinFunction {
     @Override public String name() { return "MID$"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc < 2 || argc > 3) throw new Interpreter.BasicException("MID$ erwartet 2 oder 3 Argumente");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() < 2 || args.size() > 3)
-            throw new Interpreter.BasicException("MID$ erwartet 2 oder 3 Argumente");
-        String s = args.get(0).asString();
-        int start = (int)Math.floor(args.get(1).asNumber()); // 1-basiert
-        int len = (args.size() == 3) ? (int)Math.floor(args.get(2).asNumber()) : Integer.MAX_VALUE;
+        checkArity(args.size());
+        if (args.size() == 2) return call2(rt, args.get(0), args.get(1));
+        return call3(rt, args.get(0), args.get(1), args.get(2));
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value s, Interpreter.Value start) {
+        return mid(s.asText(), (int)Math.floor(start.asNumber()), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Interpreter.Value call3(Interpreter rt, Interpreter.Value s, Interpreter.Value start, Interpreter.Value len) {
+        return mid(s.asText(), (int)Math.floor(start.asNumber()), (int)Math.floor(len.asNumber()));
+    }
 
+    private static Interpreter.Value mid(CharSequence s, int start, int len) { // start 1-basiert
         if (start < 1) start = 1;
         if (len <= 0) return Interpreter.Value.string("");
         if (start > s.length()) return Interpreter.Value.string("");
 
         int begin = start - 1;
-        int end = Math.min(s.length(), begin + len);
-        return Interpreter.Value.string(s.substring(begin, end));
+        int end = (int) Math.min(s.length(), (long) begin + len);
+        return Interpreter.Value.string(Text.slice(s, begin, end));
     }
 }
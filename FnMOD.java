@@ -2,14 +2,23 @@ import java.util.List;
 
 public class FnMOD implements BuiltinFunction {
     @Override public String name() { return "MOD"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 2) throw new Interpreter.BasicException("MOD erwartet 2 Argumente");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 2) throw new Interpreter.BasicException("MOD erwartet 2 Argumente");
-        double a = args.get(0).asNumber();
-        double b = args.get(1).asNumber();
-        if (b == 0.0) throw new Interpreter.BasicException("MOD: Division durch 0");
-        double r = a - Math.floor(a / b) * b; // mathematisches Modulo
+        checkArity(args.size());
+        return call2(rt, args.get(0), args.get(1));
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value a, Interpreter.Value b) {
+        double x = a.asNumber();
+        double y = b.asNumber();
+        if (y == 0.0) throw new Interpreter.BasicException("MOD: Division durch 0");
+        double r = x - Math.floor(x / y) * y; // mathematisches Modulo
         return Interpreter.Value.number(r);
     }
 }
@@ -2,13 +2,26 @@ import java.util.List;
 
 public class FnPAUSE implements BuiltinFunction {
     @Override public String name() { return "PAUSE"; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("PAUSE erwartet 1 Argument (Sekunden)");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("PAUSE erwartet 1 Argument (Sekunden)");
-        double seconds = Math.max(0.0, args.get(0).asNumber());
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        double seconds = Math.max(0.0, x.asNumber());
         long ms = (long)Math.round(seconds * 1000.0);
+        rt.flushOutput(); // bisherige Ausgabe vor dem Warten zeigen
+        Events.PauseSleep ev = new Events.PauseSleep();
+        ev.begin();
         try { Thread.sleep(ms); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+        ev.end();
+        if (ev.shouldCommit()) { ev.requested = ms; ev.line = rt.currentLine(); ev.commit(); }
         return Interpreter.Value.number(0);
     }
 }
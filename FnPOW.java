@@ -2,8 +2,19 @@ import java.util.List;
 
 public class FnPOW implements BuiltinFunction {
     @Override public String name() { return "POW"; } // Ersatz für '^' Operator
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 2) throw new Interpreter.BasicException("POW erwartet 2 Argumente");
-        return Interpreter.Value.number(Math.pow(args.get(0).asNumber(), args.get(1).asNumber()));
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 2) throw new Interpreter.BasicException("POW erwartet 2 Argumente");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call2(rt, args.get(0), args.get(1));
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value a, Interpreter.Value b) {
+        return Interpreter.Value.number(Math.pow(a.asNumber(), b.asNumber()));
     }
 }
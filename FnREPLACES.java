@@ -0,0 +1,33 @@
+import java.util.List;
+
+public class FnREPLACES implements BuiltinFunction {
+    private final Search search;                       // konstantes Suchmuster, sonst null (dann Cache)
+
+    public FnREPLACES() { this(null); }
+    private FnREPLACES(Search search) { this.search = search; }
+
+    @Override public String name() { return "REPLACE$"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 3) throw new Interpreter.BasicException("REPLACE$ erwartet 3 Argumente");
+    }
+
+    @Override
+    public BuiltinFunction specialize(Interpreter.Value[] constants) {
+        Interpreter.Value find = (constants.length == 3) ? constants[1] : null;
+        if (find == null) return (search == null) ? this : new FnREPLACES();
+        return new FnREPLACES(Search.compile(find.asText()));
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call3(rt, args.get(0), args.get(1), args.get(2));
+    }
+
+    @Override
+    public Interpreter.Value call3(Interpreter rt, Interpreter.Value s, Interpreter.Value find, Interpreter.Value with) {
+        Search f = (search != null) ? search : Search.of(find.asText());
+        return Interpreter.Value.string(f.replace(s.asText(), with.asText()));
+    }
+}
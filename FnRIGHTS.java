@@ -2,14 +2,23 @@ import java.util.List;
 
 public class FnRIGHTS implements BuiltinFunction {
     @Override public String name() { return "RIGHT$"; }
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 2) throw new Interpreter.BasicException("RIGHT$ erwartet 2 Argumente");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 2) throw new Interpreter.BasicException("RIGHT$ erwartet 2 Argumente");
-        String s = args.get(0).asString();
-        int n = (int)Math.floor(args.get(1).asNumber());
+        checkArity(args.size());
+        return call2(rt, args.get(0), args.get(1));
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value a, Interpreter.Value b) {
+        CharSequence s = a.asText();
+        int n = (int)Math.floor(b.asNumber());
         if (n <= 0) return Interpreter.Value.string("");
         if (n >= s.length()) return Interpreter.Value.string(s);
-        return Interpreter.Value.string(s.substring(s.length() - n));
+        return Interpreter.Value.string(Text.slice(s, s.length() - n, s.length()));
     }
 }
@@ -2,23 +2,37 @@ import java.util.List;
 
 public class FnRND implements BuiltinFunction {
     @Override public String name() { return "RND"; }
+    @Override public void checkArity(int argc) {
+        if (argc > 2) throw new Interpreter.BasicException("RND erwartet 0, 1 oder 2 Argumente");
+    }
 
     @Override
     public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() == 0) {
-            return Interpreter.Value.number(rt.rng().nextDouble());
-        } else if (args.size() == 1) {
-            int n = (int)Math.floor(args.get(0).asNumber());
-            if (n <= 0) throw new Interpreter.BasicException("RND(n): n>0 nötig");
-            int x = 1 + rt.rng().nextInt(n);
-            return Interpreter.Value.number(x);
-        } else if (args.size() == 2) {
-            int a = (int)Math.floor(args.get(0).asNumber());
-            int b = (int)Math.floor(args.get(1).asNumber());
-            int lo = Math.min(a, b), hi = Math.max(a, b);
-            int x = lo + rt.rng().nextInt(hi - lo + 1);
-            return Interpreter.Value.number(x);
-        }
-        throw new Interpreter.BasicException("RND erwartet 0, 1 oder 2 Argumente");
+        checkArity(args.size());
+        if (args.size() == 0) return call0(rt);
+        if (args.size() == 1) return call1(rt, args.get(0));
+        return call2(rt, args.get(0), args.get(1));
+    }
+
+    @Override
+    public Interpreter.Value call0(Interpreter rt) {
+        return Interpreter.Value.number(rt.rng().nextDouble());
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value max) {
+        int n = (int)Math.floor(max.asNumber());
+        if (n <= 0) throw new Interpreter.BasicException("RND(n): n>0 nötig");
+        int x = 1 + rt.rng().nextInt(n);
+        return Interpreter.Value.number(x);
+    }
+
+    @Override
+    public Interpreter.Value call2(Interpreter rt, Interpreter.Value from, Interpreter.Value to) {
+        int a = (int)Math.floor(from.asNumber());
+        int b = (int)Math.floor(to.asNumber());
+        int lo = Math.min(a, b), hi = Math.max(a, b);
+        int x = lo + rt.rng().nextInt(hi - lo + 1);
+        return Interpreter.Value.number(x);
     }
 }
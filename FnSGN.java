@@ -2,9 +2,20 @@ import java.util.List;
 
 public class FnSGN implements BuiltinFunction {
     @Override public String name() { return "SGN"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("SGN erwartet 1 Argument");
-        double x = args.get(0).asNumber();
-        return Interpreter.Value.number(x > 0 ? 1 : (x < 0 ? -1 : 0));
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("SGN erwartet 1 Argument");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        double d = x.asNumber();
+        return Interpreter.Value.number(d > 0 ? 1 : (d < 0 ? -1 : 0));
     }
 }
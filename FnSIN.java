@@ -2,8 +2,19 @@ import java.util.List;
 
 public class FnSIN implements BuiltinFunction {
     @Override public String name() { return "SIN"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("SIN erwartet 1 Argument");
-        return Interpreter.Value.number(Math.sin(args.get(0).asNumber()));
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("SIN erwartet 1 Argument");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        return Interpreter.Value.number(Math.sin(x.asNumber()));
     }
 }
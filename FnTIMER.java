@@ -3,8 +3,18 @@ import java.time.LocalTime;
 
 public class FnTIMER implements BuiltinFunction {
     @Override public String name() { return "TIMER"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 0) throw new Interpreter.BasicException("TIMER erwartet keine Argumente");
+    @Override public void checkArity(int argc) {
+        if (argc != 0) throw new Interpreter.BasicException("TIMER erwartet keine Argumente");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call0(rt);
+    }
+
+    @Override
+    public Interpreter.Value call0(Interpreter rt) {
         LocalTime t = LocalTime.now();
         double sec = t.getHour() * 3600 + t.getMinute() * 60 + t.getSecond() + t.getNano() / 1e9;
         return Interpreter.Value.number(sec);
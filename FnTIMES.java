@@ -3,8 +3,18 @@ import java.time.LocalTime;
 
 public class FnTIMES implements BuiltinFunction {
     @Override public String name() { return "TIME$"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 0) throw new Interpreter.BasicException("TIME$ erwartet keine Argumente");
+    @Override public void checkArity(int argc) {
+        if (argc != 0) throw new Interpreter.BasicException("TIME$ erwartet keine Argumente");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call0(rt);
+    }
+
+    @Override
+    public Interpreter.Value call0(Interpreter rt) {
         LocalTime t = LocalTime.now();
         String s = String.format("%02d:%02d:%02d", t.getHour(), t.getMinute(), t.getSecond());
         return Interpreter.Value.string(s);
@@ -3,8 +3,19 @@ import java.util.Locale;
 
 public class FnUCASES implements BuiltinFunction {
     @Override public String name() { return "UCASE$"; }
-    @Override public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
-        if (args.size() != 1) throw new Interpreter.BasicException("UCASE$ erwartet 1 Argument");
-        return Interpreter.Value.string(args.get(0).asString().toUpperCase(Locale.ROOT));
+    @Override public boolean pure() { return true; }
+    @Override public void checkArity(int argc) {
+        if (argc != 1) throw new Interpreter.BasicException("UCASE$ erwartet 1 Argument");
+    }
+
+    @Override
+    public Interpreter.Value call(Interpreter rt, List<Interpreter.Value> args) {
+        checkArity(args.size());
+        return call1(rt, args.get(0));
+    }
+
+    @Override
+    public Interpreter.Value call1(Interpreter rt, Interpreter.Value x) {
+        return Interpreter.Value.string(x.asString().toUpperCase(Locale.ROOT));
     }
 }
@@ -9,11 +9,12 @@ public class FunctionRegistry {
     }
 
     public boolean has(String name) { return fns.containsKey(name.toUpperCase(Locale.ROOT)); }
+    public BuiltinFunction get(String name) { return fns.get(name.toUpperCase(Locale.ROOT)); }
 
     public Interpreter.Value call(String name, Interpreter rt, List<Interpreter.Value> args) {
         BuiltinFunction fn = fns.get(name.toUpperCase(Locale.ROOT));
         if (fn == null) throw new Interpreter.BasicException("Unbekannte Funktion: " + name);
-        return fn.call(rt, args);
+        return Nodes.callList(rt, fn, args);
     }
 
 public static FunctionRegistry createDefault() {
@@ -40,10 +41,15 @@ public static FunctionRegistry createDefault() {
             .register(new FnLOG())
             .register(new FnPOW())
             .register(new FnINSTR())
+            .register(new FnCOUNT())
+            .register(new FnREPLACES())
             .register(new FnCHRS())
             .register(new FnASC())
             .register(new FnTIMES())
             .register(new FnDATES())
-            .register(new FnTIMER());
+            .register(new FnTIMER())
+            .register(new FnLEN())
+            .register(new FnLCASES())
+            .register(new FnUCASES());
 }
 }
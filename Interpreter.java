@@ -2,35 +2,118 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Interpreter {
     // Programmquelle
     private final TreeMap<Integer, String> source = new TreeMap<>();
+    private final Tokenizer tokenizer = new Tokenizer();      // je Zeile zurückgesetzt, Namenstabelle bleibt
 
-    // Variablen & Arrays
-    private final Map<String, Value> vars = new HashMap<>();
-    private final Map<String, ArrayVar> arrays = new HashMap<>();
+    // Variablen & Arrays: Namen werden beim Parsen auf feste Slots abgebildet.
+    // Numerische Variablen liegen primitiv in nums[], String-Variablen ($) in strs[] (String oder Text).
+    private final Map<String, Integer> varSlots = new HashMap<>();
+    private final Map<String, Integer> arraySlots = new HashMap<>();
+    private int numCount = 0, strCount = 0;
+    double[] nums = new double[16];
+    CharSequence[] strs = new CharSequence[8];
+    ArrayVar[] arrays = new ArrayVar[8];
+    private String[] arrayNames = new String[8];
 
     // Funktionen
     private final FunctionRegistry fn;
     private final Random rng = new Random();
 
+    // maximale Tiefe für GOSUB- und FOR-Stapel
+    private int maxStackDepth = 100_000;
+    private int traceSize = 16;               // Ablauf-Ringpuffer je RUN (Zweierpotenz), 0 = aus
+
+    // Cache kompilierter Zeilen; Änderungen an einer Zeile verwerfen nur deren Eintrag
+    private final Map<Integer, CompiledLine> compiled = new HashMap<>();
+    private boolean lazyCompile = false;      // true: Zeile erst bei erster Ausführung kompilieren
+
+    // Messwerte des letzten RUN
+    private long lastStartupNanos = -1;       // RUN-Aufruf bis zur ersten Anweisung
+    private long lastStatements = -1;         // ausgeführte Anweisungen (nur Baum-Interpreter ohne JIT)
+    private boolean jitEnabled = Jit.available(); // heiße Bereiche im Hintergrund nach Java übersetzen
+    private int jitThreshold = Jit.DEFAULT_THRESHOLD;
+    private Jit jit;                          // bleibt über RUNs erhalten, solange das Programm unverändert ist
+    private Engine engine = Engine.TREE;
+    private boolean optimize = true;          // Konstantenfaltung und Entfernen unerreichbarer Zeilen
+    private int lastCompiledLines = 0;        // davon neu kompiliert (Rest aus dem Cache)
+    private List<Nodes.For> hoisted = List.of(); // Schleifen mit vorgezogener Indexprüfung (Optimizer)
+    private int compileThreads = Runtime.getRuntime().availableProcessors(); // 1 = seriell übersetzen
+    private ForkJoinPool compilePool;         // erst bei Bedarf, je Threadzahl neu
+    private OutputSink.Flush outputFlush = OutputSink.Flush.LINE; // für run(in, PrintStream)
+    private OutputSink output;                // Ausgabe des laufenden RUN (für CLS/BEEP/PAUSE)
+    private Context context;                  // laufender RUN (Zeilennummer für JFR-Ereignisse)
+    static final int TRACE_MAX = 1 << 16;
+    static final int PARALLEL_MIN_LINES = 4096; // kleinere Programme lohnen den Pool nicht
+    private static final int PARALLEL_CHUNK = 512;
+
     public Interpreter(FunctionRegistry fn) { this.fn = fn; }
 
     public FunctionRegistry functions() { return fn; }
 
+    public int maxStackDepth() { return maxStackDepth; }
+    public void setMaxStackDepth(int depth) {
+        if (depth < 1) throw new IllegalArgumentException("Stapeltiefe muss > 0 sein");
+        maxStackDepth = depth;
+    }
+
+    public boolean optimize() { return optimize; }
+    public void setOptimize(boolean on) {
+        if (on == optimize) return;
+        optimize = on;
+        compiled.clear();                     // Cache enthält Bäume der anderen Einstellung
+        jit = null;
+    }
+    public int traceSize() { return traceSize; }
+    /** Wie viele zuletzt ausgeführte Zeilen ein Laufzeitfehler mitbringt; aufgerundet auf eine Zweierpotenz. */
+    public void setTraceSize(int n) {
+        if (n < 0 || n > TRACE_MAX) throw new IllegalArgumentException("TRACE 0.." + TRACE_MAX);
+        int size = 1;
+        while (size < n) size <<= 1;
+        traceSize = (n == 0) ? 0 : size;
+    }
+    public int compileThreads() { return compileThreads; }
+    public void setCompileThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Threadzahl muss > 0 sein");
+        if (threads == compileThreads) return;
+        compileThreads = threads;
+        if (compilePool != null) compilePool.shutdown();
+        compilePool = null;
+    }
+    public OutputSink.Flush outputFlush() { return outputFlush; }
+    public void setOutputFlush(OutputSink.Flush f) { outputFlush = f; }
+    public boolean lazyCompile() { return lazyCompile; }
+    public void setLazyCompile(boolean lazy) { lazyCompile = lazy; }
+    public boolean jitEnabled() { return jitEnabled; }
+    public void setJitEnabled(boolean on) {
+        if (on && !Jit.available()) throw new BasicException("JIT nicht verfügbar (kein Java-Compiler, JDK nötig).");
+        jitEnabled = on;
+        jit = null;
+    }
+    /** Ausführungsart für RUN: Baum-Interpreter (mit JIT) oder Register-VM. */
+    public enum Engine { TREE, VM }
+    public Engine engine() { return engine; }
+    public void setEngine(Engine e) { engine = e; }
+    public int jitThreshold() { return jitThreshold; }
+    public void setJitThreshold(int t) { jitThreshold = Math.max(1, t); jit = null; }
+
     /* ===== Programmbearbeitung ===== */
-    public void addOrReplaceLine(int line, String content) { source.put(line, content); }
-    public void removeLine(int line) { source.remove(line); }
+    public void addOrReplaceLine(int line, String content) { source.put(line, content); compiled.remove(line); jit = null; }
+    public void removeLine(int line) { source.remove(line); compiled.remove(line); jit = null; }
+    String sourceLine(int line) { return source.get(line); }
     public void list(PrintStream out) { for (var e : source.entrySet()) out.println(e.getKey() + " " + e.getValue()); }
-    public void newProgram() { source.clear(); vars.clear(); arrays.clear(); }
+    public void newProgram() { source.clear(); compiled.clear(); jit = null; clearSymbols(); }
     public void save(Path file) throws IOException {
         try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
             for (var e : source.entrySet()) { w.write(e.getKey() + " " + e.getValue()); w.newLine(); }
         }
     }
     public void load(Path file) throws IOException {
-        source.clear();
+        source.clear(); compiled.clear(); jit = null;
         try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = r.readLine()) != null) {
@@ -42,150 +125,645 @@ public class Interpreter {
                 if (!rest.isEmpty()) source.put(num, rest);
             }
         }
-        vars.clear(); arrays.clear();
+        clearSymbols();
     }
 
     /* ===== Ausführen ===== */
+    /** Wie {@link #run(BufferedReader, OutputSink)}, gepuffert nach {@link #outputFlush()} im Zeichensatz der Konsole. */
     public void run(BufferedReader in, PrintStream out) {
+        run(in, OutputSink.of(out, OutputSink.consoleCharset(), outputFlush));
+    }
+
+    /** Führt das Programm aus; die Ausgabe ist danach (auch bei Fehlern) vollständig geschrieben. */
+    public void run(BufferedReader in, OutputSink out) {
+        runRecorded(in, out, null);
+    }
+
+    /**
+     * RUN PROFILE: führt das Programm im Baum-Interpreter ohne JIT aus (dort ist jede Zeile sichtbar),
+     * während ein Sampler alle {@code intervalMicros} µs die aktuelle Zeile und den GOSUB-Pfad zählt.
+     * Der Bericht wird auch nach einem Fehler geschrieben, danach wird der Fehler weitergereicht.
+     */
+    public void runProfiled(BufferedReader in, OutputSink out, long intervalMicros, int top, PrintStream report) {
+        Profiler prof = new Profiler(intervalMicros);
+        try { runRecorded(in, out, prof); }
+        finally { prof.report(this, top, report); }
+    }
+
+    // jeder RUN als JFR-Ereignis minibasic.ProgramRun; die Ausgabe ist danach vollständig geschrieben
+    private void runRecorded(BufferedReader in, OutputSink out, Profiler prof) {
+        Events.ProgramRun ev = new Events.ProgramRun();
+        ev.begin();
+        String error = null;
+        try { execute(in, out, prof); }
+        catch (BasicException ex) { error = ex.getMessage(); throw ex; }
+        finally {
+            output = null; out.flush();
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.lines = source.size();
+                ev.compiledLines = lastCompiledLines;
+                ev.startup = lastStartupNanos;
+                ev.statements = lastStatements;
+                ev.engine = (engine == Engine.VM && prof == null) ? "VM" : (jitEnabled && prof == null) ? "TREE+JIT" : "TREE";
+                ev.line = currentLine();
+                ev.error = error;
+                ev.commit();
+            }
+            context = null;
+        }
+    }
+
+    /** BASIC-Zeile des laufenden RUN (0 außerhalb); in JIT-Bereichen die Zeile beim Eintritt. */
+    int currentLine() {
+        Context c = context;
+        return (c != null) ? c.currentLine : 0;
+    }
+
+    /** Schreibt die gepufferte Programmausgabe (vor direkter Konsolenausgabe oder Warten). */
+    public void flushOutput() {
+        OutputSink o = output;
+        if (o != null) o.flush();
+    }
+
+    private void execute(BufferedReader in, OutputSink out, Profiler prof) {
         if (source.isEmpty()) throw new BasicException("Kein Programm vorhanden.");
-        Map<Integer, Statement> program = new HashMap<>();
-        List<Integer> order = new ArrayList<>(source.keySet());
-
-        for (int ln : order) {
-            String code = source.get(ln);
-            Tokenizer tz = new Tokenizer(code);
-            Parser p = new Parser(this, tz);
-            Statement st = p.parseStatement();
-            if (tz.hasMore()) throw new BasicException("Zeile " + ln + ": Unerwarteter Rest: " + tz.remaining());
-            program.put(ln, st);
-        }
-        Map<Integer, Integer> lineToIndex = new HashMap<>();
-        Map<Integer, Integer> nextLine = new HashMap<>();
-        for (int i = 0; i < order.size(); i++) {
-            int ln = order.get(i);
-            lineToIndex.put(ln, i);
-            nextLine.put(ln, (i + 1 < order.size()) ? order.get(i + 1) : null);
-        }
-
-        Context ctx = new Context(this, in, out, nextLine);
-        for (int pc = 0; pc < order.size();) {
-            int ln = order.get(pc);
-            ctx.currentLine = ln;
+        long t0 = System.nanoTime();
+        lastCompiledLines = 0;
+        lastStatements = -1;
+        int n = source.size();
+        int[] lines = programLines();
+        Statement[] program;
+        if (lazyCompile && engine == Engine.TREE) {
+            hoistBoundsChecks(null, lines);
+            program = new Statement[n];
+            program[0] = linkedStatement(0, lines);
+        } else {
+            program = compileProgram(lines);
+        }
+        Vm.Program vm = (engine == Engine.VM && prof == null) ? Vm.compile(program, lines, numCount, strCount) : null;
+        lastStartupNanos = System.nanoTime() - t0;
+
+        Context ctx = new Context(this, in, out, lines);
+        if (vm != null) {
+            try {
+                Vm.execute(vm, ctx);
+            } catch (BasicException be) {
+                throw new BasicException("Zeile " + ctx.currentLine + ": " + be.getMessage(), ctx.traceDump());
+            } catch (RuntimeException re) {
+                throw new BasicException("Zeile " + ctx.currentLine + ": " + re.getMessage(), ctx.traceDump());
+            }
+            return;
+        }
+        int pc;
+        boolean useJit = jitEnabled && prof == null;
+        if (useJit && jit == null) jit = new Jit(lines, jitThreshold);
+        Jit jit = useJit ? this.jit : null;
+        Jit.Region[] regions = (jit != null) ? jit.start(program) : null;
+        if (prof != null) { ctx.profiler = prof; prof.start(lines); }
+        try {
+            loop(program, lines, ctx, jit, regions, prof);
+        } finally {
+            if (prof != null) prof.stop();
+        }
+    }
+
+    // Hauptschleife des Baum-Interpreters
+    private void loop(Statement[] program, int[] lines, Context ctx, Jit jit, Jit.Region[] regions, Profiler prof) {
+        int n = program.length;
+        int pc;
+        for (pc = 0; pc < n;) {
+            Statement st = program[pc];
+            if (st == null) st = program[pc] = linkedStatement(pc, lines);
+            ctx.pc = pc;
+            ctx.currentLine = lines[pc];
             ctx.clearControl();
+            if (prof != null) prof.at(pc);
             try {
-                program.get(ln).execute(ctx);
+                if (regions != null) {
+                    Jit.Region r = regions[pc];
+                    if (r != null) {
+                        // übersetzter Bereich; liefert die erste Zeile außerhalb
+                        pc = r.run(ctx, pc);
+                        if (ctx.stop) break;
+                        continue;
+                    }
+                    jit.count(pc);
+                }
+                ctx.statements++;
+                ctx.trace(pc);
+                st.execute(ctx);
             } catch (BasicException be) {
-                throw new BasicException("Zeile " + ln + ": " + be.getMessage());
+                throw new BasicException("Zeile " + ctx.currentLine + ": " + be.getMessage(), ctx.traceDump());
             } catch (RuntimeException re) {
-                throw new BasicException("Zeile " + ln + ": " + re.getMessage());
+                throw new BasicException("Zeile " + ctx.currentLine + ": " + re.getMessage(), ctx.traceDump());
             }
 
             if (ctx.stop) break;
-            if (ctx.jumpToLine != null) {
-                Integer idx = lineToIndex.get(ctx.jumpToLine);
-                if (idx == null) throw new BasicException("Sprung in nicht existierende Zeile " + ctx.jumpToLine);
-                pc = idx;
-            } else {
-                pc++;
+            pc = (ctx.jumpPc >= 0) ? ctx.jumpPc : pc + 1;
+        }
+        if (jit == null) lastStatements = ctx.statements; // übersetzte Bereiche zählen nicht mit
+    }
+
+    /** Kennzahlen des letzten RUN. */
+    public void stats(PrintStream out) {
+        if (lastStartupNanos < 0) { out.println("Noch kein RUN."); return; }
+        out.printf(Locale.ROOT, "Start bis erste Anweisung: %.3f ms (%s, %d Zeilen neu kompiliert, %d im Cache)%n",
+                lastStartupNanos / 1e6, lazyCompile && engine == Engine.TREE ? "lazy" : "eager, " + compileThreads + " Threads",
+                lastCompiledLines, compiled.size());
+        if (engine == Engine.VM) out.println("Engine: VM");
+        else out.println(jitEnabled && jit != null ? jit.summary() : "JIT: aus");
+    }
+    public long lastStartupNanos() { return lastStartupNanos; }
+    /** Anweisungen des letzten vollständigen RUN; -1 bei VM, JIT oder Fehler. */
+    public long lastStatements() { return lastStatements; }
+
+    /**
+     * Skalierung der Übersetzung: lädt und übersetzt das Programm je Threadzahl 1..maxThreads
+     * {@code runs}-mal mit leerem Cache (wie das erste RUN) und meldet min/Median sowie den Faktor zu 1 Thread.
+     */
+    static void compileScaling(Path bas, int maxThreads, int runs, PrintStream out) throws IOException {
+        FunctionRegistry fn = FunctionRegistry.createDefault();
+        Interpreter warm = new Interpreter(fn);
+        warm.load(bas);
+        int n = warm.source.size();
+        warm.compileProgram(warm.programLines());  // Aufwärmen (Parser/Optimierer vom JIT übersetzen lassen)
+        out.printf(Locale.ROOT, "%d Zeilen, %d Kerne%s%n", n, Runtime.getRuntime().availableProcessors(),
+                n < PARALLEL_MIN_LINES ? " (unter " + PARALLEL_MIN_LINES + " Zeilen immer seriell)" : "");
+        double base = 0;
+        for (int t = 1; t <= maxThreads; t++) {
+            Interpreter interp = new Interpreter(fn);
+            interp.setCompileThreads(t);
+            long[] ns = new long[runs];
+            for (int r = 0; r < runs; r++) {
+                interp.load(bas);
+                long t0 = System.nanoTime();
+                interp.compileProgram(interp.programLines());
+                ns[r] = System.nanoTime() - t0;
             }
+            interp.setCompileThreads(1);            // Pool beenden
+            long[] sorted = ns.clone(); Arrays.sort(sorted);
+            double min = sorted[0] / 1e6, median = sorted[runs / 2] / 1e6;
+            if (t == 1) base = min;
+            out.printf(Locale.ROOT, "%2d Threads: min %8.1f ms, Median %8.1f ms, Faktor %.2f%n", t, min, median, base / min);
         }
     }
 
-    /* ===== Speicher/RT ===== */
-    public Value getVar(String name) { return vars.getOrDefault(name, Value.number(0)); }
-    public void setVar(String name, Value v) { vars.put(name, v); }
-
-    public void dimArray(String name, boolean stringType, int[] dims) { arrays.put(name, new ArrayVar(stringType, dims)); }
-    public Value getArray(String name, int[] idxs) {
-        ArrayVar a = arrays.get(name);
-        if (a == null) throw new BasicException("Array " + name + " nicht dimensioniert (DIM fehlt).");
-        int flat = a.indexFrom(idxs);
-        if (a.stringType) {
-            String s = a.strs[flat];
-            if (s == null) s = "";
-            return Value.string(s);
+    /* ===== Kompilieren ===== */
+    private static final class CompiledLine {
+        final Statement st; final Nodes.Jump[] jumps;
+        CompiledLine(Statement st, Nodes.Jump[] jumps) { this.st = st; this.jumps = jumps; }
+    }
+
+    private CompiledLine compiledLine(int ln) {
+        CompiledLine cl = compiled.get(ln);
+        if (cl != null) return cl;
+        cl = parseLine(ln, tokenizer);
+        compiled.put(ln, cl);
+        lastCompiledLines++;
+        return cl;
+    }
+
+    // parst und optimiert eine Zeile ohne den Cache anzufassen (auch aus den Threads von compileParallel)
+    private CompiledLine parseLine(int ln, Tokenizer tokenizer) {
+        CompiledLine cl;
+        Tokenizer tz = tokenizer.reset(source.get(ln));
+        Parser p = new Parser(this, tz);
+        Statement st;
+        try { st = p.parseStatement(); }
+        catch (BasicException ex) { throw new BasicException("Zeile " + ln + ": " + ex.getMessage()); } // z. B. falsche Argumentzahl
+        if (tz.hasMore()) throw new BasicException("Zeile " + ln + ": Unerwarteter Rest: " + tz.remaining());
+        if (optimize && Optimizer.analyzable(st)) {
+            st = new Optimizer(this).statement(st);
+            List<Nodes.Jump> jumps = new ArrayList<>();
+            Optimizer.jumps(st, jumps);
+            cl = new CompiledLine(st, jumps.toArray(new Nodes.Jump[0]));
+        } else {
+            cl = new CompiledLine(st, p.jumps().toArray(new Nodes.Jump[0]));
+        }
+        return cl;
+    }
+
+    /**
+     * Parst alle noch nicht übersetzten Zeilen stückweise auf einem ForkJoinPool und legt sie in den Cache.
+     * Fehlerhafte Zeilen bleiben draußen; der anschließende serielle Durchlauf übersetzt sie erneut und
+     * meldet den Fehler wie gewohnt (früheste Zeile gewinnt, unabhängig von der Thread-Reihenfolge).
+     */
+    private void compileParallel(int[] lines) {
+        int[] todo = new int[lines.length];
+        int n = 0;
+        for (int ln : lines) if (!compiled.containsKey(ln)) todo[n++] = ln;
+        if (n < PARALLEL_MIN_LINES) return;
+        CompiledLine[] done = new CompiledLine[n];
+        if (compilePool == null) compilePool = new ForkJoinPool(compileThreads);
+        compilePool.invoke(new ParseChunk(todo, done, 0, n));
+        for (int i = 0; i < n; i++) {
+            if (done[i] == null) continue;
+            compiled.put(todo[i], done[i]);
+            lastCompiledLines++;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class ParseChunk extends RecursiveAction {
+        private final int[] lines; private final CompiledLine[] out; private final int from, to;
+        ParseChunk(int[] lines, CompiledLine[] out, int from, int to) { this.lines = lines; this.out = out; this.from = from; this.to = to; }
+        @Override protected void compute() {
+            if (to - from > PARALLEL_CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseChunk(lines, out, from, mid), new ParseChunk(lines, out, mid, to));
+                return;
+            }
+            Tokenizer tz = new Tokenizer();
+            for (int i = from; i < to; i++) {
+                try { out[i] = parseLine(lines[i], tz); }
+                catch (RuntimeException ex) { /* seriell erneut, dort mit Zeilennummer gemeldet */ }
+            }
+        }
+    }
+
+    // Zeilennummern ändern sich durch Bearbeitung -> Sprünge werden bei jedem RUN neu gebunden
+    private static void link(CompiledLine cl, int ln, int[] lines) {
+        for (Nodes.Jump j : cl.jumps) {
+            int target = Arrays.binarySearch(lines, j.line());
+            if (target < 0) throw new BasicException("Zeile " + ln + ": Sprung in nicht existierende Zeile " + j.line());
+            j.link(target);
+        }
+    }
+
+    /** Zeilennummern des Programms in Ausführungsreihenfolge (Index = pc). */
+    int[] programLines() {
+        int[] lines = new int[source.size()];
+        int pc = 0;
+        for (int ln : source.keySet()) lines[pc++] = ln;
+        return lines;
+    }
+
+    /** Kompiliert und bindet alle Zeilen; Fehler (auch fehlende Sprungziele) treten vor dem Start auf. */
+    Statement[] compileProgram(int[] lines) { return compileProgram(lines, null); }
+
+    /**
+     * Wie oben; mit OPTIMIZE werden nur die von der ersten Zeile aus erreichbaren Zeilen übersetzt,
+     * alle anderen werden zu NOP (in {@code reachable}, falls angegeben, als false vermerkt).
+     */
+    Statement[] compileProgram(int[] lines, boolean[] reachable) {
+        int n = lines.length;
+        CompiledLine[] cls = new CompiledLine[n];
+        if (compileThreads > 1) compileParallel(lines);
+        if (!optimize) {
+            for (int pc = 0; pc < n; pc++) cls[pc] = compiledLine(lines[pc]);
         } else {
-            return Value.number(a.nums[flat]);
+            reachableLines(lines, cls);
         }
+        // Sprungziele einmalig auf Programmindizes auflösen
+        Statement[] program = new Statement[n];
+        for (int pc = 0; pc < n; pc++) {
+            if (reachable != null) reachable[pc] = cls[pc] != null;
+            if (cls[pc] == null) { program[pc] = Nodes.Nop.INSTANCE; continue; }
+            link(cls[pc], lines[pc], lines);
+            program[pc] = cls[pc].st;
+        }
+        hoistBoundsChecks(program, lines);
+        return program;
     }
-    public void setArray(String name, int[] idxs, Value v) {
-        ArrayVar a = arrays.get(name);
-        if (a == null) throw new BasicException("Array " + name + " nicht dimensioniert (DIM fehlt).");
-        int flat = a.indexFrom(idxs);
-        if (a.stringType) a.strs[flat] = v.asString();
-        else a.nums[flat] = v.asNumber();
+
+    // Guards gelten nur für das Programm, für das sie berechnet wurden (Knoten liegen im Cache);
+    // ohne Gesamtprogramm (lazy) gibt es keine
+    private void hoistBoundsChecks(Statement[] program, int[] lines) {
+        for (Nodes.For f : hoisted) f.clearGuards();
+        hoisted = (program != null && optimize) ? Optimizer.hoistBoundsChecks(program, lines) : List.of();
+    }
+
+    // Erreichbarkeit ab Index 0: Folgezeile (falls das Statement durchfällt) plus alle Sprungziele.
+    // RETURN und NEXT brauchen keine eigenen Kanten: ihre Ziele sind Folgezeilen von GOSUB bzw. FOR.
+    // Der früheste Übersetzungsfehler unter den erreichbaren Zeilen wird gemeldet.
+    private void reachableLines(int[] lines, CompiledLine[] cls) {
+        int n = lines.length;
+        boolean[] seen = new boolean[n];
+        int[] work = new int[n];
+        int top = 0;
+        seen[0] = true; work[top++] = 0;
+        BasicException first = null; int firstPc = n;
+        while (top > 0) {
+            int pc = work[--top];
+            CompiledLine cl;
+            try { cl = compiledLine(lines[pc]); }
+            catch (BasicException ex) { if (pc < firstPc) { first = ex; firstPc = pc; } continue; }
+            cls[pc] = cl;
+            if (!Optimizer.analyzable(cl.st)) {
+                // unbekannte Statement-Art: Sprungziele nicht sicher bekannt -> alles erreichbar
+                for (int i = 0; i < n; i++) if (!seen[i]) { seen[i] = true; work[top++] = i; }
+                continue;
+            }
+            if (Optimizer.fallsThrough(cl.st) && pc + 1 < n && !seen[pc + 1]) { seen[pc + 1] = true; work[top++] = pc + 1; }
+            for (Nodes.Jump j : cl.jumps) {
+                int t = Arrays.binarySearch(lines, j.line());
+                if (t >= 0 && !seen[t]) { seen[t] = true; work[top++] = t; }
+            }
+        }
+        if (first != null) throw first;
+    }
+
+    /** Gibt die (ggf. optimierten) Bäume aller Zeilen aus; unerreichbare Zeilen werden markiert. */
+    public void dump(PrintStream out) {
+        if (source.isEmpty()) throw new BasicException("Kein Programm vorhanden.");
+        int[] lines = programLines();
+        boolean[] reachable = new boolean[lines.length];
+        Statement[] program = compileProgram(lines, reachable);
+        for (int pc = 0; pc < lines.length; pc++) {
+            out.println(lines[pc] + " " + (reachable[pc] ? Optimizer.dumpStatement(program[pc]) : "-- unerreichbar, entfernt"));
+        }
+    }
+
+    private Statement linkedStatement(int pc, int[] lines) {
+        CompiledLine cl = compiledLine(lines[pc]);
+        link(cl, lines[pc], lines);
+        return cl.st;
+    }
+
+    /* ===== Speicher/RT ===== */
+    public static boolean isStringName(String name) { return name.endsWith("$"); }
+
+    // Slot-Vergabe zur Parse-Zeit; derselbe Name liefert immer denselben Slot (je Typ eigener Namensraum).
+    // synchronized wegen compileParallel; die Slot-Nummern hängen dann von der Reihenfolge der Threads ab
+    public synchronized int varSlot(String name) {
+        Integer slot = varSlots.get(name);
+        if (slot != null) return slot;
+        int s;
+        if (isStringName(name)) { s = strCount++; if (s == strs.length) strs = Arrays.copyOf(strs, s * 2); }
+        else { s = numCount++; if (s == nums.length) nums = Arrays.copyOf(nums, s * 2); }
+        varSlots.put(name, s);
+        return s;
+    }
+    public synchronized int arraySlot(String name) {
+        Integer slot = arraySlots.get(name);
+        if (slot != null) return slot;
+        int s = arraySlots.size();
+        if (s == arrays.length) { arrays = Arrays.copyOf(arrays, s * 2); arrayNames = Arrays.copyOf(arrayNames, s * 2); }
+        arraySlots.put(name, s);
+        arrayNames[s] = name;
+        return s;
+    }
+    /** Variablen- bzw. Array-Namen in Slot-Reihenfolge; erneutes varSlot/arraySlot ergibt dieselben Slots. */
+    List<String> symbolNames(boolean arrayNames) {
+        Map<String, Integer> m = arrayNames ? arraySlots : varSlots;
+        List<String> names = new ArrayList<>(m.keySet());
+        names.sort(Comparator.comparing((String nm) -> isStringName(nm)).thenComparing(m::get));
+        return names;
+    }
+    private void clearSymbols() {
+        varSlots.clear(); arraySlots.clear(); numCount = 0; strCount = 0;
+        Arrays.fill(nums, 0.0); Arrays.fill(strs, null); Arrays.fill(arrays, null); Arrays.fill(arrayNames, null);
+    }
+
+    public double getNum(int slot) { return nums[slot]; }
+    public void setNum(int slot, double d) { nums[slot] = d; }
+    public CharSequence getStr(int slot) { CharSequence s = strs[slot]; return (s != null) ? s : ""; }
+    public void setStr(int slot, CharSequence s) { strs[slot] = s; }
+    public Value getVar(String name) {
+        Integer slot = varSlots.get(name);
+        if (isStringName(name)) return Value.string(slot != null ? getStr(slot) : "");
+        return (slot != null) ? Value.number(getNum(slot)) : Value.ZERO;
+    }
+    public void setVar(String name, Value v) {
+        int slot = varSlot(name);
+        if (isStringName(name)) setStr(slot, v.asText()); else setNum(slot, v.asNumber());
+    }
+
+    public void dimArray(int slot, boolean stringType, int[] dims) { arrays[slot] = new ArrayVar(stringType, dims); }
+    /** DIM ... AS FILE: Zahlen-Array als Abbild der Datei (relativ zum Arbeitsverzeichnis). */
+    public void dimArray(int slot, boolean stringType, int[] dims, CharSequence file) {
+        arrays[slot] = new ArrayVar(stringType, dims, (file != null) ? Paths.get(file.toString()) : null);
+    }
+    public void dimArray(String name, boolean stringType, int[] dims) { dimArray(arraySlot(name), stringType, dims); }
+    ArrayVar array(int slot) {
+        ArrayVar a = arrays[slot];
+        if (a == null) throw new BasicException("Array " + arrayNames[slot] + " nicht dimensioniert (DIM fehlt).");
+        return a;
+    }
+    public Value getArray(String name, int[] idxs) { return getArray(arraySlot(name), idxs); }
+    public void setArray(String name, int[] idxs, Value v) { setArray(arraySlot(name), idxs, v); }
+    public Value getArray(int slot, int[] idxs) {
+        ArrayVar a = array(slot);
+        long flat = a.indexFrom(idxs);
+        return a.stringType ? Value.string(a.str(flat)) : Value.number(a.num(flat));
+    }
+    public void setArray(int slot, int[] idxs, Value v) {
+        ArrayVar a = array(slot);
+        long flat = a.indexFrom(idxs);
+        if (a.stringType) a.setStr(flat, v.asText());
+        else a.setNum(flat, v.asNumber());
+    }
+
+    // typisierte Zugriffe ohne Value-Objekte (Element-Typ folgt dem Array, wie bei setArray)
+    public double getArrayNum(int slot, int[] idxs) {
+        ArrayVar a = array(slot);
+        return a.num(a.indexFrom(idxs));
+    }
+    public CharSequence getArrayStr(int slot, int[] idxs) {
+        ArrayVar a = array(slot);
+        return a.str(a.indexFrom(idxs));
+    }
+    public void setArrayNum(int slot, int[] idxs, double d) {
+        ArrayVar a = array(slot);
+        a.setNum(a.indexFrom(idxs), d);
+    }
+    public void setArrayStr(int slot, int[] idxs, CharSequence s) {
+        ArrayVar a = array(slot);
+        a.setStr(a.indexFrom(idxs), s);
     }
 
     public Random rng() { return rng; }
     public void randomize(Long seed) { if (seed == null) rng.setSeed(System.nanoTime()); else rng.setSeed(seed); }
 
     /* ===== Hilfstypen ===== */
-    public static final class BasicException extends RuntimeException { public BasicException(String msg) { super(msg); } }
+    public static final class BasicException extends RuntimeException {
+        private final String trace;
+        public BasicException(String msg) { this(msg, null); }
+        public BasicException(String msg, String trace) { super(msg); this.trace = trace; }
+        /** Die zuletzt ausgeführten Zeilen bis zum Fehler (TRACE), sonst null. */
+        public String trace() { return trace; }
+    }
 
     public static final class Context {
         public final Interpreter rt;
         public final BufferedReader in;
-        public final PrintStream out;
-        public final Map<Integer, Integer> nextLine;
+        public final OutputSink out;
+        final int[] lines;             // Programmindex (pc) -> Zeilennummer
         public boolean stop = false;
-        public Integer jumpToLine = null;
-        public Integer currentLine = null;
-        public final Deque<Integer> gosubStack = new ArrayDeque<>();
-        public final Deque<ForFrame> forStack = new ArrayDeque<>();
+        public int jumpPc = -1;        // Sprungziel als Programmindex, -1 = kein Sprung
+        public int pc = 0;
+        public int currentLine = 0;
+        long statements;               // ausgeführte Anweisungen (':'-Teile einzeln), für BENCH
+        Profiler profiler;             // nur bei RUN PROFILE
 
-        Context(Interpreter rt, BufferedReader in, PrintStream out, Map<Integer, Integer> nextLine) {
-            this.rt = rt; this.in = in; this.out = out; this.nextLine = nextLine;
+        // Ablauf-Ringpuffer (TRACE), je ausgeführter Zeile: pc << 32 | GOSUB-Tiefe << 16 | FOR-Tiefe.
+        // Bei TRACE 0 ein einzelner Platz, der nur überschrieben wird (kein Sonderfall in trace)
+        private final long[] trace;
+        private long traced;
+
+        // GOSUB-/FOR-Stapel: Arrays mit Stapelzeiger statt Deque<Integer>; nie größer als maxDepth,
+        // damit "voll" immer erst beim Wachsen geprüft werden muss
+        private final int maxDepth;
+        private int[] gosubStack;
+        private int gosubSp = 0;
+        private ForFrame[] forStack;
+        private int forSp = 0;
+
+        Context(Interpreter rt, BufferedReader in, OutputSink out, int[] lines) {
+            this.rt = rt; this.in = in; this.out = out; this.lines = lines;
+            rt.output = out;                   // für flushOutput (CLS/BEEP/PAUSE), auch im übersetzten Jar
+            rt.context = this;
+            this.maxDepth = rt.maxStackDepth;
+            this.gosubStack = new int[Math.min(16, maxDepth)];
+            this.forStack = new ForFrame[Math.min(16, maxDepth)];
+            this.trace = new long[Math.max(1, rt.traceSize)];
+        }
+
+        /** Zeile pc wird ausgeführt (Baum-Interpreter, VM und übersetzter Code); ohne Allokation. */
+        public void trace(int pc) {
+            long[] t = trace;
+            t[(int) traced++ & (t.length - 1)] = (long) pc << 32 | Math.min(gosubSp, 0xFFFF) << 16 | Math.min(forSp, 0xFFFF);
+        }
+
+        /** Die gepufferten Zeilen, älteste zuerst (im übersetzten Jar ohne Quelltext); null bei TRACE 0. */
+        String traceDump() {
+            if (rt.traceSize == 0 || traced == 0) return null;
+            int k = (int) Math.min(traced, trace.length);
+            StringBuilder sb = new StringBuilder();
+            sb.append("Ablauf (letzte ").append(k).append(" von ").append(traced).append(" Zeilen, älteste zuerst):");
+            for (long i = traced - k; i < traced; i++) {
+                long e = trace[(int) i & (trace.length - 1)];
+                int line = lines[(int) (e >>> 32)];
+                sb.append(String.format(Locale.ROOT, "%n  %6d  GOSUB %-3d FOR %-3d %s",
+                        line, (int) (e >>> 16) & 0xFFFF, (int) e & 0xFFFF, Objects.toString(rt.sourceLine(line), "")).stripTrailing());
+            }
+            return sb.toString();
+        }
+        public void clearControl() { stop = false; jumpPc = -1; }
+
+        /** Programmindex der Folgezeile, -1 am Programmende. */
+        public int nextPc() { return (pc + 1 < lines.length) ? pc + 1 : -1; }
+
+        public void pushGosub(int returnPc) {
+            if (gosubSp == gosubStack.length) {
+                if (gosubSp >= maxDepth) throw new BasicException("GOSUB-Stapel voll (max " + maxDepth + ")");
+                gosubStack = Arrays.copyOf(gosubStack, Math.min(gosubSp * 2, maxDepth));
+            }
+            gosubStack[gosubSp++] = returnPc;
+            if (profiler != null) profiler.call(pc);
+        }
+        public boolean gosubEmpty() { return gosubSp == 0; }
+        public int popGosub() {
+            if (profiler != null) profiler.ret();
+            return gosubStack[--gosubSp];
         }
-        public void clearControl() { stop = false; jumpToLine = null; }
-        public Integer nextOf(int line) { return nextLine.get(line); }
+        public int gosubDepth() { return gosubSp; }
+
+        // Rahmen bleiben nach popFor im Stapel liegen und werden beim nächsten FOR neu befüllt:
+        // eine innere Schleife legt so nur beim allerersten Eintritt einen Rahmen an
+        public void pushFor(int slot, String var, double end, double step, int pcAfterFor) {
+            if (forSp == forStack.length) {
+                if (forSp >= maxDepth) throw new BasicException("FOR-Stapel voll (max " + maxDepth + ")");
+                forStack = Arrays.copyOf(forStack, Math.min(forSp * 2, maxDepth));
+            }
+            ForFrame f = forStack[forSp];
+            if (f == null) forStack[forSp] = f = new ForFrame();
+            f.slot = slot; f.var = var; f.end = end; f.step = step; f.pcAfterFor = pcAfterFor; f.loop = null;
+            forSp++;
+        }
+        public boolean forEmpty() { return forSp == 0; }
+        public ForFrame peekFor() { return forStack[forSp - 1]; }
+        public void popFor() { forSp--; }
+        public int forDepth() { return forSp; }
     }
 
+    // Laufvariable ist die Zelle nums[slot]: der Rumpf sieht und ändert sie direkt, NEXT vergleicht nur den Slot
     public static final class ForFrame {
-        final String var; final double end; final double step; final int lineAfterFor;
-        ForFrame(String var, double end, double step, int lineAfterFor) {
-            this.var = var; this.end = end; this.step = step; this.lineAfterFor = lineAfterFor;
-        }
+        int slot; String var; double end; double step; int pcAfterFor;   // var nur für Fehlermeldungen
+        Nodes.For loop;                                                  // mit vorgezogener Indexprüfung, sonst null
     }
 
     public interface Statement { void execute(Context ctx); }
     public interface Expr { Value eval(Interpreter rt); }
 
+    // Statisch typisierte Ausdrücke: '$'-Namen/Literale sind Strings, alles andere numerisch.
+    // Der numerische Pfad rechnet mit primitiven doubles und erzeugt keine Value-Objekte.
+    public interface NumExpr extends Expr {
+        double evalNumber(Interpreter rt);
+        default Value eval(Interpreter rt) { return Value.number(evalNumber(rt)); }
+    }
+    public interface StrExpr extends Expr {
+        CharSequence evalString(Interpreter rt);        // String oder Text, nie null
+        default Value eval(Interpreter rt) { return Value.string(evalString(rt)); }
+    }
+
     /* ============================ VALUE & ARRAYS ============================ */
     public static final class Value {
-        private final Double num; private final String str;
-        private Value(Double num, String str) { this.num = num; this.str = str; }
+        public static final Value ZERO = number(0);
+        private final double num; private final CharSequence str;
+        private Value(double num, CharSequence str) { this.num = num; this.str = str; }
         public static Value number(double d) { return new Value(d, null); }
-        public static Value string(String s) { return new Value(null, s); }
+        public static Value string(CharSequence s) { return new Value(0.0, (s != null) ? s : ""); }
         public boolean isString() { return str != null; }
-        public double asNumber() { if (num != null) return num; try { return Double.parseDouble(str); } catch (Exception e) { return 0.0; } }
-        public String asString() { return (str != null) ? str : (num == null ? "0" : trimDouble(num)); }
-        private static String trimDouble(Double d) { String s = Double.toString(d); return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s; }
+        public double asNumber() { return (str == null) ? num : parseNumber(str); }
+        public String asString() { return (str != null) ? str.toString() : format(num); }
+        /** Wie asString, aber ein Text bleibt ungeglättet (für +, LEN, LEFT$/MID$/RIGHT$, PRINT). */
+        public CharSequence asText() { return (str != null) ? str : asString(); }
+        public static double parseNumber(CharSequence s) { return Numbers.parse(s); }
+        public static String format(double d) { return Numbers.format(d); }
     }
 
     public static final class ArrayVar {
+        /** Arrays ab so vielen Elementen beginnen dünn besetzt (Sparse). */
+        static final long SPARSE = 1L << 20;
+        /** Dichte Zahlen-Arrays ab so vielen Elementen liegen außerhalb des Heaps (OffHeap). */
+        static final long OFF_HEAP = 1L << 24;
+
         final boolean stringType;
         final int[] dims;
-        final int[] stride;
-        final int total;
-        final double[] nums;
-        final String[] strs;
+        final long[] stride;
+        final long total;
+        // genau eines ist gesetzt; ein dünnes Array wird beim Schreiben einmal auf dicht umgestellt
+        double[] nums;
+        CharSequence[] strs;
+        OffHeap mem;                                   // große Zahlen-Arrays und AS FILE
+        Sparse sparse;                                 // große Arrays, solange wenig belegt
 
-        ArrayVar(boolean stringType, int[] dims) {
+        ArrayVar(boolean stringType, int[] dims) { this(stringType, dims, null); }
+
+        ArrayVar(boolean stringType, int[] dims, Path file) {
             this.stringType = stringType;
             this.dims = dims.clone();
-            this.stride = new int[dims.length];
-            int tot = 1;
-            for (int d : dims) { if (d <= 0) throw new BasicException("DIM: Dimension > 0 nötig"); tot *= d; }
+            this.stride = new long[dims.length];
+            // Produkt mit Überlaufprüfung; Zahlen brauchen je 8 Bytes, die Dateigröße muss ein long bleiben
+            long max = Long.MAX_VALUE / Double.BYTES;
+            long tot = 1;
+            for (int d : dims) {
+                if (d <= 0) throw new BasicException("DIM: Dimension > 0 nötig");
+                if (tot > max / d) throw new BasicException("DIM: Array zu groß (höchstens " + max + " Elemente)");
+                tot *= d;
+            }
             this.total = tot;
-            int s = 1;
+            long s = 1;
             for (int i = dims.length - 1; i >= 0; i--) { stride[i] = s; s *= dims[i]; }
-            if (stringType) { this.strs = new String[total]; this.nums = null; }
-            else { this.nums = new double[total]; this.strs = null; }
+            if (stringType && file != null) throw new BasicException("DIM AS FILE: nur für Zahlen-Arrays");
+            if (file != null) mem = OffHeap.map(file, total);
+            else if (total >= SPARSE) sparse = new Sparse(stringType, total);
+            else if (stringType) strs = new CharSequence[(int) total];
+            else nums = new double[(int) total];
+        }
+
+        private void toDense() {
+            if (stringType) { strs = new CharSequence[(int) total]; sparse.copyTo(strs); }
+            else if (total < OFF_HEAP) { nums = new double[(int) total]; sparse.copyTo(nums); }
+            else { mem = OffHeap.allocate(total); sparse.copyTo(mem); }
+            sparse = null;
         }
 
-        int indexFrom(int[] idxs) {
+        long indexFrom(int[] idxs) {
             if (idxs.length != dims.length) throw new BasicException("Falsche Anzahl Indizes");
-            int flat = 0;
+            long flat = 0;
             for (int i = 0; i < idxs.length; i++) {
                 int v = idxs[i]; // 1-basiert
                 if (v < 1 || v > dims[i]) throw new BasicException("Index ausserhalb (1.." + dims[i] + ")");
@@ -193,5 +771,42 @@ public class Interpreter {
             }
             return flat;
         }
+
+        // 1D/2D ohne Index-Array (Nodes.NumArray1 usw.), gleiche Fehlermeldungen wie indexFrom
+        long index1(int i) {
+            if (dims.length != 1) throw new BasicException("Falsche Anzahl Indizes");
+            if (i < 1 || i > dims[0]) throw new BasicException("Index ausserhalb (1.." + dims[0] + ")");
+            return i - 1;
+        }
+        long index2(int i, int j) {
+            if (dims.length != 2) throw new BasicException("Falsche Anzahl Indizes");
+            if (i < 1 || i > dims[0]) throw new BasicException("Index ausserhalb (1.." + dims[0] + ")");
+            if (j < 1 || j > dims[1]) throw new BasicException("Index ausserhalb (1.." + dims[1] + ")");
+            return (i - 1L) * dims[1] + (j - 1);
+        }
+
+        // Elementzugriff; der Element-Typ folgt dem Array
+        double num(long flat) {
+            if (stringType) return Value.parseNumber(str(flat));
+            if (nums != null) return nums[(int) flat];
+            return (mem != null) ? mem.get(flat) : sparse.num(flat);
+        }
+        CharSequence str(long flat) {
+            if (!stringType) return Value.format(num(flat));
+            if (strs == null) return sparse.str(flat);
+            CharSequence s = strs[(int) flat];
+            return (s != null) ? s : "";
+        }
+        void setNum(long flat, double d) {
+            if (stringType) setStr(flat, Value.format(d));
+            else if (nums != null) nums[(int) flat] = d;
+            else if (mem != null) mem.set(flat, d);
+            else { sparse.setNum(flat, d); if (sparse.full()) toDense(); }
+        }
+        void setStr(long flat, CharSequence s) {
+            if (!stringType) setNum(flat, Value.parseNumber(s));
+            else if (strs != null) strs[(int) flat] = s;
+            else { sparse.setStr(flat, s); if (sparse.full()) toDense(); }
+        }
     }
 }
@@ -0,0 +1,338 @@
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Übersetzt kompilierte Programmzeilen (AST aus Nodes) in Java-Quelltext.
+ * Genutzt von der JIT-Stufe (Jit, einzelne heiße Bereiche) und von COMPILE (AotCompiler, ganzes Programm).
+ *
+ * Jede Zeile wird eine eigene kleine Methode; ein Block-Dispatcher führt die Zeilen
+ * per Fall-through nacheinander aus und geht nur bei Sprüngen (GOTO, NEXT, RETURN, ...)
+ * über den switch. Ziele außerhalb des Bereichs werden an den Aufrufer zurückgegeben.
+ */
+final class JavaGen {
+    // Zeilen je Dispatcher-Methode: HotSpot übersetzt sehr große Methoden nicht
+    static final int BLOCK = 64;
+
+    private final boolean allowFallback;
+    private final List<Object> constants = new ArrayList<>();
+    private final StringBuilder lineMethods = new StringBuilder();
+    private final Set<String> functions = new TreeSet<>();
+    private final Map<BuiltinFunction, Integer> functionRefs = new IdentityHashMap<>();
+    private int temp = 0;
+
+    /** @param allowFallback unbekannte Knoten über das Konstanten-Array k[] an den Baum-Interpreter delegieren */
+    JavaGen(boolean allowFallback) { this.allowFallback = allowFallback; }
+
+    /**
+     * Objekte, die der generierten Klasse im Konstruktor als k[] übergeben werden müssen.
+     * Ohne Fallback sind das nur die gebundenen Builtin-Funktionen (COMPILE holt sie per Name).
+     */
+    Object[] constants() { return constants.toArray(); }
+
+    /** Namen aller aufgerufenen Builtin-Funktionen. */
+    Set<String> functions() { return functions; }
+
+    /** Klasse {@code className implements Jit.Region} für die Programmindizes lo..hi. */
+    String regionClass(String className, Interpreter.Statement[] program, int[] lines, int lo, int hi) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("final class ").append(className).append(" implements Jit.Region {\n");
+        sb.append("    private final Object[] k;\n");
+        sb.append("    ").append(className).append("(Object[] k) { this.k = k; }\n\n");
+        sb.append("    public int run(Interpreter.Context c, int pc) {\n");
+        sb.append("        while (pc >= ").append(lo).append(" && pc <= ").append(hi).append(" && !c.stop) {\n");
+        sb.append("            switch ((pc - ").append(lo).append(") / ").append(BLOCK).append(") {\n");
+        int blocks = (hi - lo) / BLOCK + 1;
+        for (int b = 0; b < blocks; b++)
+            sb.append("                case ").append(b).append(": pc = b").append(b).append("(c, pc); break;\n");
+        sb.append("                default: return pc;\n");
+        sb.append("            }\n        }\n        return pc;\n    }\n");
+        for (int b = 0; b < blocks; b++) {
+            int blo = lo + b * BLOCK, bhi = Math.min(hi, blo + BLOCK - 1);
+            block(sb, b, program, lines, blo, bhi);
+        }
+        sb.append(lineMethods);
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private void block(StringBuilder sb, int b, Interpreter.Statement[] program, int[] lines, int lo, int hi) {
+        sb.append("\n    private int b").append(b).append("(Interpreter.Context c, int pc) {\n");
+        sb.append("        final Interpreter rt = c.rt; final double[] N = rt.nums; final CharSequence[] S = rt.strs;\n");
+        sb.append("        for (;;) {\n            switch (pc) {\n");
+        for (int pc = lo; pc <= hi; pc++) {
+            Interpreter.Statement st = program[pc];
+            sb.append("                case ").append(pc).append(":\n");
+            sb.append("                    c.pc = ").append(pc).append("; c.currentLine = ").append(lines[pc]).append("; c.trace(").append(pc).append(");\n");
+            if (!(st instanceof Nodes.Nop)) {
+                sb.append("                    l").append(pc).append("(c, rt, N, S);\n");
+                lineMethods.append("\n    // ").append(lines[pc]).append('\n');
+                lineMethods.append("    private void l").append(pc).append("(Interpreter.Context c, Interpreter rt, double[] N, CharSequence[] S) {\n");
+                stmt(lineMethods, st, "        ");
+                lineMethods.append("    }\n");
+            }
+            if (canJump(st)) {
+                sb.append("                    if (c.stop) return pc;\n");
+                sb.append("                    if (c.jumpPc >= 0) { pc = c.jumpPc; c.jumpPc = -1; if (pc < ").append(lo)
+                  .append(" || pc > ").append(hi).append(") return pc; continue; }\n");
+            }
+        }
+        sb.append("                    return ").append(hi + 1).append(";\n");
+        sb.append("                default: return pc;\n");
+        sb.append("            }\n        }\n    }\n");
+    }
+
+    /** Kann das Statement springen oder das Programm beenden? (sonst entfällt die Prüfung danach) */
+    static boolean canJump(Interpreter.Statement st) {
+        if (st instanceof Nodes.Seq q) { for (Interpreter.Statement p : q.parts) if (canJump(p)) return true; return false; }
+        if (st instanceof Nodes.IfThen t) return canJump(t.inner);
+        return !(st instanceof Nodes.Nop || st instanceof Nodes.Print || st instanceof Nodes.NumAssign
+                || st instanceof Nodes.StrAssign || st instanceof Nodes.ArrayAssign || st instanceof Nodes.ArrayStore1
+                || st instanceof Nodes.ArrayStore2 || st instanceof Nodes.Input
+                || st instanceof Nodes.For || st instanceof Nodes.Dim || st instanceof Nodes.Randomize
+                || st instanceof Nodes.CallStmt);
+    }
+
+    /* ============================ STATEMENTS ============================ */
+    private void stmt(StringBuilder sb, Interpreter.Statement st, String ind) {
+        if (st instanceof Nodes.Nop) return;
+        if (st instanceof Nodes.Seq q) {
+            String label = "seq" + (temp++);
+            sb.append(ind).append(label).append(": {\n");
+            for (int i = 0; i < q.parts.length; i++) {
+                if (i > 0) sb.append(ind).append("    if (c.stop || c.jumpPc >= 0) break ").append(label).append(";\n");
+                stmt(sb, q.parts[i], ind + "    ");
+            }
+            sb.append(ind).append("}\n");
+        } else if (st instanceof Nodes.Print p) {
+            for (int i = 0; i < p.parts.length; i++) {
+                Interpreter.Expr part = p.parts[i];
+                sb.append(ind).append("c.out.print(")
+                  .append(part instanceof Interpreter.NumExpr n ? num(n) : str(part)).append(");\n");
+                if (i < p.seps.length && p.seps[i] == ',') sb.append(ind).append("c.out.print(\" \");\n");
+            }
+            sb.append(ind).append("c.out.println();\n");
+        } else if (st instanceof Nodes.NumAssign a) {
+            sb.append(ind).append("N[").append(a.slot).append("] = ").append(num(a.value)).append(";\n");
+        } else if (st instanceof Nodes.StrAssign a) {
+            sb.append(ind).append("S[").append(a.slot).append("] = ").append(str(a.value)).append(";\n");
+        } else if (st instanceof Nodes.ArrayAssign a) {
+            String t = "t" + (temp++);
+            if (a.value instanceof Interpreter.NumExpr n) {
+                sb.append(ind).append("{ double ").append(t).append(" = ").append(num(n)).append("; rt.setArrayNum(")
+                  .append(a.slot).append(", ").append(indices(a.idx)).append(", ").append(t).append("); }\n");
+            } else {
+                sb.append(ind).append("{ CharSequence ").append(t).append(" = ").append(str(a.value)).append("; rt.setArrayStr(")
+                  .append(a.slot).append(", ").append(indices(a.idx)).append(", ").append(t).append("); }\n");
+            }
+        } else if (st instanceof Nodes.ArrayStore1 || st instanceof Nodes.ArrayStore2) {
+            Nodes.ArrayAccess a = (Nodes.ArrayAccess) st;
+            Interpreter.Expr value = (st instanceof Nodes.ArrayStore1 s) ? s.value : ((Nodes.ArrayStore2) st).value;
+            String t = "t" + (temp++);
+            sb.append(ind).append("{ ").append(a.strings() ? "CharSequence " : "double ").append(t).append(" = ")
+              .append(a.strings() ? str(value) : num((Interpreter.NumExpr) value)).append("; Nodes.store")
+              .append(a.indices().length).append("(rt, ").append(a.slot()).append(", ").append(args(a.indices()))
+              .append(", ").append(t).append("); }\n");
+        } else if (st instanceof Nodes.Input in) {
+            sb.append(ind).append("Nodes.input(c, ").append(in.slot).append(", ").append(literal(in.name)).append(");\n");
+        } else if (st instanceof Nodes.IfJump j) {
+            sb.append(ind).append("if (").append(num(j.cond)).append(" != 0.0) c.jumpPc = ").append(j.target).append(";\n");
+        } else if (st instanceof Nodes.IfThen t) {
+            sb.append(ind).append("if (").append(num(t.cond)).append(" != 0.0) {\n");
+            stmt(sb, t.inner, ind + "    ");
+            sb.append(ind).append("}\n");
+        } else if (st instanceof Nodes.Goto g) {
+            sb.append(ind).append("c.jumpPc = ").append(g.target).append(";\n");
+        } else if (st instanceof Nodes.Gosub g) {
+            sb.append(ind).append("Nodes.gosub(c, ").append(g.target).append(");\n");
+        } else if (st instanceof Nodes.Return) {
+            sb.append(ind).append("Nodes.ret(c);\n");
+        } else if (st instanceof Nodes.For f && !allowFallback) {
+            // im JIT über den Knoten: der setzt die vorgezogenen Indexprüfungen (For.guards) der Zugriffe
+            sb.append(ind).append("Nodes.enterFor(c, ").append(f.slot).append(", ").append(literal(f.name)).append(", ")
+              .append(num(f.start)).append(", ").append(num(f.end)).append(", ")
+              .append(f.step == null ? "1.0" : num(f.step)).append(");\n");
+        } else if (st instanceof Nodes.Next x) {
+            sb.append(ind).append("Nodes.next(c, ").append(x.slot).append(");\n");
+        } else if (st instanceof Nodes.Dim d) {
+            for (Nodes.DimDef def : d.defs) {
+                StringBuilder dims = new StringBuilder("new int[]{");
+                for (int i = 0; i < def.dims.length; i++) {
+                    if (i > 0) dims.append(", ");
+                    dims.append("Nodes.dimSize(").append(num(def.dims[i])).append(")");
+                }
+                dims.append("}");
+                sb.append(ind).append("rt.dimArray(").append(def.slot).append(", ").append(def.stringType).append(", ").append(dims)
+                  .append(", ").append(def.file == null ? "null" : str(def.file)).append(");\n");
+            }
+        } else if (st instanceof Nodes.Randomize r) {
+            if (r.seed == null) sb.append(ind).append("rt.randomize(null);\n");
+            else sb.append(ind).append("rt.randomize((long) ").append(num(r.seed)).append(");\n");
+        } else if (st instanceof Nodes.End) {
+            sb.append(ind).append("c.stop = true;\n");
+        } else if (st instanceof Nodes.CallStmt cs) {
+            sb.append(ind).append(call(cs.fn, cs.args)).append(";\n");
+        } else {
+            sb.append(ind).append("((Interpreter.Statement) ").append(fallback(st)).append(").execute(c);\n");
+        }
+    }
+
+    /* ============================ AUSDRÜCKE ============================ */
+    String num(Interpreter.NumExpr e) {
+        if (e instanceof Nodes.NumLit l) return literal(l.value);
+        if (e instanceof Nodes.NumVar v) return "N[" + v.slot + "]";
+        if (e instanceof Nodes.NumArrayRef a) return "rt.getArrayNum(" + a.slot + ", " + indices(a.idx) + ")";
+        if (e instanceof Nodes.ArrayAccess a) return "Nodes.num" + a.indices().length + "(rt, " + a.slot() + ", " + args(a.indices()) + ")";
+        if (e instanceof Nodes.Neg n) return "(-" + num(n.e) + ")";
+        if (e instanceof Nodes.NumBinary b) {
+            if (b.op == '/') return "Nodes.div(" + num(b.a) + ", " + num(b.b) + ")";
+            return "(" + num(b.a) + " " + b.op + " " + num(b.b) + ")";
+        }
+        if (e instanceof Nodes.NumCompare cmp)
+            return "(Nodes.test(" + cmp.code + ", Double.compare(" + num(cmp.a) + ", " + num(cmp.b) + ")) ? 1.0 : 0.0)";
+        if (e instanceof Nodes.StrCompare cmp)
+            return "(Nodes.test(" + cmp.code + ", Text.compare(" + str(cmp.a) + ", " + str(cmp.b) + ")) ? 1.0 : 0.0)";
+        if (e instanceof Nodes.StrTruth t) return "(" + str(t.e) + ".isEmpty() ? 0.0 : 1.0)";
+        if (e instanceof Nodes.StrToNum t) return "Numbers.parse(" + str(t.e) + ")";
+        if (e instanceof Nodes.TypeError t) {
+            StringBuilder sb = new StringBuilder("Nodes.typeError(").append(literal(t.message)).append(", new Object[]{");
+            for (int i = 0; i < t.operands.length; i++) { if (i > 0) sb.append(", "); sb.append(value(t.operands[i])); }
+            return sb.append("})").toString();
+        }
+        if (e instanceof Nodes.NumCall f) return call(f.fn, f.args) + ".asNumber()";
+        return "((Interpreter.NumExpr) " + fallback(e) + ").evalNumber(rt)";
+    }
+
+    /** Ausdruck als CharSequence (String oder Text); Zahlen werden wie bei PRINT formatiert. */
+    String str(Interpreter.Expr e) {
+        if (e instanceof Interpreter.NumExpr n) return "Numbers.format(" + num(n) + ")";
+        if (e instanceof Nodes.StrLit l) return literal(l.value);
+        if (e instanceof Nodes.StrVar v) return "rt.getStr(" + v.slot + ")";
+        if (e instanceof Nodes.StrArrayRef a) return "rt.getArrayStr(" + a.slot + ", " + indices(a.idx) + ")";
+        if (e instanceof Nodes.ArrayAccess a) return "Nodes.str" + a.indices().length + "(rt, " + a.slot() + ", " + args(a.indices()) + ")";
+        if (e instanceof Nodes.NumToStr t) return "Numbers.format(" + num(t.e) + ")";
+        if (e instanceof Nodes.Concat c) return "Text.concat(" + str(c.a) + ", " + str(c.b) + ")";
+        if (e instanceof Nodes.StrCall f) return call(f.fn, f.args) + ".asText()";
+        return "((Interpreter.StrExpr) " + fallback(e) + ").evalString(rt)";
+    }
+
+    private String value(Interpreter.Expr e) {
+        if (e instanceof Interpreter.NumExpr n) return "Interpreter.Value.number(" + num(n) + ")";
+        return "Interpreter.Value.string(" + str(e) + ")";
+    }
+
+    // gebundene Funktion aus k[]; bis 3 Argumente über Nodes.call0..call3 ohne Liste (mit JFR-Ereignis)
+    private String call(BuiltinFunction fn, Interpreter.Expr[] args) {
+        functions.add(fn.name().toUpperCase(Locale.ROOT));
+        Integer ref = functionRefs.get(fn);
+        if (ref == null) { ref = constants.size(); constants.add(fn); functionRefs.put(fn, ref); }
+        String f = "((BuiltinFunction) k[" + ref + "])";
+        StringBuilder sb = (args.length <= 3)
+                ? new StringBuilder("Nodes.call").append(args.length).append("(rt, ").append(f)
+                : new StringBuilder("Nodes.callValues(rt, ").append(f);
+        for (Interpreter.Expr a : args) sb.append(", ").append(value(a));
+        return sb.append(")").toString();
+    }
+
+    private String indices(Interpreter.NumExpr[] idx) {
+        return "new int[]{" + args(idx) + "}";
+    }
+
+    // Indizes als einzelne int-Argumente (Nodes.num1, Nodes.store2, ...)
+    private String args(Interpreter.NumExpr[] idx) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < idx.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append("(int) Math.floor(").append(num(idx[i])).append(")");
+        }
+        return sb.toString();
+    }
+
+    private String fallback(Object node) {
+        if (!allowFallback) throw new Interpreter.BasicException("Nicht übersetzbar: " + node.getClass().getSimpleName());
+        constants.add(node);
+        return "k[" + (constants.size() - 1) + "]";
+    }
+
+    static String literal(double d) {
+        if (Double.isNaN(d)) return "Double.NaN";
+        if (Double.isInfinite(d)) return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        String s = Double.toString(d);
+        return (s.startsWith("-")) ? "(" + s + ")" : s;
+    }
+
+    static String literal(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20 || ch == 0x7f) sb.append(String.format("\\%03o", (int) ch));
+                    else if (ch > 0x7f) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /* ============================ IN-MEMORY JAVAC ============================ */
+    static boolean compilerAvailable() { return ToolProvider.getSystemJavaCompiler() != null; }
+
+    /** Übersetzt Quelltexte (Klassenname -> Quelle) im Speicher; Ergebnis: Klassenname -> Bytecode. */
+    static Map<String, byte[]> compile(Map<String, String> sources) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) throw new IllegalStateException("Kein Java-Compiler verfügbar (JDK statt JRE nötig)");
+        DiagnosticCollector<JavaFileObject> diags = new DiagnosticCollector<>();
+        StandardJavaFileManager std = javac.getStandardFileManager(diags, Locale.ROOT, StandardCharsets.UTF_8);
+        Map<String, ByteArrayOutputStream> out = new LinkedHashMap<>();
+        JavaFileManager fm = new ForwardingJavaFileManager<>(std) {
+            @Override public JavaFileObject getJavaFileForOutput(Location loc, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override public OutputStream openOutputStream() {
+                        ByteArrayOutputStream b = new ByteArrayOutputStream();
+                        out.put(name, b);
+                        return b;
+                    }
+                };
+            }
+        };
+        List<JavaFileObject> units = new ArrayList<>();
+        for (var e : sources.entrySet()) {
+            String code = e.getValue();
+            units.add(new SimpleJavaFileObject(URI.create("string:///" + e.getKey() + ".java"), JavaFileObject.Kind.SOURCE) {
+                @Override public CharSequence getCharContent(boolean ignoreEncodingErrors) { return code; }
+            });
+        }
+        List<String> opts = List.of("-classpath", classPath(), "-proc:none", "-g:none", "-nowarn", "-Xlint:none");
+        boolean ok = javac.getTask(null, fm, diags, opts, null, units).call();
+        if (!ok) {
+            String msg = diags.getDiagnostics().stream()
+                    .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                    .map(d -> d.getMessage(Locale.ROOT)).findFirst().orElse("unbekannter Fehler");
+            throw new IllegalStateException("javac: " + msg);
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (var e : out.entrySet()) classes.put(e.getKey(), e.getValue().toByteArray());
+        return classes;
+    }
+
+    // Klassenpfad der laufenden Anwendung plus Fundort der Interpreter-Klassen
+    private static String classPath() {
+        String cp = System.getProperty("java.class.path", "");
+        try {
+            String own = new File(Interpreter.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+            cp = cp.isEmpty() ? own : own + File.pathSeparator + cp;
+        } catch (Exception ignored) { /* kein CodeSource: nur java.class.path */ }
+        return cp;
+    }
+}
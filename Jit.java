@@ -0,0 +1,105 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Zweite Ausführungsstufe für RUN: zählt die Ausführungen je Zeile und übersetzt
+ * heiße Bereiche im Hintergrund (JavaGen + javac) in eine Hidden Class.
+ * Der Interpreter läuft währenddessen weiter und wechselt an der nächsten Zeilengrenze
+ * in den übersetzten Code; Sprünge aus dem Bereich heraus kehren in den Interpreter zurück.
+ * Übersetzte Bereiche bleiben gültig, solange das Programm nicht geändert wird;
+ * der Interpreter verwirft den Zustand bei jeder Änderung.
+ */
+final class Jit {
+    /** Übersetzter Programmbereich; liefert den Index, an dem der Interpreter weitermacht. */
+    interface Region {
+        int run(Interpreter.Context c, int pc);
+    }
+
+    static final int DEFAULT_THRESHOLD = 2000;
+    static final int WINDOW = 32; // Zeilen vor und nach der heißen Zeile
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "MiniBasic-JIT");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static boolean available() { return JavaGen.compilerAvailable(); }
+
+    private Interpreter.Statement[] program; // Programm des laufenden RUN
+    private final int[] lines;
+    private final int threshold;
+    private final int[] counts;
+    private final boolean[] covered;   // bereits angefordert (nur vom Interpreter-Thread gelesen/geschrieben)
+    final Region[] regions;            // vom Hintergrund-Thread befüllt
+
+    private final AtomicInteger requested = new AtomicInteger();
+    private final AtomicInteger installed = new AtomicInteger();
+    private final AtomicInteger installedLines = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile String lastError;
+
+    Jit(int[] lines, int threshold) {
+        this.lines = lines;
+        this.threshold = Math.max(1, threshold);
+        this.counts = new int[lines.length];
+        this.covered = new boolean[lines.length];
+        this.regions = new Region[lines.length];
+    }
+
+    /** Beginn eines RUN; liefert die Tabelle der (bisher) übersetzten Bereiche je Programmindex. */
+    Region[] start(Interpreter.Statement[] program) {
+        this.program = program;
+        return regions;
+    }
+
+    /** Vom Interpreter vor jeder interpretierten Zeile aufgerufen. */
+    void count(int pc) {
+        if (++counts[pc] == threshold && !covered[pc]) request(pc);
+    }
+
+    // Bereich um die heiße Zeile: höchstens WINDOW Zeilen in jede Richtung, nur bereits
+    // kompilierte und noch nicht abgedeckte Zeilen (Schleifenrümpfe liegen meist darin).
+    private void request(int pc) {
+        int lo = pc, hi = pc;
+        while (lo > 0 && pc - lo < WINDOW && eligible(lo - 1)) lo--;
+        while (hi < program.length - 1 && hi - pc < WINDOW && eligible(hi + 1)) hi++;
+        for (int p = lo; p <= hi; p++) covered[p] = true;
+        requested.incrementAndGet();
+        final Interpreter.Statement[] prog = program;
+        final int from = lo, to = hi;
+        WORKER.execute(() -> compile(prog, from, to));
+    }
+
+    private boolean eligible(int p) { return program[p] != null && !covered[p]; }
+
+    private void compile(Interpreter.Statement[] program, int lo, int hi) {
+        try {
+            JavaGen gen = new JavaGen(true);
+            String name = "BasicRegion";
+            String src = gen.regionClass(name, program, lines, lo, hi);
+            byte[] bytes = JavaGen.compile(Map.of(name, src)).get(name);
+            MethodHandles.Lookup l = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle ctor = l.findConstructor(l.lookupClass(), MethodType.methodType(void.class, Object[].class));
+            Region r = (Region) ctor.invoke(gen.constants());
+            for (int p = lo; p <= hi; p++) regions[p] = r;
+            installed.incrementAndGet();
+            installedLines.addAndGet(hi - lo + 1);
+        } catch (Throwable t) {
+            failed.incrementAndGet();
+            lastError = "Zeilen " + lines[lo] + "-" + lines[hi] + ": " + t.getMessage();
+        }
+    }
+
+    String summary() {
+        String s = String.format("JIT: %d Bereiche angefordert, %d übersetzt (%d Zeilen), %d fehlgeschlagen",
+                requested.get(), installed.get(), installedLines.get(), failed.get());
+        String err = lastError;
+        return (err == null) ? s : s + " (zuletzt: " + err + ")";
+    }
+}
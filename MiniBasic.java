@@ -8,9 +8,104 @@ public class MiniBasic {
     public static void main(String[] args) throws Exception {
         // Interpreter mit Default-Funktions-Registry
         Interpreter interpreter = new Interpreter(FunctionRegistry.createDefault());
+        List<String> rest = new ArrayList<>();
+        boolean flushGiven = false;
+        for (String a : args) {
+            if (a.startsWith("--engine=")) interpreter.setEngine(engine(a.substring("--engine=".length())));
+            else if (a.startsWith("--flush=")) { interpreter.setOutputFlush(flush(a.substring("--flush=".length()))); flushGiven = true; }
+            else if (a.startsWith("--trace=")) interpreter.setTraceSize(Integer.parseInt(a.substring("--trace=".length())));
+            else rest.add(a);
+        }
+        args = rest.toArray(new String[0]);
+        if (args.length > 0 && !flushGiven) interpreter.setOutputFlush(OutputSink.Flush.SIZE);
+        if (args.length > 0) System.exit(batch(interpreter, args));
         new REPL(interpreter).start();
     }
 
+    /* ============================ KOMMANDOZEILE ============================ */
+
+    //   --engine=tree|vm                        Ausführungsart (vor den übrigen Optionen)
+    //   --flush=line|size|input                 Ausgabe je Zeile, bei vollem Puffer oder erst bei INPUT schreiben
+    //                                           (Standard: REPL line, Stapelbetrieb size)
+    //   --trace=<n>                             Laufzeitfehler mit den letzten n Zeilen melden (0 = aus, Standard 16)
+    //   --run <prog.bas>                        Programm ausführen (Fehler auf stderr, Exit-Code 1)
+    //   --compile <prog.bas> <out.jar>          Programm in ein ausführbares Jar übersetzen
+    //   --compare <prog.bas> [läufe] [eingabe]  Interpreter und übersetztes Jar vergleichen
+    //   --tokenize <prog.bas> [läufe]           Durchsatz von Tokenizer und Laden + Übersetzen messen
+    //   --scaling <prog.bas> [threads] [läufe]  Übersetzungszeit mit 1..threads Threads messen
+    //   --bench [name|datei] [läufe]            wie BENCH in der REPL (Suite oder ein Programm)
+    static int batch(Interpreter interp, String[] args) throws Exception {
+        String mode = args[0];
+        if (mode.equals("--run") && args.length == 2) {
+            interp.load(Paths.get(args[1]));
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            try { interp.run(in, OutputSink.stdout(interp.outputFlush())); }
+            catch (Interpreter.BasicException ex) { System.err.println(error(ex)); return 1; }
+            return 0;
+        }
+        if (mode.equals("--compile") && args.length == 3) {
+            interp.load(Paths.get(args[1]));
+            try { AotCompiler.compile(interp, Paths.get(args[2])); }
+            catch (Interpreter.BasicException ex) { System.err.println(ex.getMessage()); return 1; }
+            System.out.println("Übersetzt nach " + args[2]);
+            return 0;
+        }
+        if (mode.equals("--compare") && args.length >= 2 && args.length <= 4) {
+            int runs = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+            Path input = (args.length > 3) ? Paths.get(args[3]) : null;
+            try { return AotCompiler.compare(Paths.get(args[1]), input, runs, System.out) ? 0 : 1; }
+            catch (Interpreter.BasicException ex) { System.err.println(ex.getMessage()); return 1; }
+        }
+        if (mode.equals("--tokenize") && args.length >= 2 && args.length <= 3) {
+            try { Tokenizer.benchmark(Paths.get(args[1]), (args.length > 2) ? Integer.parseInt(args[2]) : 10, System.out); }
+            catch (Interpreter.BasicException ex) { System.err.println(ex.getMessage()); return 1; }
+            return 0;
+        }
+        if (mode.equals("--scaling") && args.length >= 2 && args.length <= 4) {
+            int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            Interpreter.compileScaling(Paths.get(args[1]), threads, (args.length > 3) ? Integer.parseInt(args[3]) : 5, System.out);
+            return 0;
+        }
+        if (mode.equals("--bench") && args.length <= 3) {
+            try { Bench.command(interp, String.join(" ", Arrays.copyOfRange(args, 1, args.length)), System.out); }
+            catch (Interpreter.BasicException ex) { System.err.println(ex.getMessage()); return 1; }
+            return 0;
+        }
+        System.err.println("Aufruf: java MiniBasic [--engine=tree|vm] [--run prog.bas | --compile prog.bas out.jar"
+                + " | --compare prog.bas [läufe] [eingabe] | --tokenize prog.bas [läufe] | --scaling prog.bas [threads] [läufe]"
+                + " | --bench [name|datei] [läufe]]");
+        return 2;
+    }
+
+    static OutputSink.Flush flush(String name) {
+        try { return OutputSink.Flush.valueOf(name.toUpperCase(Locale.ROOT)); }
+        catch (IllegalArgumentException ex) { throw new Interpreter.BasicException("Unbekannte Flush-Strategie: " + name + " (LINE, SIZE oder INPUT)"); }
+    }
+
+    // RUN PROFILE [µs] [zeilen] -> {Intervall in µs (Standard 1000), Zeilen im Bericht (Standard 10)}
+    static long[] profile(String arg) {
+        String[] a = arg.strip().split("\\s+");
+        if (!a[0].equalsIgnoreCase("PROFILE") || a.length > 3) throw new Interpreter.BasicException("RUN [PROFILE [µs] [zeilen]]");
+        try {
+            long micros = (a.length > 1) ? Long.parseLong(a[1]) : 1000;
+            long top = (a.length > 2) ? Long.parseLong(a[2]) : 10;
+            if (micros < 1 || top < 1) throw new NumberFormatException();
+            return new long[] { micros, top };
+        } catch (NumberFormatException ex) {
+            throw new Interpreter.BasicException("RUN PROFILE [µs] [zeilen] (ganze Zahlen > 0)");
+        }
+    }
+
+    // Fehlermeldung, bei Laufzeitfehlern mit den zuletzt ausgeführten Zeilen
+    static String error(Interpreter.BasicException ex) {
+        return (ex.trace() == null) ? ex.getMessage() : ex.getMessage() + System.lineSeparator() + ex.trace();
+    }
+
+    static Interpreter.Engine engine(String name) {
+        try { return Interpreter.Engine.valueOf(name.toUpperCase(Locale.ROOT)); }
+        catch (IllegalArgumentException ex) { throw new Interpreter.BasicException("Unbekannte Engine: " + name + " (TREE oder VM)"); }
+    }
+
     /* ============================ REPL / SHELL ============================ */
 
     static final class REPL {
@@ -33,10 +128,72 @@ public class MiniBasic {
                     String u = line.toUpperCase(Locale.ROOT);
                     switch (u.split("\\s+")[0]) {
                         case "RUN" -> {
-                            try { interp.run(in, out); }
-                            catch (Interpreter.BasicException ex) { out.println("! Fehler: " + ex.getMessage()); }
+                            String arg = safeArg(line);
+                            try {
+                                if (arg.isEmpty()) interp.run(in, OutputSink.stdout(interp.outputFlush()));
+                                else {
+                                    long[] p = profile(arg);
+                                    interp.runProfiled(in, OutputSink.stdout(interp.outputFlush()), p[0], (int) p[1], out);
+                                }
+                            } catch (Interpreter.BasicException ex) { out.println("! Fehler: " + error(ex)); }
                         }
                         case "LIST" -> interp.list(out);
+                        case "LAZY" -> {
+                            String arg = safeArg(line).toUpperCase(Locale.ROOT);
+                            if (arg.equals("ON") || arg.equals("OFF")) { interp.setLazyCompile(arg.equals("ON")); out.println("LAZY " + arg); }
+                            else out.println("! LAZY ON|OFF (aktuell " + (interp.lazyCompile() ? "ON" : "OFF") + ")");
+                        }
+                        case "JIT" -> {
+                            String arg = safeArg(line).toUpperCase(Locale.ROOT);
+                            try {
+                                if (arg.equals("ON") || arg.equals("OFF")) { interp.setJitEnabled(arg.equals("ON")); out.println("JIT " + arg); }
+                                else out.println("! JIT ON|OFF (aktuell " + (interp.jitEnabled() ? "ON" : "OFF") + ")");
+                            } catch (Interpreter.BasicException ex) { out.println("! " + ex.getMessage()); }
+                        }
+                        case "ENGINE" -> {
+                            String arg = safeArg(line);
+                            try {
+                                if (!arg.isEmpty()) interp.setEngine(engine(arg));
+                                out.println("ENGINE " + interp.engine());
+                            } catch (Interpreter.BasicException ex) { out.println("! " + ex.getMessage()); }
+                        }
+                        case "THREADS" -> {
+                            String arg = safeArg(line);
+                            try {
+                                if (!arg.isEmpty()) interp.setCompileThreads(Integer.parseInt(arg));
+                                out.println("THREADS " + interp.compileThreads());
+                            } catch (IllegalArgumentException ex) { out.println("! THREADS <n> (n >= 1)"); }
+                        }
+                        case "TRACE" -> {
+                            String arg = safeArg(line);
+                            try {
+                                if (!arg.isEmpty()) interp.setTraceSize(arg.equalsIgnoreCase("OFF") ? 0 : Integer.parseInt(arg));
+                                out.println("TRACE " + interp.traceSize());
+                            } catch (IllegalArgumentException ex) { out.println("! TRACE <n>|OFF (0.." + Interpreter.TRACE_MAX + ")"); }
+                        }
+                        case "FLUSH" -> {
+                            String arg = safeArg(line);
+                            try {
+                                if (!arg.isEmpty()) interp.setOutputFlush(flush(arg));
+                                out.println("FLUSH " + interp.outputFlush());
+                            } catch (Interpreter.BasicException ex) { out.println("! " + ex.getMessage()); }
+                        }
+                        case "OPTIMIZE" -> {
+                            String arg = safeArg(line).toUpperCase(Locale.ROOT);
+                            if (arg.equals("ON") || arg.equals("OFF")) { interp.setOptimize(arg.equals("ON")); out.println("OPTIMIZE " + arg); }
+                            else out.println("! OPTIMIZE ON|OFF (aktuell " + (interp.optimize() ? "ON" : "OFF") + ")");
+                        }
+                        case "DUMP" -> {
+                            try { interp.dump(out); }
+                            catch (Interpreter.BasicException ex) { out.println("! Fehler: " + ex.getMessage()); }
+                        }
+                        case "STATS" -> interp.stats(out);
+                        case "BENCH" -> {
+                            try { Bench.command(interp, safeArg(line), out); }
+                            catch (IOException ex) { out.println("! Konnte nicht laden: " + ex.getMessage()); }
+                            catch (Interpreter.BasicException ex) { out.println("! " + ex.getMessage()); }
+                        }
+                        case "COMPILE" -> compile(safeArg(line));
                         case "NEW"  -> { interp.newProgram(); out.println("OK (neu)"); }
                         case "SAVE" -> {
                             String fn = safeArg(line);
@@ -73,6 +230,19 @@ public class MiniBasic {
             }
         }
 
+        // COMPILE <out.jar> übersetzt das aktuelle Programm, COMPILE <prog.bas> <out.jar> eine Datei
+        private void compile(String arg) {
+            String[] a = arg.isEmpty() ? new String[0] : arg.split("\\s+");
+            if (a.length < 1 || a.length > 2) { out.println("! COMPILE [prog.bas] <out.jar>"); return; }
+            try {
+                Interpreter target = interp;
+                if (a.length == 2) { target = new Interpreter(interp.functions()); target.load(Paths.get(a[0])); }
+                AotCompiler.compile(target, Paths.get(a[a.length - 1]));
+                out.println("Übersetzt nach " + a[a.length - 1]);
+            } catch (IOException ex) { out.println("! Konnte nicht übersetzen: " + ex.getMessage()); }
+            catch (Interpreter.BasicException ex) { out.println("! Fehler: " + ex.getMessage()); }
+        }
+
         private String safeArg(String line) {
             int sp = line.indexOf(' ');
             return (sp < 0) ? "" : line.substring(sp + 1).trim();
@@ -88,6 +258,16 @@ private void printHelp() {
     out.println("""
             Befehle (ohne Zeilennummer):
               RUN, LIST, NEW, SAVE <file>, LOAD <file>, HELP, EXIT
+              RUN PROFILE [µs] [zeilen] (mit Stichproben-Profiler, danach die teuersten Zeilen und GOSUB-Pfade)
+              LAZY ON|OFF (Zeilen erst bei Ausführung kompilieren), STATS (Kennzahlen des letzten RUN)
+              JIT ON|OFF (heiße Programmteile nach Java übersetzen)
+              COMPILE [prog.bas] <out.jar> (Programm in ein ausführbares Jar übersetzen)
+              ENGINE TREE|VM (Baum-Interpreter oder Register-VM für RUN)
+              OPTIMIZE ON|OFF (Konstanten falten, unerreichbare Zeilen entfernen), DUMP (optimierten Baum zeigen)
+              THREADS <n> (große Programme mit n Threads übersetzen, 1 = seriell)
+              FLUSH LINE|SIZE|INPUT (Programmausgabe je Zeile, bei vollem Puffer oder erst bei INPUT schreiben)
+              TRACE <n>|OFF (Laufzeitfehler zeigen die letzten n ausgeführten Zeilen, Standard 16)
+              BENCH [name|datei] [läufe] (Programme messen; ohne Namen die Suite BM1..BM8, SIEVE, QUEENS, MANDEL, STRINGS)
 
             BASIC-Sprache:
               REM <text>
@@ -144,6 +324,8 @@ private void printHelp() {
                 MID$(s,start[,len])→ Teilstring ab 1-basiertem start, optional Länge
                 INSTR(s, sub)      → 1-basierte Position von sub in s, 0 wenn nicht gefunden
                 INSTR(start, s, sub)→ Suche ab 1-basiertem start
+                COUNT(s, sub)      → Anzahl (nicht überlappender) Vorkommen von sub
+                REPLACE$(s, a, b)  → jedes Vorkommen von a durch b ersetzt
                 CHR$(code)         → Zeichen (0..255)
                 ASC(s)             → Code des 1. Zeichens (Fehler bei leerem String)
 
@@ -160,6 +342,8 @@ private void printHelp() {
             Arrays:
               • Vorher mit DIM anlegen, Indizes sind 1-basiert: 1..N
               • Mehrdimensional möglich: DIM A(3,3), Zugriff: A(2,3)
+              • Große Arrays (ab 2^20 Elementen) belegen nur beschriebene Zellen, dicht ab 2^24 außerhalb des Heaps
+              • DIM A(1000,1000) AS FILE "a.dat" → Zahlen in der Datei, bleiben über Läufe erhalten
 
             Beispiele:
               10 A=POW(2,10) : PRINT "A=";A
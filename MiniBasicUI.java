@@ -4,7 +4,13 @@ import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.BlockingQueue;
@@ -16,6 +22,9 @@ public class MiniBasicUI extends JFrame {
     private final Interpreter interp = new Interpreter(FunctionRegistry.createDefault());
 
     private final JTextArea console = new JTextArea();
+    private final JLabel status = new JLabel(" ");
+    static final int CONSOLE_LINES = 10_000;        // sichtbare Zeilen (ältere fallen aus dem Ringpuffer)
+    private final ConsoleModel model = new ConsoleModel(console, status, CONSOLE_LINES);
     private final JTextField input = new JTextField();
     private final JButton btnRun = new JButton("RUN");
     private final JButton btnList = new JButton("LIST");
@@ -28,6 +37,7 @@ public class MiniBasicUI extends JFrame {
     private volatile boolean programRunning = false;
     private LineQueueReader programInReader;        // speist INPUT()
     private PrintStream programOut;                 // schreibt in Konsole
+    private OutputStream consoleOut;                // dasselbe Ziel, für die gepufferte Programmausgabe (RUN)
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
@@ -58,16 +68,22 @@ public class MiniBasicUI extends JFrame {
         input.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
         input.setBorder(new EmptyBorder(8, 8, 8, 8));
 
+        status.setBorder(new EmptyBorder(0, 8, 4, 8));
+        status.setFont(status.getFont().deriveFont(Font.PLAIN, 12f));
+
         JPanel south = new JPanel(new BorderLayout());
         south.add(controls, BorderLayout.NORTH);
-        south.add(input, BorderLayout.SOUTH);
+        south.add(input, BorderLayout.CENTER);
+        south.add(status, BorderLayout.SOUTH);
 
         setLayout(new BorderLayout());
         add(scroll, BorderLayout.CENTER);
         add(south, BorderLayout.SOUTH);
 
         // Output der Programmausführung in die Konsole leiten
-        programOut = new PrintStream(new TextAreaOutputStream(console), true, StandardCharsets.UTF_8);
+        consoleOut = model.stream();
+        programOut = new PrintStream(consoleOut, true, StandardCharsets.UTF_8);
+        model.start();
 
         // Events
         input.addActionListener(e -> onEnter());
@@ -81,7 +97,7 @@ public class MiniBasicUI extends JFrame {
         btnList.addActionListener(e -> issueCommand("LIST"));
         btnNew.addActionListener(e -> issueCommand("NEW"));
         btnHelp.addActionListener(e -> issueCommand("HELP"));
-        btnClear.addActionListener(e -> { console.setText(""); appendPrompt(); });
+        btnClear.addActionListener(e -> { model.clear(); appendPrompt(); });
 
         btnLoad.addActionListener(e -> {
             JFileChooser fc = new JFileChooser();
@@ -139,8 +155,70 @@ public class MiniBasicUI extends JFrame {
                 String u = line.toUpperCase(Locale.ROOT);
                 String head = u.split("\\s+")[0];
                 switch (head) {
-                    case "RUN" -> startRun();
+                    case "RUN" -> startRun((line.length() > 3) ? line.substring(4).trim() : "");
                     case "LIST" -> interp.list(programOut);
+                    case "LAZY" -> {
+                        String arg = (line.length() > 4) ? line.substring(5).trim().toUpperCase(Locale.ROOT) : "";
+                        if (arg.equals("ON") || arg.equals("OFF")) { interp.setLazyCompile(arg.equals("ON")); println("LAZY " + arg); }
+                        else println("! LAZY ON|OFF (aktuell " + (interp.lazyCompile() ? "ON" : "OFF") + ")");
+                    }
+                    case "JIT" -> {
+                        String arg = (line.length() > 3) ? line.substring(4).trim().toUpperCase(Locale.ROOT) : "";
+                        try {
+                            if (arg.equals("ON") || arg.equals("OFF")) { interp.setJitEnabled(arg.equals("ON")); println("JIT " + arg); }
+                            else println("! JIT ON|OFF (aktuell " + (interp.jitEnabled() ? "ON" : "OFF") + ")");
+                        } catch (Interpreter.BasicException ex) { println("! " + ex.getMessage()); }
+                    }
+                    case "ENGINE" -> {
+                        String arg = (line.length() > 6) ? line.substring(7).trim() : "";
+                        try {
+                            if (!arg.isEmpty()) interp.setEngine(MiniBasic.engine(arg));
+                            println("ENGINE " + interp.engine());
+                        } catch (Interpreter.BasicException ex) { println("! " + ex.getMessage()); }
+                    }
+                    case "THREADS" -> {
+                        String arg = (line.length() > 7) ? line.substring(8).trim() : "";
+                        try {
+                            if (!arg.isEmpty()) interp.setCompileThreads(Integer.parseInt(arg));
+                            println("THREADS " + interp.compileThreads());
+                        } catch (IllegalArgumentException ex) { println("! THREADS <n> (n >= 1)"); }
+                    }
+                    case "TRACE" -> {
+                        String arg = (line.length() > 5) ? line.substring(6).trim() : "";
+                        try {
+                            if (!arg.isEmpty()) interp.setTraceSize(arg.equalsIgnoreCase("OFF") ? 0 : Integer.parseInt(arg));
+                            println("TRACE " + interp.traceSize());
+                        } catch (IllegalArgumentException ex) { println("! TRACE <n>|OFF (0.." + Interpreter.TRACE_MAX + ")"); }
+                    }
+                    case "FLUSH" -> {
+                        String arg = (line.length() > 5) ? line.substring(6).trim() : "";
+                        try {
+                            if (!arg.isEmpty()) interp.setOutputFlush(MiniBasic.flush(arg));
+                            println("FLUSH " + interp.outputFlush());
+                        } catch (Interpreter.BasicException ex) { println("! " + ex.getMessage()); }
+                    }
+                    case "OPTIMIZE" -> {
+                        String arg = (line.length() > 8) ? line.substring(9).trim().toUpperCase(Locale.ROOT) : "";
+                        if (arg.equals("ON") || arg.equals("OFF")) { interp.setOptimize(arg.equals("ON")); println("OPTIMIZE " + arg); }
+                        else println("! OPTIMIZE ON|OFF (aktuell " + (interp.optimize() ? "ON" : "OFF") + ")");
+                    }
+                    case "DUMP" -> {
+                        try { interp.dump(programOut); }
+                        catch (Interpreter.BasicException ex) { println("! Fehler: " + ex.getMessage()); }
+                    }
+                    case "STATS" -> interp.stats(programOut);
+                    case "BENCH" -> startBench((line.length() > 5) ? line.substring(6).trim() : "");
+                    case "COMPILE" -> {
+                        String[] a = (line.length() > 7) ? line.substring(8).trim().split("\\s+") : new String[0];
+                        if (a.length < 1 || a.length > 2 || a[0].isEmpty()) { println("! COMPILE [prog.bas] <out.jar>"); break; }
+                        try {
+                            Interpreter target = interp;
+                            if (a.length == 2) { target = new Interpreter(interp.functions()); target.load(Paths.get(a[0])); }
+                            AotCompiler.compile(target, Paths.get(a[a.length - 1]));
+                            println("Übersetzt nach " + a[a.length - 1]);
+                        } catch (IOException ex) { println("! Konnte nicht übersetzen: " + ex.getMessage()); }
+                        catch (Interpreter.BasicException ex) { println("! Fehler: " + ex.getMessage()); }
+                    }
                     case "NEW" -> { interp.newProgram(); println("OK (neu)"); }
                     case "SAVE" -> {
                         String fn = (line.length() > 4) ? line.substring(5).trim() : "";
@@ -154,8 +232,19 @@ public class MiniBasicUI extends JFrame {
                         try { interp.load(Paths.get(fn)); println("Geladen von " + fn); }
                         catch (IOException ex) { println("! Konnte nicht laden: " + ex.getMessage()); }
                     }
+                    case "SPOOL" -> {
+                        String fn = (line.length() > 5) ? line.substring(6).trim() : "";
+                        try {
+                            if (fn.isEmpty()) println(model.spoolFile() == null ? "SPOOL aus" : "SPOOL " + model.spoolFile());
+                            else if (fn.equalsIgnoreCase("OFF")) { model.stopSpool(); println("SPOOL aus"); }
+                            else { model.spool(Paths.get(fn)); println("SPOOL " + fn); }
+                        } catch (IOException ex) { println("! SPOOL: " + ex.getMessage()); }
+                    }
                     case "HELP" -> printHelp();
-                    case "EXIT", "BYE", "QUIT" -> System.exit(0);
+                    case "EXIT", "BYE", "QUIT" -> {
+                        try { model.stopSpool(); } catch (IOException ignored) { /* beenden trotzdem */ }
+                        System.exit(0);
+                    }
                     default -> println("Unbekannter Befehl. Tippe HELP.");
                 }
                 return;
@@ -190,8 +279,10 @@ public class MiniBasicUI extends JFrame {
     }
 
     /* ===== Programm ausführen (in Worker-Thread), INPUT via Queue, OUTPUT in TextArea ===== */
-    private void startRun() {
+    // arg leer: RUN, sonst RUN PROFILE [µs] [zeilen]
+    private void startRun(String arg) {
         if (programRunning) { println("! Läuft bereits."); return; }
+        long[] profile = arg.isEmpty() ? null : MiniBasic.profile(arg);
 
         programRunning = true;
         programInReader = new LineQueueReader();
@@ -199,9 +290,11 @@ public class MiniBasicUI extends JFrame {
         Thread t = new Thread(() -> {
             try {
                 BufferedReader in = new BufferedReader(programInReader);
-                interp.run(in, programOut);
+                OutputSink sink = OutputSink.of(consoleOut, StandardCharsets.UTF_8, interp.outputFlush());
+                if (profile == null) interp.run(in, sink);
+                else interp.runProfiled(in, sink, profile[0], (int) profile[1], programOut);
             } catch (Interpreter.BasicException ex) {
-                println("! Fehler: " + ex.getMessage());
+                println("! Fehler: " + MiniBasic.error(ex));
             } catch (Throwable th) {
                 println("! Laufzeitfehler: " + th.getMessage());
             } finally {
@@ -214,11 +307,44 @@ public class MiniBasicUI extends JFrame {
         t.start();
     }
 
+    // BENCH läuft wie RUN im Hintergrund, die Oberfläche bleibt bedienbar
+    private void startBench(String arg) {
+        if (programRunning) { println("! Läuft bereits."); return; }
+        programRunning = true;
+        Thread t = new Thread(() -> {
+            try {
+                Bench.command(interp, arg, programOut);
+            } catch (IOException ex) {
+                println("! Konnte nicht laden: " + ex.getMessage());
+            } catch (Interpreter.BasicException ex) {
+                println("! " + ex.getMessage());
+            } catch (Throwable th) {
+                println("! Laufzeitfehler: " + th.getMessage());
+            } finally {
+                programRunning = false;
+                appendPrompt();
+            }
+        }, "MiniBasic-Bench");
+        t.setDaemon(true);
+        t.start();
+    }
+
     /* ===== Hilfe-Text (synchron mit deiner FunctionRegistry) ===== */
     private void printHelp() {
         println("""
                 Befehle (ohne Zeilennummer):
                   RUN, LIST, NEW, SAVE <file>, LOAD <file>, HELP, EXIT
+                  RUN PROFILE [µs] [zeilen] (mit Stichproben-Profiler, danach die teuersten Zeilen und GOSUB-Pfade)
+                  LAZY ON|OFF (Zeilen erst bei Ausführung kompilieren), STATS (Kennzahlen des letzten RUN)
+                  JIT ON|OFF (heiße Programmteile nach Java übersetzen)
+                  COMPILE [prog.bas] <out.jar> (Programm in ein ausführbares Jar übersetzen)
+                  ENGINE TREE|VM (Baum-Interpreter oder Register-VM für RUN)
+                  OPTIMIZE ON|OFF (Konstanten falten, unerreichbare Zeilen entfernen), DUMP (optimierten Baum zeigen)
+                  THREADS <n> (große Programme mit n Threads übersetzen, 1 = seriell)
+                  FLUSH LINE|SIZE|INPUT (Programmausgabe je Zeile, bei vollem Puffer oder erst bei INPUT schreiben)
+                  TRACE <n>|OFF (Laufzeitfehler zeigen die letzten n ausgeführten Zeilen, Standard 16)
+                  SPOOL <datei>|OFF (gesamte Konsolenausgabe mitschreiben; sichtbar bleiben die letzten Zeilen)
+                  BENCH [name|datei] [läufe] (Programme messen; ohne Namen die Suite BM1..BM8, SIEVE, QUEENS, MANDEL, STRINGS)
 
                 BASIC-Sprache:
                   REM <text>
@@ -258,7 +384,8 @@ public class MiniBasicUI extends JFrame {
 
                   Strings/Zeichen:
                     STR$(x), VAL(s), LEFT$(s,n), RIGHT$(s,n), MID$(s,start[,len]),
-                    INSTR(s, sub) / INSTR(start, s, sub), CHR$(code), ASC(s)
+                    INSTR(s, sub) / INSTR(start, s, sub), COUNT(s, sub), REPLACE$(s, a, b),
+                    CHR$(code), ASC(s)
 
                   Konsole/System:
                     CLS(), PAUSE(sek), BEEP()
@@ -269,6 +396,8 @@ public class MiniBasicUI extends JFrame {
                 Arrays:
                   • Vorher mit DIM anlegen, Indizes sind 1-basiert: 1..N
                   • Mehrdimensional möglich: DIM A(3,3), Zugriff: A(2,3)
+                  • Große Arrays (ab 2^20 Elementen) belegen nur beschriebene Zellen, dicht ab 2^24 außerhalb des Heaps
+                  • DIM A(1000,1000) AS FILE "a.dat" → Zahlen in der Datei, bleiben über Läufe erhalten
 
                 Beispiele:
                   10 A=POW(2,10) : PRINT "A=";A
@@ -281,27 +410,187 @@ public class MiniBasicUI extends JFrame {
     /* ===== Helpers ===== */
     private void appendPrompt() { print("OK> "); }
     private void println(String s) { print(s + "\n"); }
-    private void print(String s) {
-        SwingUtilities.invokeLater(() -> {
-            console.append(s);
-            console.setCaretPosition(console.getDocument().getLength());
-        });
-    }
+    private void print(String s) { model.append(s); }
+
+    /**
+     * Konsolenmodell: Text aus beliebigen Threads wird gesammelt und von einem Swing-Timer mit fester
+     * Bildrate in die JTextArea übertragen (ein Auftrag je Bild statt einer je write). Sichtbar bleiben
+     * die letzten maxLines Zeilen (Ringpuffer); auf Wunsch wird die gesamte Ausgabe in eine Datei gespoolt.
+     */
+    static final class ConsoleModel {
+        static final int FPS = 30;
+        private static final int PENDING_MAX = 1 << 22;    // Zeichen; bei Überlauf wird vorne gekürzt
 
-    /** OutputStream, der in die JTextArea schreibt. */
-    static class TextAreaOutputStream extends OutputStream {
         private final JTextArea area;
-        TextAreaOutputStream(JTextArea area) { this.area = area; }
-        @Override public void write(int b) { append(new byte[]{(byte)b}, 0, 1); }
-        @Override public void write(byte[] b, int off, int len) {
-            append(b, off, len);
+        private final JLabel status;
+        private final int maxLines;
+        private final Timer timer;
+
+        // von den Schreibern befüllt, nur unter lock
+        private final Object lock = new Object();
+        private final StringBuilder pending = new StringBuilder();
+        private boolean truncated;                          // pending vorne gekürzt: Anzeige neu aufbauen
+        private long chars, lines;                          // insgesamt, für den Durchsatz
+        private Writer spool;
+        private Path spoolFile;
+
+        // nur auf dem EDT
+        private final String[] ring;                        // vollständige Zeilen, älteste bei head
+        private int head, count;
+        private final StringBuilder partial = new StringBuilder(); // angefangene letzte Zeile
+        private int ticks;
+        private long lastChars, lastLines, lastNanos = System.nanoTime();
+
+        ConsoleModel(JTextArea area, JLabel status, int maxLines) {
+            this.area = area; this.status = status; this.maxLines = maxLines;
+            this.ring = new String[maxLines];
+            this.timer = new Timer(1000 / FPS, e -> tick());
         }
-        private void append(byte[] b, int off, int len) {
-            String s = new String(b, off, len, StandardCharsets.UTF_8);
-            SwingUtilities.invokeLater(() -> {
-                area.append(s);
-                area.setCaretPosition(area.getDocument().getLength());
-            });
+
+        void start() { timer.start(); }
+
+        /** Text anhängen (jeder Thread). */
+        void append(CharSequence s) {
+            int len = s.length();
+            if (len == 0) return;
+            synchronized (lock) {
+                pending.append(s);
+                chars += len;
+                for (int i = 0; i < len; i++) if (s.charAt(i) == '\n') lines++;
+                if (spool != null) {
+                    try { spool.append(s); }
+                    catch (IOException ex) { closeSpoolQuietly(); }
+                }
+                if (pending.length() > PENDING_MAX) {
+                    int cut = pending.indexOf("\n", pending.length() - PENDING_MAX / 2);
+                    if (cut >= 0) { pending.delete(0, cut + 1); truncated = true; }
+                }
+            }
+        }
+
+        /** UTF-8-Byteström in die Konsole; Mehrbyte-Zeichen dürfen auf mehrere write-Aufrufe verteilt sein. */
+        OutputStream stream() {
+            return new OutputStream() {
+                private final CharsetDecoder dec = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+                private final ByteBuffer in = ByteBuffer.allocate(8192);
+                private final CharBuffer out = CharBuffer.allocate(8192);
+
+                @Override public synchronized void write(int b) {
+                    in.put((byte) b);
+                    decode();
+                }
+                @Override public synchronized void write(byte[] b, int off, int len) {
+                    while (len > 0) {
+                        int k = Math.min(len, in.remaining());
+                        in.put(b, off, k);
+                        off += k; len -= k;
+                        decode();
+                    }
+                }
+                private void decode() {
+                    in.flip();
+                    while (true) {
+                        CoderResult r = dec.decode(in, out, false);
+                        out.flip();
+                        append(out);
+                        out.clear();
+                        if (r.isUnderflow()) break;
+                    }
+                    in.compact();                           // unvollständiges Zeichen bleibt für den nächsten write
+                }
+            };
+        }
+
+        void clear() {
+            synchronized (lock) { pending.setLength(0); truncated = false; }
+            head = 0; count = 0; partial.setLength(0);
+            area.setText("");
+        }
+
+        void spool(Path file) throws IOException {
+            Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            synchronized (lock) { closeSpoolQuietly(); spool = w; spoolFile = file; }
+        }
+        void stopSpool() throws IOException {
+            Writer w;
+            synchronized (lock) { w = spool; spool = null; spoolFile = null; }
+            if (w != null) w.close();
+        }
+        Path spoolFile() { synchronized (lock) { return spoolFile; } }
+        private void closeSpoolQuietly() {
+            try { if (spool != null) spool.close(); } catch (IOException ignored) { /* Datei bleibt unvollständig */ }
+            spool = null; spoolFile = null;
+        }
+
+        // EDT, FPS-mal je Sekunde
+        private void tick() {
+            String chunk = null;
+            boolean cut;
+            synchronized (lock) {
+                if (pending.length() > 0) { chunk = pending.toString(); pending.setLength(0); }
+                cut = truncated; truncated = false;
+            }
+            if (chunk != null) show(chunk, cut);
+            if (++ticks % FPS == 0) updateStatus();
+        }
+
+        private void show(String chunk, boolean cut) {
+            // nur die letzten maxLines vollständigen Zeilen des Stücks können sichtbar bleiben
+            int from = 0, nl = 0;
+            for (int i = chunk.length() - 1; i >= 0; i--) {
+                if (chunk.charAt(i) == '\n' && ++nl > maxLines) { from = i + 1; break; }
+            }
+            boolean rebuild = cut || from > 0;
+            if (rebuild) { head = 0; count = 0; partial.setLength(0); }
+            int start = from;
+            for (int i = from; i < chunk.length(); i++) {
+                if (chunk.charAt(i) != '\n') continue;
+                partial.append(chunk, start, i);
+                push(partial.toString());
+                partial.setLength(0);
+                start = i + 1;
+            }
+            partial.append(chunk, start, chunk.length());
+
+            if (rebuild) {
+                area.setText(render());
+            } else {
+                area.append(chunk);
+                int excess = area.getLineCount() - 1 - maxLines;
+                if (excess > 0) {
+                    try { area.getDocument().remove(0, area.getLineStartOffset(excess)); }
+                    catch (javax.swing.text.BadLocationException ex) { area.setText(render()); }
+                }
+            }
+            area.setCaretPosition(area.getDocument().getLength());
+        }
+
+        private void push(String line) {
+            if (count < ring.length) ring[(head + count++) % ring.length] = line;
+            else { ring[head] = line; head = (head + 1) % ring.length; }
+        }
+
+        private String render() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) sb.append(ring[(head + i) % ring.length]).append('\n');
+            return sb.append(partial).toString();
+        }
+
+        private void updateStatus() {
+            long now = System.nanoTime(), c, l;
+            Path file;
+            synchronized (lock) {
+                c = chars; l = lines; file = spoolFile;
+                if (spool != null) {
+                    try { spool.flush(); } catch (IOException ex) { closeSpoolQuietly(); }
+                }
+            }
+            double s = (now - lastNanos) / 1e9;
+            status.setText(String.format(Locale.ROOT, "Ausgabe: %,.0f Zeilen/s, %,.0f Zeichen/s · %,d Zeilen gesamt, letzte %,d sichtbar%s",
+                    (l - lastLines) / s, (c - lastChars) / s, l, Math.min(count, maxLines),
+                    file == null ? "" : " · Spool: " + file));
+            lastChars = c; lastLines = l; lastNanos = now;
         }
     }
 
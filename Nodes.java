@@ -0,0 +1,681 @@
+import java.util.*;
+
+/**
+ * AST-Knoten, die der Parser erzeugt.
+ * Ausdrücke sind statisch typisiert: NumExpr (primitives double) oder StrExpr (String oder Text).
+ * Typfehler, die der alte Interpreter erst zur Laufzeit meldete, bleiben Laufzeitfehler (TypeError).
+ */
+final class Nodes {
+    private Nodes() {}
+
+    /* ============================ ZAHLEN ============================ */
+    static final class NumLit implements Interpreter.NumExpr {
+        final double value;
+        NumLit(double value) { this.value = value; }
+        public double evalNumber(Interpreter rt) { return value; }
+    }
+
+    static final class NumVar implements Interpreter.NumExpr {
+        final int slot; final String name;
+        NumVar(int slot, String name) { this.slot = slot; this.name = name; }
+        public double evalNumber(Interpreter rt) { return rt.nums[slot]; }
+    }
+
+    static final class NumArrayRef implements Interpreter.NumExpr {
+        final int slot; final String name; final Interpreter.NumExpr[] idx;
+        NumArrayRef(int slot, String name, Interpreter.NumExpr[] idx) { this.slot = slot; this.name = name; this.idx = idx; }
+        public double evalNumber(Interpreter rt) { return rt.getArrayNum(slot, indices(rt, idx)); }
+    }
+
+    /**
+     * 1D-/2D-Array-Zugriff ohne Index-Array. hoist() setzt der umgebende FOR beim Eintritt
+     * (For.guards) und NEXT am Schleifenende wieder auf null: != null heißt, alle Indizes liegen
+     * für diesen Schleifenlauf sicher im DIM-Bereich, der Zugriff geht dann ohne Prüfung direkt
+     * auf das Array.
+     */
+    interface ArrayAccess {
+        int slot();
+        String name();
+        Interpreter.NumExpr[] indices();
+        boolean strings();                      // Element-Typ des Zugriffs
+        void hoist(Interpreter.ArrayVar a);
+    }
+
+    static final class NumArray1 implements Interpreter.NumExpr, ArrayAccess {
+        final int slot; final String name; final Interpreter.NumExpr i;
+        private Interpreter.ArrayVar hoisted;
+        NumArray1(int slot, String name, Interpreter.NumExpr i) { this.slot = slot; this.name = name; this.i = i; }
+        public int slot() { return slot; }
+        public String name() { return name; }
+        public Interpreter.NumExpr[] indices() { return new Interpreter.NumExpr[] { i }; }
+        public boolean strings() { return false; }
+        public void hoist(Interpreter.ArrayVar a) { hoisted = a; }
+        public double evalNumber(Interpreter rt) {
+            int x = (int)Math.floor(i.evalNumber(rt));
+            Interpreter.ArrayVar a = hoisted;
+            return (a != null) ? a.nums[x - 1] : num1(rt, slot, x);
+        }
+    }
+
+    static final class NumArray2 implements Interpreter.NumExpr, ArrayAccess {
+        final int slot; final String name; final Interpreter.NumExpr i, j;
+        private Interpreter.ArrayVar hoisted;
+        NumArray2(int slot, String name, Interpreter.NumExpr i, Interpreter.NumExpr j) { this.slot = slot; this.name = name; this.i = i; this.j = j; }
+        public int slot() { return slot; }
+        public String name() { return name; }
+        public Interpreter.NumExpr[] indices() { return new Interpreter.NumExpr[] { i, j }; }
+        public boolean strings() { return false; }
+        public void hoist(Interpreter.ArrayVar a) { hoisted = a; }
+        public double evalNumber(Interpreter rt) {
+            int x = (int)Math.floor(i.evalNumber(rt)), y = (int)Math.floor(j.evalNumber(rt));
+            Interpreter.ArrayVar a = hoisted;
+            return (a != null) ? a.nums[(x - 1) * a.dims[1] + (y - 1)] : num2(rt, slot, x, y);
+        }
+    }
+
+    static final class Neg implements Interpreter.NumExpr {
+        final Interpreter.NumExpr e;
+        Neg(Interpreter.NumExpr e) { this.e = e; }
+        public double evalNumber(Interpreter rt) { return -e.evalNumber(rt); }
+    }
+
+    /** + - * / auf Zahlen. */
+    static final class NumBinary implements Interpreter.NumExpr {
+        final char op; final Interpreter.NumExpr a, b;
+        NumBinary(char op, Interpreter.NumExpr a, Interpreter.NumExpr b) { this.op = op; this.a = a; this.b = b; }
+        public double evalNumber(Interpreter rt) {
+            double x = a.evalNumber(rt), y = b.evalNumber(rt);
+            switch (op) {
+                case '+': return x + y;
+                case '-': return x - y;
+                case '*': return x * y;
+                default: return div(x, y);
+            }
+        }
+    }
+
+    /** Vergleich zweier Zahlen; Ergebnis 1 oder 0. */
+    static final class NumCompare implements Interpreter.NumExpr {
+        final String op; final int code; final Interpreter.NumExpr a, b;
+        NumCompare(String op, Interpreter.NumExpr a, Interpreter.NumExpr b) { this.op = op; this.code = relopCode(op); this.a = a; this.b = b; }
+        public double evalNumber(Interpreter rt) {
+            int cmp = Double.compare(a.evalNumber(rt), b.evalNumber(rt));
+            return test(code, cmp) ? 1 : 0;
+        }
+    }
+
+    /** Vergleich zweier Strings (lexikografisch); Ergebnis 1 oder 0. */
+    static final class StrCompare implements Interpreter.NumExpr {
+        final String op; final int code; final Interpreter.StrExpr a, b;
+        StrCompare(String op, Interpreter.StrExpr a, Interpreter.StrExpr b) { this.op = op; this.code = relopCode(op); this.a = a; this.b = b; }
+        public double evalNumber(Interpreter rt) {
+            int cmp = Text.compare(a.evalString(rt), b.evalString(rt));
+            return test(code, cmp) ? 1 : 0;
+        }
+    }
+
+    /** Wahrheitswert eines Strings (nicht leer = 1). */
+    static final class StrTruth implements Interpreter.NumExpr {
+        final Interpreter.StrExpr e;
+        StrTruth(Interpreter.StrExpr e) { this.e = e; }
+        public double evalNumber(Interpreter rt) { return e.evalString(rt).isEmpty() ? 0 : 1; }
+    }
+
+    static final class StrToNum implements Interpreter.NumExpr {
+        final Interpreter.StrExpr e;
+        StrToNum(Interpreter.StrExpr e) { this.e = e; }
+        public double evalNumber(Interpreter rt) { return Numbers.parse(e.evalString(rt)); }
+    }
+
+    /** Operanden werden ausgewertet, danach wird der Typfehler gemeldet (wie bisher zur Laufzeit). */
+    static final class TypeError implements Interpreter.NumExpr {
+        final String message; final Interpreter.Expr[] operands;
+        TypeError(String message, Interpreter.Expr... operands) { this.message = message; this.operands = operands; }
+        public double evalNumber(Interpreter rt) {
+            for (Interpreter.Expr e : operands) e.eval(rt);
+            return typeError(message);
+        }
+    }
+
+    /** Builtin-Aufruf; die Funktion ist beim Parsen gebunden (kein Nachschlagen je Aufruf) und auf konstante Argumente spezialisiert. */
+    static final class NumCall implements Interpreter.NumExpr {
+        final String name; final BuiltinFunction fn; final Interpreter.Expr[] args;
+        NumCall(String name, BuiltinFunction fn, Interpreter.Expr[] args) { this.name = name; this.fn = specialize(fn, args); this.args = args; }
+        public double evalNumber(Interpreter rt) { return call(rt, fn, args).asNumber(); }
+    }
+
+    /* ============================ STRINGS ============================ */
+    static final class StrLit implements Interpreter.StrExpr {
+        final String value;
+        StrLit(String value) { this.value = value; }
+        public CharSequence evalString(Interpreter rt) { return value; }
+    }
+
+    static final class StrVar implements Interpreter.StrExpr {
+        final int slot; final String name;
+        StrVar(int slot, String name) { this.slot = slot; this.name = name; }
+        public CharSequence evalString(Interpreter rt) { return rt.getStr(slot); }
+    }
+
+    static final class StrArrayRef implements Interpreter.StrExpr {
+        final int slot; final String name; final Interpreter.NumExpr[] idx;
+        StrArrayRef(int slot, String name, Interpreter.NumExpr[] idx) { this.slot = slot; this.name = name; this.idx = idx; }
+        public CharSequence evalString(Interpreter rt) { return rt.getArrayStr(slot, indices(rt, idx)); }
+    }
+
+    static final class StrArray1 implements Interpreter.StrExpr, ArrayAccess {
+        final int slot; final String name; final Interpreter.NumExpr i;
+        private Interpreter.ArrayVar hoisted;
+        StrArray1(int slot, String name, Interpreter.NumExpr i) { this.slot = slot; this.name = name; this.i = i; }
+        public int slot() { return slot; }
+        public String name() { return name; }
+        public Interpreter.NumExpr[] indices() { return new Interpreter.NumExpr[] { i }; }
+        public boolean strings() { return true; }
+        public void hoist(Interpreter.ArrayVar a) { hoisted = a; }
+        public CharSequence evalString(Interpreter rt) {
+            int x = (int)Math.floor(i.evalNumber(rt));
+            Interpreter.ArrayVar a = hoisted;
+            if (a == null) return str1(rt, slot, x);
+            CharSequence s = a.strs[x - 1];
+            return (s != null) ? s : "";
+        }
+    }
+
+    static final class StrArray2 implements Interpreter.StrExpr, ArrayAccess {
+        final int slot; final String name; final Interpreter.NumExpr i, j;
+        private Interpreter.ArrayVar hoisted;
+        StrArray2(int slot, String name, Interpreter.NumExpr i, Interpreter.NumExpr j) { this.slot = slot; this.name = name; this.i = i; this.j = j; }
+        public int slot() { return slot; }
+        public String name() { return name; }
+        public Interpreter.NumExpr[] indices() { return new Interpreter.NumExpr[] { i, j }; }
+        public boolean strings() { return true; }
+        public void hoist(Interpreter.ArrayVar a) { hoisted = a; }
+        public CharSequence evalString(Interpreter rt) {
+            int x = (int)Math.floor(i.evalNumber(rt)), y = (int)Math.floor(j.evalNumber(rt));
+            Interpreter.ArrayVar a = hoisted;
+            if (a == null) return str2(rt, slot, x, y);
+            CharSequence s = a.strs[(x - 1) * a.dims[1] + (y - 1)];
+            return (s != null) ? s : "";
+        }
+    }
+
+    static final class Concat implements Interpreter.StrExpr {
+        final Interpreter.StrExpr a, b;
+        Concat(Interpreter.StrExpr a, Interpreter.StrExpr b) { this.a = a; this.b = b; }
+        public CharSequence evalString(Interpreter rt) { return Text.concat(a.evalString(rt), b.evalString(rt)); }
+    }
+
+    static final class NumToStr implements Interpreter.StrExpr {
+        final Interpreter.NumExpr e;
+        NumToStr(Interpreter.NumExpr e) { this.e = e; }
+        public CharSequence evalString(Interpreter rt) { return Numbers.format(e.evalNumber(rt)); }
+    }
+
+    static final class StrCall implements Interpreter.StrExpr {
+        final String name; final BuiltinFunction fn; final Interpreter.Expr[] args;
+        StrCall(String name, BuiltinFunction fn, Interpreter.Expr[] args) { this.name = name; this.fn = specialize(fn, args); this.args = args; }
+        public CharSequence evalString(Interpreter rt) { return call(rt, fn, args).asText(); }
+    }
+
+    /* ============================ STATEMENTS ============================ */
+    static final class Nop implements Interpreter.Statement {
+        static final Nop INSTANCE = new Nop();
+        public void execute(Interpreter.Context c) {}
+    }
+
+    /** Mehrere Statements einer Zeile (':'); Sprünge/END stoppen den Rest der Zeile. */
+    static final class Seq implements Interpreter.Statement {
+        final Interpreter.Statement[] parts;
+        Seq(Interpreter.Statement[] parts) { this.parts = parts; }
+        public void execute(Interpreter.Context c) {
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    if (c.stop || c.jumpPc >= 0) return;
+                    c.statements++;
+                }
+                parts[i].execute(c);
+            }
+        }
+    }
+
+    static final class Print implements Interpreter.Statement {
+        final Interpreter.Expr[] parts; final char[] seps;
+        Print(Interpreter.Expr[] parts, char[] seps) { this.parts = parts; this.seps = seps; }
+        public void execute(Interpreter.Context c) {
+            for (int i = 0; i < parts.length; i++) {
+                Interpreter.Expr p = parts[i];
+                if (p instanceof Interpreter.NumExpr n) c.out.print(n.evalNumber(c.rt));
+                else c.out.print(((Interpreter.StrExpr) p).evalString(c.rt));
+                if (i < seps.length && seps[i] == ',') c.out.print(" ");
+            }
+            c.out.println();
+        }
+    }
+
+    static final class NumAssign implements Interpreter.Statement {
+        final int slot; final String name; final Interpreter.NumExpr value;
+        NumAssign(int slot, String name, Interpreter.NumExpr value) { this.slot = slot; this.name = name; this.value = value; }
+        public void execute(Interpreter.Context c) { c.rt.nums[slot] = value.evalNumber(c.rt); }
+    }
+
+    static final class StrAssign implements Interpreter.Statement {
+        final int slot; final String name; final Interpreter.StrExpr value;
+        StrAssign(int slot, String name, Interpreter.StrExpr value) { this.slot = slot; this.name = name; this.value = value; }
+        public void execute(Interpreter.Context c) { c.rt.strs[slot] = value.evalString(c.rt); }
+    }
+
+    /** Zuweisung an ein Array-Element; der Wert wird vor den Indizes ausgewertet. */
+    static final class ArrayAssign implements Interpreter.Statement {
+        final int slot; final String name; final Interpreter.NumExpr[] idx; final Interpreter.Expr value;
+        ArrayAssign(int slot, String name, Interpreter.NumExpr[] idx, Interpreter.Expr value) {
+            this.slot = slot; this.name = name; this.idx = idx; this.value = value;
+        }
+        public void execute(Interpreter.Context c) {
+            if (value instanceof Interpreter.NumExpr n) {
+                double d = n.evalNumber(c.rt);
+                c.rt.setArrayNum(slot, indices(c.rt, idx), d);
+            } else {
+                CharSequence s = ((Interpreter.StrExpr) value).evalString(c.rt);
+                c.rt.setArrayStr(slot, indices(c.rt, idx), s);
+            }
+        }
+    }
+
+    /** Zuweisung an A(i) bzw. A$(i); Wert vor dem Index, wie ArrayAssign. */
+    static final class ArrayStore1 implements Interpreter.Statement, ArrayAccess {
+        final int slot; final String name; final Interpreter.NumExpr i; final Interpreter.Expr value;
+        private Interpreter.ArrayVar hoisted;
+        ArrayStore1(int slot, String name, Interpreter.NumExpr i, Interpreter.Expr value) {
+            this.slot = slot; this.name = name; this.i = i; this.value = value;
+        }
+        public int slot() { return slot; }
+        public String name() { return name; }
+        public Interpreter.NumExpr[] indices() { return new Interpreter.NumExpr[] { i }; }
+        public boolean strings() { return !(value instanceof Interpreter.NumExpr); }
+        public void hoist(Interpreter.ArrayVar a) { hoisted = a; }
+        public void execute(Interpreter.Context c) {
+            if (value instanceof Interpreter.NumExpr n) {
+                double d = n.evalNumber(c.rt);
+                int x = (int)Math.floor(i.evalNumber(c.rt));
+                Interpreter.ArrayVar a = hoisted;
+                if (a != null) a.nums[x - 1] = d; else store1(c.rt, slot, x, d);
+            } else {
+                CharSequence s = ((Interpreter.StrExpr) value).evalString(c.rt);
+                int x = (int)Math.floor(i.evalNumber(c.rt));
+                Interpreter.ArrayVar a = hoisted;
+                if (a != null) a.strs[x - 1] = s; else store1(c.rt, slot, x, s);
+            }
+        }
+    }
+
+    static final class ArrayStore2 implements Interpreter.Statement, ArrayAccess {
+        final int slot; final String name; final Interpreter.NumExpr i, j; final Interpreter.Expr value;
+        private Interpreter.ArrayVar hoisted;
+        ArrayStore2(int slot, String name, Interpreter.NumExpr i, Interpreter.NumExpr j, Interpreter.Expr value) {
+            this.slot = slot; this.name = name; this.i = i; this.j = j; this.value = value;
+        }
+        public int slot() { return slot; }
+        public String name() { return name; }
+        public Interpreter.NumExpr[] indices() { return new Interpreter.NumExpr[] { i, j }; }
+        public boolean strings() { return !(value instanceof Interpreter.NumExpr); }
+        public void hoist(Interpreter.ArrayVar a) { hoisted = a; }
+        public void execute(Interpreter.Context c) {
+            if (value instanceof Interpreter.NumExpr n) {
+                double d = n.evalNumber(c.rt);
+                int x = (int)Math.floor(i.evalNumber(c.rt)), y = (int)Math.floor(j.evalNumber(c.rt));
+                Interpreter.ArrayVar a = hoisted;
+                if (a != null) a.nums[(x - 1) * a.dims[1] + (y - 1)] = d; else store2(c.rt, slot, x, y, d);
+            } else {
+                CharSequence s = ((Interpreter.StrExpr) value).evalString(c.rt);
+                int x = (int)Math.floor(i.evalNumber(c.rt)), y = (int)Math.floor(j.evalNumber(c.rt));
+                Interpreter.ArrayVar a = hoisted;
+                if (a != null) a.strs[(x - 1) * a.dims[1] + (y - 1)] = s; else store2(c.rt, slot, x, y, s);
+            }
+        }
+    }
+
+    static final class Input implements Interpreter.Statement {
+        final int slot; final String name;
+        Input(int slot, String name) { this.slot = slot; this.name = name; }
+        public void execute(Interpreter.Context c) { input(c, slot, name); }
+    }
+
+    /** Statement mit festem Sprungziel; die Zeilennummer wird vor dem Start auf einen Programmindex gebunden. */
+    interface Jump {
+        int line();
+        void link(int pc);
+    }
+
+    static final class IfJump implements Interpreter.Statement, Jump {
+        final Interpreter.NumExpr cond; final int line; int target = -1;
+        IfJump(Interpreter.NumExpr cond, int line) { this.cond = cond; this.line = line; }
+        public int line() { return line; }
+        public void link(int pc) { target = pc; }
+        public void execute(Interpreter.Context c) { if (cond.evalNumber(c.rt) != 0.0) c.jumpPc = target; }
+    }
+
+    static final class IfThen implements Interpreter.Statement {
+        final Interpreter.NumExpr cond; final Interpreter.Statement inner;
+        IfThen(Interpreter.NumExpr cond, Interpreter.Statement inner) { this.cond = cond; this.inner = inner; }
+        public void execute(Interpreter.Context c) { if (cond.evalNumber(c.rt) != 0.0) inner.execute(c); }
+    }
+
+    static final class Goto implements Interpreter.Statement, Jump {
+        final int line; int target = -1;
+        Goto(int line) { this.line = line; }
+        public int line() { return line; }
+        public void link(int pc) { target = pc; }
+        public void execute(Interpreter.Context c) { c.jumpPc = target; }
+    }
+
+    static final class Gosub implements Interpreter.Statement, Jump {
+        final int line; int target = -1;
+        Gosub(int line) { this.line = line; }
+        public int line() { return line; }
+        public void link(int pc) { target = pc; }
+        public void execute(Interpreter.Context c) { gosub(c, target); }
+    }
+
+    static final class Return implements Interpreter.Statement {
+        public void execute(Interpreter.Context c) { ret(c); }
+    }
+
+    static final class For implements Interpreter.Statement {
+        final int slot; final String name; final Interpreter.NumExpr start, end, step;
+        Guard[] guards;   // vorgezogene Indexprüfungen im Rumpf (Optimizer.hoistBoundsChecks), null = keine
+        For(int slot, String name, Interpreter.NumExpr start, Interpreter.NumExpr end, Interpreter.NumExpr step) {
+            this.slot = slot; this.name = name; this.start = start; this.end = end; this.step = step;
+        }
+        public void execute(Interpreter.Context c) {
+            double s  = start.evalNumber(c.rt);
+            double e  = end.evalNumber(c.rt);
+            double st = (step == null) ? 1.0 : step.evalNumber(c.rt);
+            enterFor(c, slot, name, s, e, st);
+            if (guards != null) { hoist(c.rt, s, e, st); c.peekFor().loop = this; }
+        }
+
+        /** Prüft beim Eintritt alle Zugriffe im Rumpf gegen den Wertebereich der Laufvariable. */
+        void hoist(Interpreter rt, double s, double e, double st) {
+            // der erste Durchlauf läuft immer mit s; danach bleibt die Variable bis zum Ende in [s, e]
+            double lo = s, hi = s;
+            if (st > 0 && e > s) hi = e;
+            else if (st < 0 && e < s) lo = e;
+            for (Guard g : guards) g.access.hoist(g.check(rt, lo, hi));
+        }
+
+        /** Nach dem Ende der Schleife: die Zugriffe prüfen wieder selbst, falls der Rumpf anders erreicht wird. */
+        void unhoist() {
+            for (Guard g : guards) g.access.hoist(null);
+        }
+
+        void clearGuards() {
+            if (guards == null) return;
+            unhoist();
+            guards = null;
+        }
+    }
+
+    /**
+     * Vorab-Prüfung eines Zugriffs; je Index eine Form: Laufvariable + offset (LOOP),
+     * im Rumpf unveränderte Variable + offset (VAR) oder Konstante offset (CONST).
+     */
+    static final class Guard {
+        static final int LOOP = 0, VAR = 1, CONST = 2;
+        final ArrayAccess access; final int[] kind; final int[] var; final double[] offset;
+        Guard(ArrayAccess access, int[] kind, int[] var, double[] offset) {
+            this.access = access; this.kind = kind; this.var = var; this.offset = offset;
+        }
+
+        /** Das Array, wenn jeder mögliche Index im DIM-Bereich liegt, sonst null (Zugriff prüft dann selbst). */
+        Interpreter.ArrayVar check(Interpreter rt, double lo, double hi) {
+            Interpreter.ArrayVar a = rt.arrays[access.slot()];
+            if (a == null || a.dims.length != kind.length || a.stringType != access.strings()) return null;
+            if (a.stringType ? a.strs == null : a.nums == null) return null;  // dünn (bis zum Umstellen), außerhalb des Heaps: nur über num/setNum
+            for (int d = 0; d < kind.length; d++) {
+                double min, max;
+                switch (kind[d]) {
+                    case LOOP: min = lo + offset[d]; max = hi + offset[d]; break;
+                    case VAR:  min = max = rt.nums[var[d]] + offset[d]; break;
+                    default:   min = max = offset[d];
+                }
+                if (!(Math.floor(min) >= 1 && Math.floor(max) <= a.dims[d])) return null; // auch NaN
+            }
+            return a;
+        }
+    }
+
+    static final class Next implements Interpreter.Statement {
+        final int slot; final String name;   // slot -1 bei String-Namen: passt zu keinem FOR
+        Next(int slot, String name) { this.slot = slot; this.name = name; }
+        public void execute(Interpreter.Context c) { next(c, slot); }
+    }
+
+    static final class DimDef {
+        final int slot; final String name; final boolean stringType; final Interpreter.NumExpr[] dims;
+        final Interpreter.StrExpr file;                // DIM ... AS FILE, sonst null
+        DimDef(int slot, String name, boolean stringType, Interpreter.NumExpr[] dims, Interpreter.StrExpr file) {
+            this.slot = slot; this.name = name; this.stringType = stringType; this.dims = dims; this.file = file;
+        }
+    }
+
+    static final class Dim implements Interpreter.Statement {
+        final DimDef[] defs;
+        Dim(DimDef[] defs) { this.defs = defs; }
+        public void execute(Interpreter.Context c) {
+            for (DimDef d : defs) {
+                int[] di = new int[d.dims.length];
+                for (int i = 0; i < di.length; i++) di[i] = dimSize(d.dims[i].evalNumber(c.rt));
+                c.rt.dimArray(d.slot, d.stringType, di, (d.file != null) ? d.file.evalString(c.rt) : null);
+            }
+        }
+    }
+
+    static final class Randomize implements Interpreter.Statement {
+        final Interpreter.NumExpr seed; // null = Zeit
+        Randomize(Interpreter.NumExpr seed) { this.seed = seed; }
+        public void execute(Interpreter.Context c) { c.rt.randomize(seed == null ? null : (long)seed.evalNumber(c.rt)); }
+    }
+
+    static final class End implements Interpreter.Statement {
+        public void execute(Interpreter.Context c) { c.stop = true; }
+    }
+
+    /** Funktionsaufruf als Statement; der Rückgabewert wird verworfen. */
+    static final class CallStmt implements Interpreter.Statement {
+        final String name; final BuiltinFunction fn; final Interpreter.Expr[] args;
+        CallStmt(String name, BuiltinFunction fn, Interpreter.Expr[] args) { this.name = name; this.fn = specialize(fn, args); this.args = args; }
+        public void execute(Interpreter.Context c) { call(c.rt, fn, args); }
+    }
+
+    /* ============================ HILFEN ============================ */
+    // Die Semantik der Statements liegt in statischen Hilfen, damit Knoten und
+    // generierter Code (JavaGen) sich exakt gleich verhalten.
+
+    static void input(Interpreter.Context c, int slot, String name) {
+        try {
+            c.out.print("? " + name + " = ");
+            c.out.flush();                                  // Prompt (und alles davor) vor dem Lesen zeigen
+            Events.InputWait ev = new Events.InputWait();
+            ev.begin();
+            String line = c.in.readLine(); if (line == null) line = "";
+            ev.end();
+            if (ev.shouldCommit()) { ev.variable = name; ev.line = c.currentLine; ev.commit(); }
+            if (Interpreter.isStringName(name)) c.rt.strs[slot] = line;
+            else if (Numbers.isNumber(line)) c.rt.nums[slot] = Numbers.parse(line);
+            else throw new Interpreter.BasicException("Eingabe ist keine Zahl.");
+        } catch (java.io.IOException e) { throw new Interpreter.BasicException("E/A-Fehler bei INPUT"); }
+    }
+
+    static void gosub(Interpreter.Context c, int target) {
+        int ret = c.nextPc();
+        if (ret < 0) throw new Interpreter.BasicException("GOSUB von letzter Zeile nicht möglich");
+        c.pushGosub(ret);
+        c.jumpPc = target;
+    }
+
+    static void ret(Interpreter.Context c) {
+        if (c.gosubEmpty()) throw new Interpreter.BasicException("RETURN ohne GOSUB");
+        c.jumpPc = c.popGosub();
+    }
+
+    static void enterFor(Interpreter.Context c, int slot, String name, double start, double end, double step) {
+        c.rt.nums[slot] = start;
+        int after = c.nextPc();
+        if (after < 0) throw new Interpreter.BasicException("FOR am Programmenende");
+        c.pushFor(slot, name, end, step, after);
+    }
+
+    static void next(Interpreter.Context c, int slot) {
+        if (c.forEmpty()) throw new Interpreter.BasicException("NEXT ohne FOR");
+        Interpreter.ForFrame f = c.peekFor();
+        if (f.slot != slot) throw new Interpreter.BasicException("NEXT für falsche Variable (erwartet " + f.var + ")");
+        double cur = c.rt.nums[f.slot] + f.step;
+        c.rt.nums[f.slot] = cur;
+        boolean cont = f.step >= 0 ? (cur <= f.end) : (cur >= f.end);
+        if (cont) c.jumpPc = f.pcAfterFor;
+        else {
+            c.popFor();
+            if (f.loop != null) f.loop.unhoist();
+        }
+    }
+
+    static int dimSize(double d) {
+        int v = (int)Math.floor(d);
+        if (v <= 0) throw new Interpreter.BasicException("DIM: Dimension > 0 nötig");
+        return v;
+    }
+
+    /** Meldet einen Typfehler; die Operanden sind zu diesem Zeitpunkt bereits ausgewertet. */
+    static double typeError(String message, Object... evaluatedOperands) {
+        throw new Interpreter.BasicException(message);
+    }
+
+    static Interpreter.Value callValues(Interpreter rt, BuiltinFunction fn, Interpreter.Value... args) {
+        return callList(rt, fn, Arrays.asList(args));
+    }
+
+    // alle Builtin-Aufrufe (Knoten, VM, generierter Code) laufen hierüber; dauert einer länger
+    // als die Schwelle, entsteht bei laufender Aufzeichnung ein Events.BuiltinCall
+    static Interpreter.Value call0(Interpreter rt, BuiltinFunction fn) {
+        Events.BuiltinCall ev = new Events.BuiltinCall();
+        ev.begin();
+        Interpreter.Value r = fn.call0(rt);
+        Events.builtin(ev, rt, fn);
+        return r;
+    }
+    static Interpreter.Value call1(Interpreter rt, BuiltinFunction fn, Interpreter.Value a) {
+        Events.BuiltinCall ev = new Events.BuiltinCall();
+        ev.begin();
+        Interpreter.Value r = fn.call1(rt, a);
+        Events.builtin(ev, rt, fn);
+        return r;
+    }
+    static Interpreter.Value call2(Interpreter rt, BuiltinFunction fn, Interpreter.Value a, Interpreter.Value b) {
+        Events.BuiltinCall ev = new Events.BuiltinCall();
+        ev.begin();
+        Interpreter.Value r = fn.call2(rt, a, b);
+        Events.builtin(ev, rt, fn);
+        return r;
+    }
+    static Interpreter.Value call3(Interpreter rt, BuiltinFunction fn, Interpreter.Value a, Interpreter.Value b, Interpreter.Value c) {
+        Events.BuiltinCall ev = new Events.BuiltinCall();
+        ev.begin();
+        Interpreter.Value r = fn.call3(rt, a, b, c);
+        Events.builtin(ev, rt, fn);
+        return r;
+    }
+    static Interpreter.Value callList(Interpreter rt, BuiltinFunction fn, List<Interpreter.Value> args) {
+        Events.BuiltinCall ev = new Events.BuiltinCall();
+        ev.begin();
+        Interpreter.Value r = fn.call(rt, args);
+        Events.builtin(ev, rt, fn);
+        return r;
+    }
+
+    // Parser/Optimizer: 1D/2D bekommen eigene Knoten, sonst der allgemeine Zugriff
+    static Interpreter.NumExpr numArray(int slot, String name, Interpreter.NumExpr[] idx) {
+        if (idx.length == 1) return new NumArray1(slot, name, idx[0]);
+        if (idx.length == 2) return new NumArray2(slot, name, idx[0], idx[1]);
+        return new NumArrayRef(slot, name, idx);
+    }
+    static Interpreter.StrExpr strArray(int slot, String name, Interpreter.NumExpr[] idx) {
+        if (idx.length == 1) return new StrArray1(slot, name, idx[0]);
+        if (idx.length == 2) return new StrArray2(slot, name, idx[0], idx[1]);
+        return new StrArrayRef(slot, name, idx);
+    }
+    static Interpreter.Statement arrayAssign(int slot, String name, Interpreter.NumExpr[] idx, Interpreter.Expr value) {
+        if (idx.length == 1) return new ArrayStore1(slot, name, idx[0], value);
+        if (idx.length == 2) return new ArrayStore2(slot, name, idx[0], idx[1], value);
+        return new ArrayAssign(slot, name, idx, value);
+    }
+
+    // geprüfte 1D-/2D-Zugriffe (auch für generierten Code)
+    static double num1(Interpreter rt, int slot, int i) { Interpreter.ArrayVar a = rt.array(slot); return a.num(a.index1(i)); }
+    static double num2(Interpreter rt, int slot, int i, int j) { Interpreter.ArrayVar a = rt.array(slot); return a.num(a.index2(i, j)); }
+    static CharSequence str1(Interpreter rt, int slot, int i) { Interpreter.ArrayVar a = rt.array(slot); return a.str(a.index1(i)); }
+    static CharSequence str2(Interpreter rt, int slot, int i, int j) { Interpreter.ArrayVar a = rt.array(slot); return a.str(a.index2(i, j)); }
+    static void store1(Interpreter rt, int slot, int i, double d) { Interpreter.ArrayVar a = rt.array(slot); a.setNum(a.index1(i), d); }
+    static void store1(Interpreter rt, int slot, int i, CharSequence s) { Interpreter.ArrayVar a = rt.array(slot); a.setStr(a.index1(i), s); }
+    static void store2(Interpreter rt, int slot, int i, int j, double d) { Interpreter.ArrayVar a = rt.array(slot); a.setNum(a.index2(i, j), d); }
+    static void store2(Interpreter rt, int slot, int i, int j, CharSequence s) { Interpreter.ArrayVar a = rt.array(slot); a.setStr(a.index2(i, j), s); }
+
+    static int[] indices(Interpreter rt, Interpreter.NumExpr[] idx) {
+        int[] ii = new int[idx.length];
+        for (int i = 0; i < ii.length; i++) ii[i] = (int)Math.floor(idx[i].evalNumber(rt));
+        return ii;
+    }
+
+    // bis 3 Argumente ohne Liste; Argumente von links nach rechts ausgewertet
+    // Literale als Konstanten an die Funktion (auch nach dem Falten im Optimierer wieder)
+    static BuiltinFunction specialize(BuiltinFunction fn, Interpreter.Expr[] args) {
+        Interpreter.Value[] constants = new Interpreter.Value[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof NumLit n) constants[i] = Interpreter.Value.number(n.value);
+            else if (args[i] instanceof StrLit s) constants[i] = Interpreter.Value.string(s.value);
+        }
+        return fn.specialize(constants);
+    }
+
+    static Interpreter.Value call(Interpreter rt, BuiltinFunction fn, Interpreter.Expr[] args) {
+        switch (args.length) {
+            case 0: return call0(rt, fn);
+            case 1: return call1(rt, fn, args[0].eval(rt));
+            case 2: return call2(rt, fn, args[0].eval(rt), args[1].eval(rt));
+            case 3: return call3(rt, fn, args[0].eval(rt), args[1].eval(rt), args[2].eval(rt));
+            default:
+                List<Interpreter.Value> values = new ArrayList<>(args.length);
+                for (Interpreter.Expr e : args) values.add(e.eval(rt));
+                return callList(rt, fn, values);
+        }
+    }
+
+    static double div(double x, double y) {
+        if (y == 0.0) throw new Interpreter.BasicException("Division durch 0");
+        return x / y;
+    }
+
+    static final int EQ = 0, NE = 1, LT = 2, LE = 3, GT = 4, GE = 5;
+
+    static int relopCode(String op) {
+        return switch (op) {
+            case "=" -> EQ;
+            case "<>" -> NE;
+            case "<" -> LT;
+            case "<=" -> LE;
+            case ">" -> GT;
+            case ">=" -> GE;
+            default -> throw new Interpreter.BasicException("Unbekannter Vergleich: " + op);
+        };
+    }
+
+    static boolean test(int code, int cmp) {
+        switch (code) {
+            case EQ: return cmp == 0;
+            case NE: return cmp != 0;
+            case LT: return cmp < 0;
+            case LE: return cmp <= 0;
+            case GT: return cmp > 0;
+            default: return cmp >= 0;
+        }
+    }
+}
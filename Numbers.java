@@ -0,0 +1,133 @@
+/**
+ * Zahlen lesen und schreiben ohne Ausnahmen und ohne Umweg über Double.toString/substring.
+ *
+ * parse liefert genau den Wert von Double.parseDouble (gleiche Syntax inkl. Leerraum, Exponent,
+ * NaN/Infinity, Hex), für alles andere 0. Einfache Dezimalzahlen rechnet es selbst aus, der Rest
+ * wird erst geprüft und dann an Double.parseDouble gegeben, das dann nicht mehr werfen kann.
+ * format schreibt wie bisher "3", "-0", "2.5", "1.0E7": ganze Zahlen unter 10^7 ohne ".0",
+ * alles andere wie Double.toString.
+ */
+final class Numbers {
+    /** Höchstens so viele Zeichen schreibt format(d, dst, at), z. B. "-2.2250738585072014E-308". */
+    static final int MAX_CHARS = 24;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private Numbers() {}
+
+    /** Wert von s wie Double.parseDouble, keine Zahl -> 0. */
+    static double parse(CharSequence s) {
+        int i = 0, n = s.length();
+        while (i < n && s.charAt(i) <= ' ') i++;
+        while (n > i && s.charAt(n - 1) <= ' ') n--;
+        boolean neg = false;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) neg = s.charAt(i++) == '-';
+        // [Ziffern][.Ziffern] wie im Tokenizer: bis 15 signifikante Stellen und 22 Nachkommastellen
+        // sind Mantisse und Zehnerpotenz exakt, die eine Division rundet wie Double.parseDouble
+        long mantissa = 0;
+        int digits = 0, fraction = 0, seen = 0;
+        boolean dot = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seen++;
+                if (digits > 0 || c != '0') digits++;
+                if (digits <= 15) mantissa = mantissa * 10 + (c - '0');
+                if (dot) fraction++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else break;
+        }
+        if (i == n && seen > 0 && digits <= 15 && fraction <= 22) {
+            double d = mantissa / POW10[fraction];
+            return neg ? -d : d;
+        }
+        // Exponent, Suffix, NaN/Infinity, Hex, lange Mantisse - oder keine Zahl
+        if (!isNumber(s)) return 0.0;
+        return Double.parseDouble(s.toString());
+    }
+
+    /** true, wenn Double.parseDouble(s) nicht wirft. */
+    static boolean isNumber(CharSequence s) {
+        int i = 0, n = s.length();
+        while (i < n && s.charAt(i) <= ' ') i++;
+        while (n > i && s.charAt(n - 1) <= ' ') n--;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+        if (i == n) return false;
+        if (s.charAt(i) == 'N' || s.charAt(i) == 'I') {
+            String rest = s.subSequence(i, n).toString();
+            return rest.equals("NaN") || rest.equals("Infinity");
+        }
+        if (n - i > 2 && s.charAt(i) == '0' && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) return isHex(s, i + 2, n);
+        int mant = 0;
+        int j = digits(s, i, n);
+        mant += j - i;
+        if (j < n && s.charAt(j) == '.') { int k = digits(s, j + 1, n); mant += k - j - 1; j = k; }
+        if (mant == 0) return false;
+        if (j < n && (s.charAt(j) == 'e' || s.charAt(j) == 'E')) {
+            j++;
+            if (j < n && (s.charAt(j) == '-' || s.charAt(j) == '+')) j++;
+            int k = digits(s, j, n);
+            if (k == j) return false;
+            j = k;
+        }
+        return j == n || (j == n - 1 && isSuffix(s.charAt(j)));
+    }
+
+    // 0x: Hexziffern [. Hexziffern] (mindestens eine), dann Pflicht-Exponent p[+-]Ziffern, Suffix
+    private static boolean isHex(CharSequence s, int i, int n) {
+        int mant = 0, j = i;
+        while (j < n && isHexDigit(s.charAt(j))) { j++; mant++; }
+        if (j < n && s.charAt(j) == '.') {
+            j++;
+            while (j < n && isHexDigit(s.charAt(j))) { j++; mant++; }
+        }
+        if (mant == 0 || j == n || (s.charAt(j) != 'p' && s.charAt(j) != 'P')) return false;
+        j++;
+        if (j < n && (s.charAt(j) == '-' || s.charAt(j) == '+')) j++;
+        int k = digits(s, j, n);
+        if (k == j) return false;
+        return k == n || (k == n - 1 && isSuffix(s.charAt(k)));
+    }
+
+    private static int digits(CharSequence s, int i, int n) {
+        while (i < n && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+        return i;
+    }
+
+    private static boolean isHexDigit(char c) { return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'); }
+    private static boolean isSuffix(char c) { return c == 'd' || c == 'D' || c == 'f' || c == 'F'; }
+
+    /** Zahl als Text wie bei PRINT. */
+    static String format(double d) {
+        if (isSmallInteger(d)) {
+            long v = (long) d;
+            if (v == 0) return (1 / d < 0) ? "-0" : "0";
+            return Long.toString(v);
+        }
+        return Double.toString(d);
+    }
+
+    /** Wie format, aber nach dst ab at (Platz für MAX_CHARS nötig); liefert das neue Ende. Ganze Zahlen ohne Allokation. */
+    static int format(double d, char[] dst, int at) {
+        if (!isSmallInteger(d)) {
+            String s = Double.toString(d);
+            s.getChars(0, s.length(), dst, at);
+            return at + s.length();
+        }
+        int v = (int) d;
+        if (v < 0 || (v == 0 && 1 / d < 0)) { dst[at++] = '-'; v = -v; }
+        int len = 1;
+        for (int t = v; t >= 10; t /= 10) len++;
+        int end = at + len;
+        for (int p = end - 1; p >= at; p--) { dst[p] = (char) ('0' + v % 10); v /= 10; }
+        return end;
+    }
+
+    // ganzzahlig und |d| < 10^7: dort schreibt Double.toString "123.0", darüber "1.0E7"
+    private static boolean isSmallInteger(double d) {
+        return d > -1e7 && d < 1e7 && d == (long) d;
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Zahlen-Array außerhalb des Java-Heaps: direkt angelegt (ByteBuffer.allocateDirect) oder als
+ * Abbild einer Datei (DIM ... AS FILE). Der GC sieht nur die Pufferobjekte, nicht die Daten;
+ * große Arrays verlängern also keine GC-Pausen und brauchen kein großes -Xmx.
+ *
+ * Ein ByteBuffer fasst höchstens 2 GiB, daher liegen die Elemente in Stücken zu 2^24 Zahlen
+ * (128 MiB); der Index ist ein long. Die Datei enthält nur die Zahlen, je 8 Bytes little-endian,
+ * zeilenweise wie der flache Index (A(1,1), A(1,2), ...). Eine neue Datei wird in voller Größe
+ * angelegt, bleibt aber dünn besetzt, bis Seiten beschrieben werden; die Werte bleiben nach dem
+ * Lauf in der Datei und sind beim nächsten DIM mit gleicher Größe wieder da.
+ *
+ * Direkter Speicher ist durch -XX:MaxDirectMemorySize begrenzt (Standard: so groß wie -Xmx).
+ * Reicht er nicht, bildet allocate stattdessen eine gleich wieder gelöschte temporäre Datei ab;
+ * dafür gilt die Grenze nicht, und nur beschriebene Seiten belegen Speicher.
+ */
+final class OffHeap {
+    private static final int CHUNK_SHIFT = 24;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    final long size;
+    private final ByteBuffer[] chunks;
+
+    private OffHeap(long size, ByteBuffer[] chunks) { this.size = size; this.chunks = chunks; }
+
+    /** size Zahlen, mit 0 belegt. */
+    static OffHeap allocate(long size) {
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(size)];
+        try {
+            for (int i = 0; i < chunks.length; i++) chunks[i] = ByteBuffer.allocateDirect(chunkBytes(size, i)).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (OutOfMemoryError ex) {
+            return temporary(size);
+        }
+        return new OffHeap(size, chunks);
+    }
+
+    // Abbild einer temporären Datei; unter Linux/macOS sofort gelöscht (das Abbild bleibt), sonst beim Beenden
+    private static OffHeap temporary(long size) {
+        Path tmp;
+        try { tmp = Files.createTempFile("minibasic", ".dat"); }
+        catch (IOException ex) { throw new Interpreter.BasicException("DIM: kein Speicher für " + size + " Zahlen: " + ex.getMessage()); }
+        try {
+            return map(tmp, size);
+        } finally {
+            try { Files.delete(tmp); }
+            catch (IOException ex) { tmp.toFile().deleteOnExit(); }
+        }
+    }
+
+    /** size Zahlen aus der Datei file; fehlt sie oder ist sie leer, wird sie mit Nullen angelegt. */
+    static OffHeap map(Path file, long size) {
+        long bytes = size * Double.BYTES;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long have = ch.size();
+            if (have != 0 && have != bytes) {
+                throw new Interpreter.BasicException("DIM AS FILE: " + file + " hat " + have + " Bytes, erwartet " + bytes + " (" + size + " Zahlen)");
+            }
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount(size)];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = ch.map(FileChannel.MapMode.READ_WRITE, (long) i << (CHUNK_SHIFT + 3), chunkBytes(size, i)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new OffHeap(size, chunks);                  // das Abbild bleibt nach dem Schließen gültig
+        } catch (IOException ex) {
+            throw new Interpreter.BasicException("DIM AS FILE: " + file + ": " + ex.getMessage());
+        }
+    }
+
+    private static int chunkCount(long size) { return (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT); }
+    private static int chunkBytes(long size, int i) { return (int) (Math.min(size - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT) * Double.BYTES); }
+
+    double get(long i) { return chunks[(int) (i >>> CHUNK_SHIFT)].getDouble((int) (i & CHUNK_MASK) << 3); }
+    void set(long i, double d) { chunks[(int) (i >>> CHUNK_SHIFT)].putDouble((int) (i & CHUNK_MASK) << 3, d); }
+}
@@ -0,0 +1,449 @@
+import java.util.*;
+
+/**
+ * Optimierung zwischen Parser und Ausführung (OPTIMIZE ON):
+ *  - Konstantenfaltung: Teilausdrücke aus Literalen werden vorab ausgerechnet
+ *  - reine Builtins (BuiltinFunction.pure) mit konstanten Argumenten werden gefaltet
+ *  - IF mit konstanter Bedingung wird zu GOTO bzw. entfällt; Statements hinter
+ *    GOTO/END/RETURN/GOSUB in derselben Zeile entfallen
+ *  - Erreichbarkeit (reachable): Zeilen, die von Zeile 1 aus nicht erreichbar sind,
+ *    müssen nicht übersetzt werden (siehe Interpreter.compileProgram)
+ *  - vorgezogene Indexprüfung (hoistBoundsChecks): Array-Zugriffe in FOR-Schleifen werden
+ *    einmal beim Eintritt statt bei jedem Durchlauf geprüft
+ * Ausdrücke, deren Auswertung einen Fehler wirft (z. B. 1/0, SQR(-1)), bleiben stehen,
+ * damit der Fehler wie bisher zur Laufzeit mit der richtigen Zeile gemeldet wird.
+ */
+final class Optimizer {
+    private final Interpreter rt;
+
+    Optimizer(Interpreter rt) { this.rt = rt; }
+
+    /* ============================ STATEMENTS ============================ */
+    Interpreter.Statement statement(Interpreter.Statement st) {
+        if (st instanceof Nodes.Seq q) {
+            List<Interpreter.Statement> parts = new ArrayList<>();
+            for (Interpreter.Statement p : q.parts) {
+                Interpreter.Statement o = statement(p);
+                if (!(o instanceof Nodes.Nop)) parts.add(o);
+                if (!fallsThrough(o) || o instanceof Nodes.Gosub) break;   // Rest der Zeile wird nie ausgeführt
+            }
+            if (parts.isEmpty()) return Nodes.Nop.INSTANCE;
+            if (parts.size() == 1) return parts.get(0);
+            return new Nodes.Seq(parts.toArray(new Interpreter.Statement[0]));
+        }
+        if (st instanceof Nodes.Print p) {
+            Interpreter.Expr[] parts = new Interpreter.Expr[p.parts.length];
+            for (int i = 0; i < parts.length; i++) parts[i] = expr(p.parts[i]);
+            return new Nodes.Print(parts, p.seps);
+        }
+        if (st instanceof Nodes.NumAssign a) return new Nodes.NumAssign(a.slot, a.name, num(a.value));
+        if (st instanceof Nodes.StrAssign a) return new Nodes.StrAssign(a.slot, a.name, str(a.value));
+        if (st instanceof Nodes.ArrayAssign a) return new Nodes.ArrayAssign(a.slot, a.name, nums(a.idx), expr(a.value));
+        if (st instanceof Nodes.ArrayStore1 a) return Nodes.arrayAssign(a.slot, a.name, nums(a.indices()), expr(a.value));
+        if (st instanceof Nodes.ArrayStore2 a) return Nodes.arrayAssign(a.slot, a.name, nums(a.indices()), expr(a.value));
+        if (st instanceof Nodes.IfJump j) {
+            Interpreter.NumExpr c = num(j.cond);
+            if (c instanceof Nodes.NumLit l) return (l.value != 0.0) ? new Nodes.Goto(j.line) : Nodes.Nop.INSTANCE;
+            return new Nodes.IfJump(c, j.line);
+        }
+        if (st instanceof Nodes.IfThen t) {
+            Interpreter.NumExpr c = num(t.cond);
+            Interpreter.Statement inner = statement(t.inner);
+            if (c instanceof Nodes.NumLit l) return (l.value != 0.0) ? inner : Nodes.Nop.INSTANCE;
+            return new Nodes.IfThen(c, inner);
+        }
+        if (st instanceof Nodes.Goto g) return new Nodes.Goto(g.line);
+        if (st instanceof Nodes.Gosub g) return new Nodes.Gosub(g.line);
+        if (st instanceof Nodes.For f)
+            return new Nodes.For(f.slot, f.name, num(f.start), num(f.end), f.step == null ? null : num(f.step));
+        if (st instanceof Nodes.Dim d) {
+            Nodes.DimDef[] defs = new Nodes.DimDef[d.defs.length];
+            for (int i = 0; i < defs.length; i++)
+                defs[i] = new Nodes.DimDef(d.defs[i].slot, d.defs[i].name, d.defs[i].stringType, nums(d.defs[i].dims),
+                        d.defs[i].file == null ? null : str(d.defs[i].file));
+            return new Nodes.Dim(defs);
+        }
+        if (st instanceof Nodes.Randomize r) return new Nodes.Randomize(r.seed == null ? null : num(r.seed));
+        if (st instanceof Nodes.CallStmt c) return new Nodes.CallStmt(c.name, c.fn, exprs(c.args));
+        return st; // Nop, Input, Return, Next, End und Unbekanntes unverändert
+    }
+
+    /** Kann die Ausführung nach diesem Statement mit der nächsten Zeile weitergehen? */
+    static boolean fallsThrough(Interpreter.Statement st) {
+        if (st instanceof Nodes.Goto || st instanceof Nodes.End || st instanceof Nodes.Return) return false;
+        if (st instanceof Nodes.Seq q) {
+            for (Interpreter.Statement p : q.parts) if (!fallsThrough(p)) return false;
+        }
+        return true;
+    }
+
+    /** Nur für diese Statement-Arten sind alle Sprungziele bekannt (Jump-Knoten, RETURN/NEXT siehe reachable). */
+    static boolean analyzable(Interpreter.Statement st) {
+        if (st instanceof Nodes.Seq q) {
+            for (Interpreter.Statement p : q.parts) if (!analyzable(p)) return false;
+            return true;
+        }
+        if (st instanceof Nodes.IfThen t) return analyzable(t.inner);
+        return st.getClass().getEnclosingClass() == Nodes.class;
+    }
+
+    /** Sammelt die Sprung-Knoten eines (optimierten) Statements zum Binden der Ziele. */
+    static void jumps(Interpreter.Statement st, List<Nodes.Jump> out) {
+        if (st instanceof Nodes.Jump j) out.add(j);
+        else if (st instanceof Nodes.IfThen t) jumps(t.inner, out);
+        else if (st instanceof Nodes.Seq q) for (Interpreter.Statement p : q.parts) jumps(p, out);
+    }
+
+    // Anzahl FOR-Anweisungen (auch hinter IF ... THEN)
+    private static int fors(Interpreter.Statement st) {
+        if (st instanceof Nodes.For) return 1;
+        if (st instanceof Nodes.IfThen t) return fors(t.inner);
+        int n = 0;
+        if (st instanceof Nodes.Seq q) for (Interpreter.Statement p : q.parts) n += fors(p);
+        return n;
+    }
+
+    /* ============================ AUSDRÜCKE ============================ */
+    Interpreter.Expr expr(Interpreter.Expr e) {
+        return (e instanceof Interpreter.NumExpr n) ? num(n) : str((Interpreter.StrExpr) e);
+    }
+
+    private Interpreter.Expr[] exprs(Interpreter.Expr[] es) {
+        Interpreter.Expr[] r = new Interpreter.Expr[es.length];
+        for (int i = 0; i < r.length; i++) r[i] = expr(es[i]);
+        return r;
+    }
+
+    private Interpreter.NumExpr[] nums(Interpreter.NumExpr[] es) {
+        Interpreter.NumExpr[] r = new Interpreter.NumExpr[es.length];
+        for (int i = 0; i < r.length; i++) r[i] = num(es[i]);
+        return r;
+    }
+
+    Interpreter.NumExpr num(Interpreter.NumExpr e) {
+        if (e instanceof Nodes.Neg n) {
+            Interpreter.NumExpr x = num(n.e);
+            return (x instanceof Nodes.NumLit l) ? new Nodes.NumLit(-l.value) : new Nodes.Neg(x);
+        }
+        if (e instanceof Nodes.NumBinary b) {
+            Interpreter.NumExpr x = num(b.a), y = num(b.b);
+            Nodes.NumBinary n = new Nodes.NumBinary(b.op, x, y);
+            return (x instanceof Nodes.NumLit && y instanceof Nodes.NumLit) ? constantNum(n) : n;
+        }
+        if (e instanceof Nodes.NumCompare c) {
+            Interpreter.NumExpr a = num(c.a), b = num(c.b);
+            Nodes.NumCompare n = new Nodes.NumCompare(c.op, a, b);
+            return (a instanceof Nodes.NumLit && b instanceof Nodes.NumLit) ? constantNum(n) : n;
+        }
+        if (e instanceof Nodes.StrCompare c) {
+            Interpreter.StrExpr a = str(c.a), b = str(c.b);
+            Nodes.StrCompare n = new Nodes.StrCompare(c.op, a, b);
+            return (a instanceof Nodes.StrLit && b instanceof Nodes.StrLit) ? constantNum(n) : n;
+        }
+        if (e instanceof Nodes.StrTruth t) {
+            Interpreter.StrExpr s = str(t.e);
+            Nodes.StrTruth n = new Nodes.StrTruth(s);
+            return (s instanceof Nodes.StrLit) ? constantNum(n) : n;
+        }
+        if (e instanceof Nodes.StrToNum t) {
+            Interpreter.StrExpr s = str(t.e);
+            Nodes.StrToNum n = new Nodes.StrToNum(s);
+            return (s instanceof Nodes.StrLit) ? constantNum(n) : n;
+        }
+        if (e instanceof Nodes.NumArrayRef a) return new Nodes.NumArrayRef(a.slot, a.name, nums(a.idx));
+        if (e instanceof Nodes.ArrayAccess a) return Nodes.numArray(a.slot(), a.name(), nums(a.indices()));
+        if (e instanceof Nodes.NumCall c) {
+            Nodes.NumCall n = new Nodes.NumCall(c.name, c.fn, exprs(c.args));
+            return pureConstantArgs(n.fn, n.args) ? constantNum(n) : n;
+        }
+        if (e instanceof Nodes.TypeError t) return new Nodes.TypeError(t.message, exprs(t.operands));
+        return e; // NumLit, NumVar, Unbekanntes
+    }
+
+    Interpreter.StrExpr str(Interpreter.StrExpr e) {
+        if (e instanceof Nodes.Concat c) {
+            Interpreter.StrExpr a = str(c.a), b = str(c.b);
+            Nodes.Concat n = new Nodes.Concat(a, b);
+            return (a instanceof Nodes.StrLit && b instanceof Nodes.StrLit) ? constantStr(n) : n;
+        }
+        if (e instanceof Nodes.NumToStr t) {
+            Interpreter.NumExpr x = num(t.e);
+            Nodes.NumToStr n = new Nodes.NumToStr(x);
+            return (x instanceof Nodes.NumLit) ? constantStr(n) : n;
+        }
+        if (e instanceof Nodes.StrArrayRef a) return new Nodes.StrArrayRef(a.slot, a.name, nums(a.idx));
+        if (e instanceof Nodes.ArrayAccess a) return Nodes.strArray(a.slot(), a.name(), nums(a.indices()));
+        if (e instanceof Nodes.StrCall c) {
+            Nodes.StrCall n = new Nodes.StrCall(c.name, c.fn, exprs(c.args));
+            return pureConstantArgs(n.fn, n.args) ? constantStr(n) : n;
+        }
+        return e; // StrLit, StrVar, Unbekanntes
+    }
+
+    private static boolean pureConstantArgs(BuiltinFunction f, Interpreter.Expr[] args) {
+        if (!f.pure()) return false;
+        for (Interpreter.Expr a : args) if (!(a instanceof Nodes.NumLit || a instanceof Nodes.StrLit)) return false;
+        return true;
+    }
+
+    // Auswertung zur Übersetzungszeit; bei Fehlern bleibt der Knoten (Fehler zur Laufzeit)
+    private Interpreter.NumExpr constantNum(Interpreter.NumExpr e) {
+        try { return new Nodes.NumLit(e.evalNumber(rt)); }
+        catch (RuntimeException ex) { return e; }
+    }
+
+    private Interpreter.StrExpr constantStr(Interpreter.StrExpr e) {
+        try { return new Nodes.StrLit(e.evalString(rt).toString()); }
+        catch (RuntimeException ex) { return e; }
+    }
+
+    /* ============================ SCHLEIFEN ============================ */
+
+    /**
+     * Vorgezogene Indexprüfung. Eine FOR-Schleife eignet sich, wenn ihr Rumpf (Folgezeile bis
+     * zum ersten NEXT der Variable) geschlossen ist: kein GOSUB/RETURN/DIM, Sprünge nur innerhalb
+     * des Rumpfs, kein Sprung von außen hinein (auch nicht über das NEXT eines zweiten FOR in der
+     * Kopfzeile) und keine Zuweisung an die Laufvariable. Dann liegt
+     * die Laufvariable im Rumpf immer zwischen Start- und Endwert, und Variablen ohne Zuweisung im
+     * Rumpf behalten ihren Wert vom Eintritt. 1D/2D-Zugriffe, deren Indizes nur daraus (plus/minus
+     * Konstante) bestehen, prüft der FOR-Knoten beim Eintritt (Nodes.For.hoist); jeder Zugriff
+     * gehört zur innersten geeigneten Schleife. Ist die Prüfung dort nicht sicher, bleibt es bei
+     * der Prüfung je Zugriff mit denselben Fehlermeldungen. Endet die Schleife, prüfen die Zugriffe
+     * wieder selbst (Nodes.next).
+     * @return die FOR-Knoten mit Guards (werden bei der nächsten Übersetzung zurückgesetzt)
+     */
+    static List<Nodes.For> hoistBoundsChecks(Interpreter.Statement[] program, int[] lines) {
+        int n = program.length;
+        // Sprungquellen je Ziel (kleinste/größte), NEXT-Zeilen je Variable
+        int[] minSrc = new int[n], maxSrc = new int[n], fors = new int[n];
+        Arrays.fill(minSrc, Integer.MAX_VALUE);
+        Arrays.fill(maxSrc, -1);
+        Map<String, List<Integer>> nexts = new HashMap<>();
+        List<Nodes.Jump> js = new ArrayList<>();
+        for (int p = 0; p < n; p++) {
+            if (program[p] == null || !analyzable(program[p])) return List.of(); // Sprungziele unbekannt
+            js.clear();
+            jumps(program[p], js);
+            for (Nodes.Jump j : js) {
+                int t = Arrays.binarySearch(lines, j.line());
+                if (t < 0) continue;
+                minSrc[t] = Math.min(minSrc[t], p);
+                maxSrc[t] = Math.max(maxSrc[t], p);
+            }
+            fors[p] = fors(program[p]);
+            for (Interpreter.Statement s : parts(program[p]))
+                if (s instanceof Nodes.Next x) nexts.computeIfAbsent(x.name, k -> new ArrayList<>()).add(p);
+        }
+
+        List<Nodes.For> hoisted = new ArrayList<>();
+        Set<Nodes.ArrayAccess> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int f = n - 1; f >= 0; f--) {                  // innere Schleifen zuerst
+            Interpreter.Statement[] head = parts(program[f]);
+            int k = head.length - 1;
+            while (k >= 0 && !(head[k] instanceof Nodes.For)) k--;
+            if (k < 0) continue;
+            Nodes.For loop = (Nodes.For) head[k];
+            List<Integer> ns = nexts.get(loop.name);
+            if (ns == null) continue;
+            int at = Collections.binarySearch(ns, f + 1);
+            if (at < 0) at = -at - 1;
+            if (at == ns.size()) continue;
+            int end = ns.get(at);
+            Interpreter.Statement[] tail = parts(program[end]);
+            int nextAt = 0;
+            while (!(tail[nextAt] instanceof Nodes.Next x && x.name.equals(loop.name))) nextAt++;
+
+            // NEXT setzt in der Zeile nach dem FOR fort. Für FORs im Rumpf bleibt das im Rumpf, ein
+            // weiterer FOR in Zeile f (FOR I = 1 TO 5 : FOR J = 1 TO 5) springt aber von außen hinein
+            boolean ok = fors[f] == 1;
+            for (int t = f + 1; t <= end && ok; t++)
+                ok = maxSrc[t] < 0 || (minSrc[t] > f && maxSrc[t] <= end);
+            BitSet assigned = new BitSet();
+            for (int i = 0; i < head.length && ok; i++)   // vor dem FOR Zugewiesenes zählt nicht (Prüfung danach)
+                ok = i == k || closed(head[i], f + 1, end, loop.name, lines, i < k ? new BitSet() : assigned);
+            for (int p = f + 1; p < end && ok; p++) ok = closed(program[p], f + 1, end, loop.name, lines, assigned);
+            for (int i = 0; i < nextAt && ok; i++) ok = closed(tail[i], f + 1, end, loop.name, lines, assigned);
+            for (int i = nextAt + 1; i < tail.length && ok; i++) {   // hinter NEXT: läuft nach der Schleife
+                js.clear();
+                jumps(tail[i], js);
+                for (Nodes.Jump j : js) {
+                    int t = Arrays.binarySearch(lines, j.line());
+                    if (t > f && t <= end) ok = false;
+                }
+            }
+            if (!ok || assigned.get(loop.slot)) continue;
+
+            List<Nodes.ArrayAccess> found = new ArrayList<>();
+            for (int p = f + 1; p < end; p++) statementAccesses(program[p], found);
+            for (int i = 0; i < nextAt; i++) statementAccesses(tail[i], found);
+            List<Nodes.Guard> guards = new ArrayList<>();
+            for (Nodes.ArrayAccess a : found) {
+                if (!taken.add(a)) continue;
+                Nodes.Guard g = guard(a, loop, assigned);
+                if (g != null) guards.add(g);
+            }
+            if (guards.isEmpty()) continue;
+            loop.guards = guards.toArray(new Nodes.Guard[0]);
+            hoisted.add(loop);
+        }
+        return hoisted;
+    }
+
+    private static Interpreter.Statement[] parts(Interpreter.Statement st) {
+        return (st instanceof Nodes.Seq q) ? q.parts : new Interpreter.Statement[] { st };
+    }
+
+    // Statement im Schleifenrumpf: bleibt die Ausführung im Rumpf [from, to]? Merkt zugewiesene Zahl-Slots.
+    private static boolean closed(Interpreter.Statement st, int from, int to, String var, int[] lines, BitSet assigned) {
+        if (st instanceof Nodes.Seq q) {
+            for (Interpreter.Statement p : q.parts) if (!closed(p, from, to, var, lines, assigned)) return false;
+            return true;
+        }
+        if (st instanceof Nodes.IfThen t) return closed(t.inner, from, to, var, lines, assigned);
+        if (st instanceof Nodes.Goto || st instanceof Nodes.IfJump) {
+            int t = Arrays.binarySearch(lines, ((Nodes.Jump) st).line());
+            return t >= from && t <= to;
+        }
+        if (st instanceof Nodes.Next x) return !x.name.equals(var);   // bedingtes NEXT: Rumpf läuft nach dem Ende weiter
+        if (st instanceof Nodes.NumAssign a) { assigned.set(a.slot); return true; }
+        if (st instanceof Nodes.For f) { assigned.set(f.slot); return true; }
+        if (st instanceof Nodes.Input in) { if (!Interpreter.isStringName(in.name)) assigned.set(in.slot); return true; }
+        return st instanceof Nodes.Nop || st instanceof Nodes.Print || st instanceof Nodes.StrAssign
+                || st instanceof Nodes.ArrayAssign || st instanceof Nodes.ArrayStore1 || st instanceof Nodes.ArrayStore2
+                || st instanceof Nodes.End || st instanceof Nodes.Randomize || st instanceof Nodes.CallStmt;
+    }
+
+    // Index-Formen: Laufvariable +/- Konstante, unveränderte Variable +/- Konstante, Konstante
+    private static Nodes.Guard guard(Nodes.ArrayAccess a, Nodes.For loop, BitSet assigned) {
+        Interpreter.NumExpr[] idx = a.indices();
+        int[] kind = new int[idx.length], var = new int[idx.length];
+        double[] offset = new double[idx.length];
+        for (int d = 0; d < idx.length; d++) {
+            Interpreter.NumExpr e = idx[d];
+            if (e instanceof Nodes.NumLit l) { kind[d] = Nodes.Guard.CONST; offset[d] = l.value; continue; }
+            Nodes.NumVar v = null;
+            if (e instanceof Nodes.NumVar x) v = x;
+            else if (e instanceof Nodes.NumBinary b && b.a instanceof Nodes.NumVar x && b.b instanceof Nodes.NumLit l
+                    && (b.op == '+' || b.op == '-')) { v = x; offset[d] = (b.op == '+') ? l.value : -l.value; }
+            else if (e instanceof Nodes.NumBinary b && b.a instanceof Nodes.NumLit l && b.b instanceof Nodes.NumVar x
+                    && b.op == '+') { v = x; offset[d] = l.value; }
+            if (v == null) return null;
+            if (v.slot == loop.slot) kind[d] = Nodes.Guard.LOOP;
+            else if (!assigned.get(v.slot)) { kind[d] = Nodes.Guard.VAR; var[d] = v.slot; }
+            else return null;
+        }
+        return new Nodes.Guard(a, kind, var, offset);
+    }
+
+    // alle 1D/2D-Zugriffe eines Statements (auch geschachtelt in Ausdrücken)
+    private static void statementAccesses(Interpreter.Statement st, List<Nodes.ArrayAccess> out) {
+        if (st instanceof Nodes.Seq q) for (Interpreter.Statement p : q.parts) statementAccesses(p, out);
+        else if (st instanceof Nodes.IfThen t) { accesses(t.cond, out); statementAccesses(t.inner, out); }
+        else if (st instanceof Nodes.IfJump j) accesses(j.cond, out);
+        else if (st instanceof Nodes.Print p) for (Interpreter.Expr e : p.parts) accesses(e, out);
+        else if (st instanceof Nodes.NumAssign a) accesses(a.value, out);
+        else if (st instanceof Nodes.StrAssign a) accesses(a.value, out);
+        else if (st instanceof Nodes.ArrayAssign a) { for (Interpreter.Expr e : a.idx) accesses(e, out); accesses(a.value, out); }
+        else if (st instanceof Nodes.ArrayStore1 a) { out.add(a); accesses(a.i, out); accesses(a.value, out); }
+        else if (st instanceof Nodes.ArrayStore2 a) { out.add(a); accesses(a.i, out); accesses(a.j, out); accesses(a.value, out); }
+        else if (st instanceof Nodes.For f) {
+            accesses(f.start, out); accesses(f.end, out);
+            if (f.step != null) accesses(f.step, out);
+        }
+        else if (st instanceof Nodes.Randomize r) { if (r.seed != null) accesses(r.seed, out); }
+        else if (st instanceof Nodes.CallStmt c) for (Interpreter.Expr e : c.args) accesses(e, out);
+    }
+
+    private static void accesses(Interpreter.Expr e, List<Nodes.ArrayAccess> out) {
+        if (e instanceof Nodes.ArrayAccess a) { out.add(a); for (Interpreter.Expr i : a.indices()) accesses(i, out); }
+        else if (e instanceof Nodes.NumArrayRef a) for (Interpreter.Expr i : a.idx) accesses(i, out);
+        else if (e instanceof Nodes.StrArrayRef a) for (Interpreter.Expr i : a.idx) accesses(i, out);
+        else if (e instanceof Nodes.Neg x) accesses(x.e, out);
+        else if (e instanceof Nodes.NumBinary b) { accesses(b.a, out); accesses(b.b, out); }
+        else if (e instanceof Nodes.NumCompare c) { accesses(c.a, out); accesses(c.b, out); }
+        else if (e instanceof Nodes.StrCompare c) { accesses(c.a, out); accesses(c.b, out); }
+        else if (e instanceof Nodes.StrTruth t) accesses(t.e, out);
+        else if (e instanceof Nodes.StrToNum t) accesses(t.e, out);
+        else if (e instanceof Nodes.TypeError t) for (Interpreter.Expr o : t.operands) accesses(o, out);
+        else if (e instanceof Nodes.NumCall c) for (Interpreter.Expr a : c.args) accesses(a, out);
+        else if (e instanceof Nodes.Concat c) { accesses(c.a, out); accesses(c.b, out); }
+        else if (e instanceof Nodes.NumToStr t) accesses(t.e, out);
+        else if (e instanceof Nodes.StrCall c) for (Interpreter.Expr a : c.args) accesses(a, out);
+    }
+
+    /* ============================ DUMP ============================ */
+
+    /** Lesbare Darstellung eines Baums (voll geklammert), z. B. für DUMP. */
+    static String dumpStatement(Interpreter.Statement st) {
+        if (st instanceof Nodes.Nop) return "NOP";
+        if (st instanceof Nodes.Seq q) {
+            StringJoiner j = new StringJoiner(" : ");
+            for (Interpreter.Statement p : q.parts) j.add(dumpStatement(p));
+            return j.toString();
+        }
+        if (st instanceof Nodes.Print p) {
+            StringBuilder sb = new StringBuilder("PRINT");
+            for (int i = 0; i < p.parts.length; i++) {
+                sb.append(' ').append(dumpExpr(p.parts[i]));
+                if (i < p.seps.length) sb.append(p.seps[i]);
+            }
+            return sb.toString();
+        }
+        if (st instanceof Nodes.NumAssign a) return a.name + " = " + dumpExpr(a.value);
+        if (st instanceof Nodes.StrAssign a) return a.name + " = " + dumpExpr(a.value);
+        if (st instanceof Nodes.ArrayAssign a) return a.name + args(a.idx) + " = " + dumpExpr(a.value);
+        if (st instanceof Nodes.ArrayStore1 a) return a.name + args(a.indices()) + " = " + dumpExpr(a.value);
+        if (st instanceof Nodes.ArrayStore2 a) return a.name + args(a.indices()) + " = " + dumpExpr(a.value);
+        if (st instanceof Nodes.Input in) return "INPUT " + in.name;
+        if (st instanceof Nodes.IfJump j) return "IF " + dumpExpr(j.cond) + " GOTO " + j.line;
+        if (st instanceof Nodes.IfThen t) return "IF " + dumpExpr(t.cond) + " THEN " + dumpStatement(t.inner);
+        if (st instanceof Nodes.Goto g) return "GOTO " + g.line;
+        if (st instanceof Nodes.Gosub g) return "GOSUB " + g.line;
+        if (st instanceof Nodes.Return) return "RETURN";
+        if (st instanceof Nodes.For f) {
+            String s = "FOR " + f.name + " = " + dumpExpr(f.start) + " TO " + dumpExpr(f.end) + (f.step == null ? "" : " STEP " + dumpExpr(f.step));
+            if (f.guards == null) return s;
+            StringJoiner j = new StringJoiner(", ", s + " [Indexprüfung beim Eintritt: ", "]");
+            for (Nodes.Guard g : f.guards) j.add(g.access.name() + args(g.access.indices()));
+            return j.toString();
+        }
+        if (st instanceof Nodes.Next x) return "NEXT " + x.name;
+        if (st instanceof Nodes.Dim d) {
+            StringJoiner j = new StringJoiner(", ", "DIM ", "");
+            for (Nodes.DimDef def : d.defs) j.add(def.name + args(def.dims) + (def.file == null ? "" : " AS FILE " + dumpExpr(def.file)));
+            return j.toString();
+        }
+        if (st instanceof Nodes.Randomize r) return "RANDOMIZE" + (r.seed == null ? "" : " " + dumpExpr(r.seed));
+        if (st instanceof Nodes.End) return "END";
+        if (st instanceof Nodes.CallStmt c) return c.name + args(c.args);
+        return "<" + st.getClass().getSimpleName() + ">";
+    }
+
+    static String dumpExpr(Interpreter.Expr e) {
+        if (e instanceof Nodes.NumLit l) return Interpreter.Value.format(l.value);
+        if (e instanceof Nodes.NumVar v) return v.name;
+        if (e instanceof Nodes.NumArrayRef a) return a.name + args(a.idx);
+        if (e instanceof Nodes.ArrayAccess a) return a.name() + args(a.indices());
+        if (e instanceof Nodes.Neg n) return "(-" + dumpExpr(n.e) + ")";
+        if (e instanceof Nodes.NumBinary b) return "(" + dumpExpr(b.a) + " " + b.op + " " + dumpExpr(b.b) + ")";
+        if (e instanceof Nodes.NumCompare c) return "(" + dumpExpr(c.a) + " " + c.op + " " + dumpExpr(c.b) + ")";
+        if (e instanceof Nodes.StrCompare c) return "(" + dumpExpr(c.a) + " " + c.op + " " + dumpExpr(c.b) + ")";
+        if (e instanceof Nodes.StrTruth t) return "TRUTH(" + dumpExpr(t.e) + ")";
+        if (e instanceof Nodes.StrToNum t) return "NUM(" + dumpExpr(t.e) + ")";
+        if (e instanceof Nodes.TypeError t) return "TYPEERROR(\"" + t.message + "\")";
+        if (e instanceof Nodes.NumCall c) return c.name + args(c.args);
+        if (e instanceof Nodes.StrLit l) return "\"" + l.value.replace("\"", "\"\"") + "\"";
+        if (e instanceof Nodes.StrVar v) return v.name;
+        if (e instanceof Nodes.StrArrayRef a) return a.name + args(a.idx);
+        if (e instanceof Nodes.Concat c) return "(" + dumpExpr(c.a) + " + " + dumpExpr(c.b) + ")";
+        if (e instanceof Nodes.NumToStr t) return "STR(" + dumpExpr(t.e) + ")";
+        if (e instanceof Nodes.StrCall c) return c.name + args(c.args);
+        return "<" + e.getClass().getSimpleName() + ">";
+    }
+
+    private static String args(Interpreter.Expr[] es) {
+        StringJoiner j = new StringJoiner(", ", "(", ")");
+        for (Interpreter.Expr e : es) j.add(dumpExpr(e));
+        return j.toString();
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+
+/**
+ * Programmausgabe (PRINT, INPUT-Prompt) über einen wiederverwendbaren char-Puffer, der
+ * gesammelt kodiert und in einen NIO-Kanal geschrieben wird.
+ *
+ * Vor jedem INPUT wird immer geleert (Prompt-Reihenfolge), ebenso am Ende eines RUN.
+ * Sonst bestimmt die {@link Flush}-Strategie, wann geschrieben wird.
+ * Nicht threadsicher: gedacht für den einen Thread, der das Programm ausführt.
+ */
+public final class OutputSink {
+    /** Wann die gepufferte Ausgabe geschrieben wird. */
+    public enum Flush {
+        LINE,   // nach jeder Zeile (interaktiv)
+        SIZE,   // wenn der Puffer (8192 Zeichen) voll ist
+        INPUT   // erst bei INPUT/Programmende; der Puffer wächst dafür bis 1 MiB Zeichen
+    }
+
+    static final int SIZE = 8192;
+    static final int MAX = 1 << 20;
+    private static final String NL = System.lineSeparator();
+
+    private final WritableByteChannel ch;
+    private final CharsetEncoder enc;
+    private final Flush policy;
+    private char[] buf = new char[SIZE];
+    private CharBuffer chars = CharBuffer.wrap(buf);
+    private final ByteBuffer bytes;
+    private int n;
+    private boolean error;                   // wie PrintStream: Schreibfehler werden gemerkt, nicht geworfen
+
+    public OutputSink(WritableByteChannel ch, Charset cs, Flush policy) {
+        this.ch = ch; this.policy = policy;
+        this.enc = cs.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (SIZE * enc.maxBytesPerChar()));
+    }
+
+    public static OutputSink of(OutputStream os, Charset cs, Flush policy) {
+        return new OutputSink(Channels.newChannel(os), cs, policy);
+    }
+
+    /** Direkt auf den Dateideskriptor der Standardausgabe, im Zeichensatz von System.out. */
+    public static OutputSink stdout(Flush policy) {
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), consoleCharset(), policy);
+    }
+
+    // Zeichensatz, mit dem die JVM System.out anlegt (JDK 17: sun.stdout.encoding, sonst Standard)
+    static Charset consoleCharset() {
+        String name = System.getProperty("sun.stdout.encoding");
+        if (name != null) {
+            try { return Charset.forName(name); }
+            catch (IllegalArgumentException ex) { /* unbekannt -> Standard */ }
+        }
+        return Charset.defaultCharset();
+    }
+
+    public Flush policy() { return policy; }
+    public boolean checkError() { return error; }
+
+    /** String oder Text; ein Text wird direkt aus seinem Puffer kopiert, ohne ihn erst zu glätten. */
+    public void print(CharSequence s) {
+        int len = s.length();
+        if (n + len > buf.length) {
+            if (policy == Flush.INPUT && n + len <= MAX) grow(n + len);
+            else flush();
+        }
+        if (len > buf.length - n) { printLong(s); return; }
+        Text.getChars(s, 0, len, buf, n);
+        n += len;
+    }
+
+    /** Zahl wie bei PRINT, direkt in den Puffer (ganze Zahlen ohne Zwischen-String). */
+    public void print(double d) {
+        if (n + Numbers.MAX_CHARS > buf.length) {
+            if (policy == Flush.INPUT && n + Numbers.MAX_CHARS <= MAX) grow(n + Numbers.MAX_CHARS);
+            else flush();
+        }
+        n = Numbers.format(d, buf, n);
+    }
+
+    public void println() {
+        print(NL);
+        if (policy == Flush.LINE) flush();
+    }
+
+    // länger als der (freie) Puffer: stückweise
+    private void printLong(CharSequence s) {
+        for (int from = 0, len = s.length(); from < len;) {
+            int k = Math.min(len - from, buf.length - n);
+            Text.getChars(s, from, from + k, buf, n);
+            n += k; from += k;
+            if (n == buf.length) flush();
+        }
+    }
+
+    private void grow(int need) {
+        int cap = buf.length;
+        while (cap < need) cap *= 2;
+        char[] b = new char[Math.min(cap, MAX)];
+        System.arraycopy(buf, 0, b, 0, n);
+        buf = b;
+        chars = CharBuffer.wrap(buf);
+    }
+
+    /** Schreibt alles Gepufferte in den Kanal. */
+    public void flush() {
+        if (n == 0) return;
+        chars.limit(n).position(0);
+        while (true) {
+            CoderResult r = enc.encode(chars, bytes, false);
+            write();
+            if (r.isUnderflow()) break;
+        }
+        // ein einzelnes High-Surrogat am Ende wartet auf sein Gegenstück
+        int rest = chars.remaining();
+        if (rest > 0) System.arraycopy(buf, chars.position(), buf, 0, rest);
+        n = rest;
+        chars.clear();
+    }
+
+    private void write() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining() && !error) ch.write(bytes);
+        } catch (IOException ex) {
+            error = true;
+        }
+        bytes.clear();
+    }
+}
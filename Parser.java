@@ -3,306 +3,216 @@ import java.util.*;
 public class Parser {
     private final Interpreter rt;
     private final Tokenizer tz;
+    private final List<Nodes.Jump> jumps = new ArrayList<>();
 
     public Parser(Interpreter rt, Tokenizer tz) { this.rt = rt; this.tz = tz; }
 
+    /** Alle beim Parsen erzeugten Sprünge (GOTO/GOSUB/IF ... THEN <zeile>), zum Binden an Programmindizes. */
+    public List<Nodes.Jump> jumps() { return jumps; }
+
+    private <T extends Nodes.Jump> T jump(T j) { jumps.add(j); return j; }
+
     /* ===== Mehrere Statements pro Zeile via ':' ===== */
     public Interpreter.Statement parseStatement() {
         Interpreter.Statement st = parseSingleStatement();
-        while (tz.hasMore() && ":".equals(tz.peek())) {
-            tz.next(); // ':'
-            Interpreter.Statement next = parseSingleStatement();
-            Interpreter.Statement prev = st;
-            st = c -> {
-                prev.execute(c);
-                if (c.stop || c.jumpToLine != null) return; // Sprünge/END stoppen Rest der Zeile
-                next.execute(c);
-            };
-        }
-        return st;
+        if (!tz.is(Tokenizer.COLON)) return st;
+        List<Interpreter.Statement> parts = new ArrayList<>();
+        parts.add(st);
+        while (tz.accept(Tokenizer.COLON)) parts.add(parseSingleStatement());
+        return new Nodes.Seq(parts.toArray(new Interpreter.Statement[0]));
     }
 
     /* ===== Ein einzelnes Statement ===== */
     private Interpreter.Statement parseSingleStatement() {
-        if (!tz.hasMore()) return c -> {};
-        String t = tz.peekUpper();
-        switch (t) {
-            case "REM" -> { tz.next(); while (tz.hasMore()) tz.next(); return c -> {}; }
-            case "PRINT" -> { tz.next(); return parsePrint(); }
-            case "LET" -> { tz.next(); return parseAssignment(); }
-            case "INPUT" -> { tz.next(); return parseInput(); }
-            case "IF" -> { tz.next(); return parseIfThen(); }
-            case "GOTO" -> { tz.next(); return parseGoto(); }
-            case "GOSUB" -> { tz.next(); return parseGosub(); }
-            case "RETURN" -> { tz.next(); return parseReturn(); }
-            case "FOR" -> { tz.next(); return parseFor(); }
-            case "NEXT" -> { tz.next(); return parseNext(); }
-            case "DIM" -> { tz.next(); return parseDim(); }
-            case "RANDOMIZE" -> { tz.next(); return parseRandomize(); }
-            case "END", "STOP" -> { tz.next(); return c -> c.stop = true; }
+        if (!tz.hasMore()) return Nodes.Nop.INSTANCE;
+        switch (tz.keyword()) {
+            case Tokenizer.REM -> { tz.skipRest(); return Nodes.Nop.INSTANCE; } // Rest der Zeile ist Kommentar
+            case Tokenizer.PRINT -> { tz.next(); return parsePrint(); }
+            case Tokenizer.LET -> { tz.next(); return parseAssignment(); }
+            case Tokenizer.INPUT -> { tz.next(); return parseInput(); }
+            case Tokenizer.IF -> { tz.next(); return parseIfThen(); }
+            case Tokenizer.GOTO -> { tz.next(); return parseGoto(); }
+            case Tokenizer.GOSUB -> { tz.next(); return parseGosub(); }
+            case Tokenizer.RETURN -> { tz.next(); return parseReturn(); }
+            case Tokenizer.FOR -> { tz.next(); return parseFor(); }
+            case Tokenizer.NEXT -> { tz.next(); return parseNext(); }
+            case Tokenizer.DIM -> { tz.next(); return parseDim(); }
+            case Tokenizer.RANDOMIZE -> { tz.next(); return parseRandomize(); }
+            case Tokenizer.END, Tokenizer.STOP -> { tz.next(); return new Nodes.End(); }
             default -> {
-                if (isIdentifier(t)) {
+                if (tz.is(Tokenizer.IDENT)) {
                     // Funktionsaufruf ALS STATEMENT? -> Name gefolgt von '(' und in Registry vorhanden
-                    String nameUpper = tz.next().toUpperCase(Locale.ROOT); // Name konsumieren
-                    if (rt.functions().has(nameUpper) && tz.hasMore() && "(".equals(tz.peek())) {
-                        tz.expect("(");
-                        List<Interpreter.Expr> args = new ArrayList<>();
-                        if (!tz.peek().equals(")")) {
-                            args.add(parseExpr());
-                            while (tz.hasMore() && tz.peek().equals(",")) { tz.next(); args.add(parseExpr()); }
-                        }
-                        tz.expect(")");
-                        final String fname = nameUpper;
-                        final List<Interpreter.Expr> fargs = args;
-                        return c -> {
-                            List<Interpreter.Value> values = new ArrayList<>(fargs.size());
-                            for (Interpreter.Expr e : fargs) values.add(e.eval(c.rt));
-                            // Rückgabewert verwerfen (Statement)
-                            c.rt.functions().call(fname, c.rt, values);
-                        };
+                    String nameUpper = tz.expectIdentifier(); // Name konsumieren
+                    BuiltinFunction fn = rt.functions().get(nameUpper);
+                    if (fn != null && tz.is(Tokenizer.LPAREN)) {
+                        // Rückgabewert verwerfen (Statement)
+                        return new Nodes.CallStmt(nameUpper, fn, parseCallArgs(fn));
                     }
                     // sonst: Zuweisung (wir haben den Namen bereits konsumiert)
                     return parseAssignmentFromConsumedName(nameUpper);
                 }
-                throw new Interpreter.BasicException("Unbekanntes Schlüsselwort: " + t);
+                throw new Interpreter.BasicException("Unbekanntes Schlüsselwort: " + tz.text().toUpperCase(Locale.ROOT));
             }
         }
     }
 
     private Interpreter.Statement parsePrint() {
         List<Interpreter.Expr> parts = new ArrayList<>();
-        List<Character> seps = new ArrayList<>();
+        StringBuilder seps = new StringBuilder();
         parts.add(parseExpr());
-        while (tz.hasMore() && (tz.peek().equals(";") || tz.peek().equals(","))) {
-            char sep = tz.next().charAt(0);
-            seps.add(sep);
+        while (tz.is(Tokenizer.SEMI) || tz.is(Tokenizer.COMMA)) {
+            char sep = tz.is(Tokenizer.SEMI) ? ';' : ',';
+            tz.next();
+            if (!tz.hasMore() || tz.is(Tokenizer.COLON)) break; // Trennzeichen am Ende: ignoriert, Zeilenumbruch bleibt
+            seps.append(sep);
             parts.add(parseExpr());
         }
-        return c -> {
-            for (int i = 0; i < parts.size(); i++) {
-                Interpreter.Value v = parts.get(i).eval(c.rt);
-                c.out.print(v.asString());
-                if (i < seps.size()) if (seps.get(i) == ',') c.out.print(" ");
-            }
-            c.out.println();
-        };
+        return new Nodes.Print(parts.toArray(new Interpreter.Expr[0]), seps.toString().toCharArray());
     }
 
     /* ----- Assignment: Var oder Array-LValue ----- */
     private Interpreter.Statement parseAssignment() {
-        LValue lv = parseLValue();
-        tz.expect("=");
-        Interpreter.Expr rhs = parseExpr();
-        return c -> lv.assign(c.rt, rhs.eval(c.rt));
+        return parseAssignmentFromConsumedName(tz.expectIdentifier());
     }
 
     // wie parseAssignment(), aber der erste Identifier wurde bereits konsumiert
     private Interpreter.Statement parseAssignmentFromConsumedName(String firstNameUpper) {
-        LValue lv;
-        if (tz.hasMore() && tz.peek().equals("(")) {
-            tz.next(); // (
-            List<Interpreter.Expr> idxExprs = new ArrayList<>();
-            idxExprs.add(parseExpr());
-            while (tz.hasMore() && tz.peek().equals(",")) { tz.next(); idxExprs.add(parseExpr()); }
-            tz.expect(")");
-            lv = new ArrayLValue(firstNameUpper, idxExprs);
-        } else {
-            lv = new VarLValue(firstNameUpper);
-        }
-        tz.expect("=");
+        Interpreter.NumExpr[] idx = null;
+        if (tz.accept(Tokenizer.LPAREN)) idx = parseIndices();
+        tz.expect(Tokenizer.EQ);
         Interpreter.Expr rhs = parseExpr();
-        return c -> lv.assign(c.rt, rhs.eval(c.rt));
+        boolean stringVar = Interpreter.isStringName(firstNameUpper);
+        if (idx != null) return Nodes.arrayAssign(rt.arraySlot(firstNameUpper), firstNameUpper, idx, stringVar ? str(rhs) : num(rhs));
+        int slot = rt.varSlot(firstNameUpper);
+        return stringVar ? new Nodes.StrAssign(slot, firstNameUpper, str(rhs)) : new Nodes.NumAssign(slot, firstNameUpper, num(rhs));
+    }
+
+    // nach '(' : Indexliste bis ')'
+    private Interpreter.NumExpr[] parseIndices() {
+        List<Interpreter.NumExpr> idxExprs = new ArrayList<>();
+        idxExprs.add(num(parseExpr()));
+        while (tz.accept(Tokenizer.COMMA)) idxExprs.add(num(parseExpr()));
+        tz.expect(Tokenizer.RPAREN);
+        return idxExprs.toArray(new Interpreter.NumExpr[0]);
     }
 
-    private LValue parseLValue() {
-        String name = tz.expectIdentifier();
-        String uname = name.toUpperCase(Locale.ROOT);
-        if (tz.hasMore() && tz.peek().equals("(")) {
-            tz.next(); // (
-            List<Interpreter.Expr> idxExprs = new ArrayList<>();
-            idxExprs.add(parseExpr());
-            while (tz.hasMore() && tz.peek().equals(",")) { tz.next(); idxExprs.add(parseExpr()); }
-            tz.expect(")");
-            return new ArrayLValue(uname, idxExprs);
-        } else {
-            return new VarLValue(uname);
+    // ab '(' : Argumentliste eines Funktionsaufrufs
+    // Argumente eines Builtin-Aufrufs; die Anzahl wird schon hier geprüft
+    private Interpreter.Expr[] parseCallArgs(BuiltinFunction fn) {
+        Interpreter.Expr[] args = parseArgs();
+        fn.checkArity(args.length);
+        return args;
+    }
+
+    private Interpreter.Expr[] parseArgs() {
+        tz.expect(Tokenizer.LPAREN);
+        List<Interpreter.Expr> args = new ArrayList<>();
+        if (!tz.is(Tokenizer.RPAREN)) {
+            args.add(parseExpr());
+            while (tz.accept(Tokenizer.COMMA)) args.add(parseExpr());
         }
+        tz.expect(Tokenizer.RPAREN);
+        return args.toArray(new Interpreter.Expr[0]);
     }
 
     private Interpreter.Statement parseInput() {
-        String var = tz.expectIdentifier();
-        boolean stringVar = var.endsWith("$");
-        String uname = var.toUpperCase(Locale.ROOT);
-        return c -> {
-            try {
-                c.out.print("? " + uname + " = ");
-                String line = c.in.readLine(); if (line == null) line = "";
-                if (stringVar) c.rt.setVar(uname, Interpreter.Value.string(line));
-                else {
-                    double d;
-                    try { d = Double.parseDouble(line.trim()); }
-                    catch (NumberFormatException nfe) { throw new Interpreter.BasicException("Eingabe ist keine Zahl."); }
-                    c.rt.setVar(uname, Interpreter.Value.number(d));
-                }
-            } catch (Exception e) { throw new Interpreter.BasicException("E/A-Fehler bei INPUT"); }
-        };
+        String uname = tz.expectIdentifier();
+        return new Nodes.Input(rt.varSlot(uname), uname);
     }
 
     private Interpreter.Statement parseIfThen() {
-        Interpreter.Expr cond = parseBoolExpr();
-        String kw = tz.peekUpper();
-        if (!"THEN".equals(kw)) throw new Interpreter.BasicException("Erwartet THEN");
+        Interpreter.NumExpr cond = truth(parseBoolExpr());
+        if (tz.keyword() != Tokenizer.THEN) throw new Interpreter.BasicException("Erwartet THEN");
         tz.next(); // THEN
 
         if (!tz.hasMore()) throw new Interpreter.BasicException("IF ... THEN ohne Ziel");
 
-        String nextTok = tz.peek();
-        if (isNumber(nextTok)) {
-            int line = tz.expectInteger();
-            return c -> {
-                Interpreter.Value v = cond.eval(c.rt);
-                boolean truth = v.isString() ? !v.asString().isEmpty() : (v.asNumber() != 0.0);
-                if (truth) c.jumpToLine = line;
-            };
-        }
+        if (tz.is(Tokenizer.NUMBER)) return jump(new Nodes.IfJump(cond, tz.expectInteger()));
 
         // Nur EIN Statement nach THEN (Rest der Zeile bleibt für ':'-Kette übrig)
-        Interpreter.Statement inner = parseSingleStatement();
-        return c -> {
-            Interpreter.Value v = cond.eval(c.rt);
-            boolean truth = v.isString() ? !v.asString().isEmpty() : (v.asNumber() != 0.0);
-            if (truth) inner.execute(c);
-        };
+        return new Nodes.IfThen(cond, parseSingleStatement());
     }
 
-    private Interpreter.Statement parseGoto() { int line = tz.expectInteger(); return c -> c.jumpToLine = line; }
+    private Interpreter.Statement parseGoto() { return jump(new Nodes.Goto(tz.expectInteger())); }
 
-    private Interpreter.Statement parseGosub() {
-        int line = tz.expectInteger();
-        return c -> {
-            Integer ret = c.nextOf(c.currentLine);
-            if (ret == null) throw new Interpreter.BasicException("GOSUB von letzter Zeile nicht möglich");
-            c.gosubStack.push(ret);
-            c.jumpToLine = line;
-        };
-    }
+    private Interpreter.Statement parseGosub() { return jump(new Nodes.Gosub(tz.expectInteger())); }
 
-    private Interpreter.Statement parseReturn() {
-        return c -> {
-            if (c.gosubStack.isEmpty()) throw new Interpreter.BasicException("RETURN ohne GOSUB");
-            c.jumpToLine = c.gosubStack.pop();
-        };
-    }
+    private Interpreter.Statement parseReturn() { return new Nodes.Return(); }
 
     private Interpreter.Statement parseFor() {
-        final String var = tz.expectIdentifier().toUpperCase(Locale.ROOT);
-        tz.expect("=");
-        final Interpreter.Expr start = parseExpr();
-        String to = tz.peekUpper(); if (!"TO".equals(to)) throw new Interpreter.BasicException("Erwartet TO");
+        final String var = tz.expectIdentifier();
+        if (Interpreter.isStringName(var)) throw new Interpreter.BasicException("FOR erwartet eine numerische Variable");
+        tz.expect(Tokenizer.EQ);
+        final Interpreter.NumExpr start = num(parseExpr());
+        if (tz.keyword() != Tokenizer.TO) throw new Interpreter.BasicException("Erwartet TO");
         tz.next();
-        final Interpreter.Expr end = parseExpr();
-
-        Interpreter.Expr stepTmp = null;
-        if (tz.hasMore() && tz.peekUpper().equals("STEP")) { tz.next(); stepTmp = parseExpr(); }
-        final Interpreter.Expr stepExpr = stepTmp; // effektiv final
+        final Interpreter.NumExpr end = num(parseExpr());
 
-        return c -> {
-            double s  = start.eval(c.rt).asNumber();
-            double e  = end.eval(c.rt).asNumber();
-            double st = (stepExpr == null) ? 1.0 : stepExpr.eval(c.rt).asNumber();
-            c.rt.setVar(var, Interpreter.Value.number(s));
-            Integer after = c.nextOf(c.currentLine);
-            if (after == null) throw new Interpreter.BasicException("FOR am Programmenende");
-            c.forStack.push(new Interpreter.ForFrame(var, e, st, after));
-        };
+        Interpreter.NumExpr step = null;
+        if (tz.keyword() == Tokenizer.STEP) { tz.next(); step = num(parseExpr()); }
+        return new Nodes.For(rt.varSlot(var), var, start, end, step);
     }
 
     private Interpreter.Statement parseNext() {
-        String var = tz.expectIdentifier().toUpperCase(Locale.ROOT);
-        return c -> {
-            if (c.forStack.isEmpty()) throw new Interpreter.BasicException("NEXT ohne FOR");
-            Interpreter.ForFrame f = c.forStack.peek();
-            if (!f.var.equals(var)) throw new Interpreter.BasicException("NEXT für falsche Variable (erwartet " + f.var + ")");
-            double cur = c.rt.getVar(f.var).asNumber();
-            cur += f.step;
-            c.rt.setVar(f.var, Interpreter.Value.number(cur));
-            boolean cont = f.step >= 0 ? (cur <= f.end) : (cur >= f.end);
-            if (cont) c.jumpToLine = f.lineAfterFor;
-            else c.forStack.pop();
-        };
+        String var = tz.expectIdentifier();
+        return new Nodes.Next(Interpreter.isStringName(var) ? -1 : rt.varSlot(var), var);
     }
 
     private Interpreter.Statement parseDim() {
-        List<DimDef> defs = new ArrayList<>();
+        List<Nodes.DimDef> defs = new ArrayList<>();
         while (true) {
-            String name = tz.expectIdentifier();
-            boolean stringType = name.endsWith("$");
-            String uname = name.toUpperCase(Locale.ROOT);
-            tz.expect("(");
-            List<Interpreter.Expr> dims = new ArrayList<>();
-            dims.add(parseExpr());
-            while (tz.hasMore() && tz.peek().equals(",")) { tz.next(); dims.add(parseExpr()); }
-            tz.expect(")");
-            defs.add(new DimDef(uname, stringType, dims));
-            if (tz.hasMore() && tz.peek().equals(",")) { tz.next(); continue; }
-            break;
-        }
-        return c -> {
-            for (DimDef d : defs) {
-                int[] di = new int[d.dimExprs.size()];
-                for (int i = 0; i < di.length; i++) {
-                    int v = (int)Math.floor(d.dimExprs.get(i).eval(c.rt).asNumber());
-                    if (v <= 0) throw new Interpreter.BasicException("DIM: Dimension > 0 nötig");
-                    di[i] = v;
-                }
-                c.rt.dimArray(d.name, d.stringType, di);
+            String uname = tz.expectIdentifier();
+            boolean stringType = Interpreter.isStringName(uname);
+            tz.expect(Tokenizer.LPAREN);
+            Interpreter.NumExpr[] dims = parseIndices();
+            // AS FILE "x.dat": kein Schlüsselwort, AS und FILE bleiben als Namen frei
+            Interpreter.StrExpr file = null;
+            if (tz.is(Tokenizer.IDENT) && tz.name().equals("AS")) {
+                tz.next();
+                if (!tz.is(Tokenizer.IDENT) || !tz.name().equals("FILE")) throw new Interpreter.BasicException("Erwartet FILE nach AS");
+                tz.next();
+                if (stringType) throw new Interpreter.BasicException("DIM AS FILE: nur für Zahlen-Arrays");
+                file = str(parseExpr());
             }
-        };
+            defs.add(new Nodes.DimDef(rt.arraySlot(uname), uname, stringType, dims, file));
+            if (!tz.accept(Tokenizer.COMMA)) break;
+        }
+        return new Nodes.Dim(defs.toArray(new Nodes.DimDef[0]));
     }
 
     private Interpreter.Statement parseRandomize() {
-        if (!tz.hasMore()) return c -> c.rt.randomize(null);
-        Interpreter.Expr seed = parseExpr();
-        return c -> c.rt.randomize((long)seed.eval(c.rt).asNumber());
+        if (!tz.hasMore()) return new Nodes.Randomize(null);
+        return new Nodes.Randomize(num(parseExpr()));
+    }
+
+    /** Ein einzelner Ausdruck ohne Statement drumherum (Werkzeuge, Benchmarks); der Rest muss leer sein. */
+    public Interpreter.Expr parseExpression() {
+        Interpreter.Expr e = parseBoolExpr();
+        if (tz.hasMore()) throw new Interpreter.BasicException("Unerwarteter Rest: " + tz.remaining());
+        return e;
     }
 
     /* --- boolischer Ausdruck: Vergleich --- */
     private Interpreter.Expr parseBoolExpr() {
         Interpreter.Expr left = parseExpr();
         if (!tz.hasMore()) return left;
-        String op = tz.peek();
-        if (isRelop(op)) {
+        int k = tz.kind();
+        if (k >= Tokenizer.EQ && k <= Tokenizer.GE) {
+            String op = Tokenizer.symbol(k);
             tz.next();
             Interpreter.Expr right = parseExpr();
-            return rt -> {
-                Interpreter.Value a = left.eval(rt);
-                Interpreter.Value b = right.eval(rt);
-                int cmp;
-                if (a.isString() || b.isString()) cmp = a.asString().compareTo(b.asString());
-                else cmp = Double.compare(a.asNumber(), b.asNumber());
-                boolean res = switch (op) {
-                    case "=" -> cmp == 0;
-                    case "<>" -> cmp != 0;
-                    case "<" -> cmp < 0;
-                    case "<=" -> cmp <= 0;
-                    case ">" -> cmp > 0;
-                    case ">=" -> cmp >= 0;
-                    default -> throw new Interpreter.BasicException("Unbekannter Vergleich: " + op);
-                };
-                return Interpreter.Value.number(res ? 1 : 0);
-            };
+            if (isStr(left) || isStr(right)) return new Nodes.StrCompare(op, str(left), str(right));
+            return new Nodes.NumCompare(op, num(left), num(right));
         }
         return left;
     }
-    private boolean isRelop(String s) {
-        return s.equals("=") || s.equals("<>") || s.equals("<") || s.equals("<=") || s.equals(">") || s.equals(">=");
-    }
 
     /* --- Arithmetischer Ausdruck --- */
     private Interpreter.Expr parseExpr() {
         Interpreter.Expr e = parseTerm();
-        while (tz.hasMore() && (tz.peek().equals("+") || tz.peek().equals("-"))) {
-            String op = tz.next();
+        while (tz.is(Tokenizer.PLUS) || tz.is(Tokenizer.MINUS)) {
+            char op = tz.is(Tokenizer.PLUS) ? '+' : '-';
+            tz.next();
             Interpreter.Expr r = parseTerm();
             e = combine(e, op, r);
         }
@@ -310,8 +220,9 @@ public class Parser {
     }
     private Interpreter.Expr parseTerm() {
         Interpreter.Expr e = parseFactor();
-        while (tz.hasMore() && (tz.peek().equals("*") || tz.peek().equals("/"))) {
-            String op = tz.next();
+        while (tz.is(Tokenizer.STAR) || tz.is(Tokenizer.SLASH)) {
+            char op = tz.is(Tokenizer.STAR) ? '*' : '/';
+            tz.next();
             Interpreter.Expr r = parseFactor();
             e = combine(e, op, r);
         }
@@ -319,152 +230,77 @@ public class Parser {
     }
     private Interpreter.Expr parseFactor() {
         if (!tz.hasMore()) throw new Interpreter.BasicException("Unerwartetes Ende im Ausdruck");
-        String t = tz.peek();
-        if (t.equals("(")) {
-            tz.next();
+        if (tz.accept(Tokenizer.LPAREN)) {
             Interpreter.Expr e = parseBoolExpr();
-            tz.expect(")");
+            tz.expect(Tokenizer.RPAREN);
             return e;
         }
-        if (t.equals("+")) { tz.next(); return parseFactor(); }
-        if (t.equals("-")) {
-            tz.next();
+        if (tz.accept(Tokenizer.PLUS)) return parseFactor();
+        if (tz.accept(Tokenizer.MINUS)) {
             Interpreter.Expr f = parseFactor();
-            return rt -> {
-                Interpreter.Value v = f.eval(rt);
-                if (v.isString()) throw new Interpreter.BasicException("Negation von String nicht möglich");
-                return Interpreter.Value.number(-v.asNumber());
-            };
+            if (isStr(f)) return new Nodes.TypeError("Negation von String nicht möglich", f);
+            return new Nodes.Neg(num(f));
         }
-        if (isNumber(t)) {
-            double d = Double.parseDouble(t);
+        if (tz.is(Tokenizer.NUMBER)) {
+            double d = tz.number();
             tz.next();
-            return rt -> Interpreter.Value.number(d);
+            return new Nodes.NumLit(d);
         }
-        if (t.startsWith("\"")) {
-            String s = tz.next();
-            return rt -> Interpreter.Value.string(unquote(s));
+        if (tz.is(Tokenizer.STRING)) {
+            String s = tz.string();
+            tz.next();
+            return new Nodes.StrLit(s);
         }
-        if (isIdentifier(t)) {
-            String name = tz.next().toUpperCase(Locale.ROOT);
-            // Funktionsaufruf in Ausdrücken
-            if (tz.hasMore() && tz.peek().equals("(") && rt.functions().has(name)) {
-                tz.expect("(");
-                List<Interpreter.Expr> args = new ArrayList<>();
-                if (!tz.peek().equals(")")) {
-                    args.add(parseExpr());
-                    while (tz.hasMore() && tz.peek().equals(",")) { tz.next(); args.add(parseExpr()); }
-                }
-                tz.expect(")");
-                final String fname = name;
-                final List<Interpreter.Expr> fargs = args;
-                return rti -> {
-                    List<Interpreter.Value> values = new ArrayList<>(fargs.size());
-                    for (Interpreter.Expr e : fargs) values.add(e.eval(rti));
-                    return rt.functions().call(fname, rti, values);
-                };
+        if (tz.is(Tokenizer.IDENT)) {
+            String name = tz.expectIdentifier();
+            // Funktionsaufruf in Ausdrücken; Ergebnistyp folgt der '$'-Konvention des Namens
+            BuiltinFunction fn = rt.functions().get(name);
+            if (fn != null && tz.is(Tokenizer.LPAREN)) {
+                Interpreter.Expr[] args = parseCallArgs(fn);
+                if (Interpreter.isStringName(name)) return new Nodes.StrCall(name, fn, args);
+                return new Nodes.NumCall(name, fn, args);
             }
+            boolean stringVar = Interpreter.isStringName(name);
             // Array-Referenz in Ausdrücken
-            if (tz.hasMore() && tz.peek().equals("(")) {
-                tz.next(); // (
-                List<Interpreter.Expr> idx = new ArrayList<>();
-                idx.add(parseExpr());
-                while (tz.hasMore() && tz.peek().equals(",")) { tz.next(); idx.add(parseExpr()); }
-                tz.expect(")");
-                final String arr = name;
-                final List<Interpreter.Expr> idxList = idx;
-                return rti -> {
-                    int[] ii = new int[idxList.size()];
-                    for (int i = 0; i < ii.length; i++)
-                        ii[i] = (int)Math.floor(idxList.get(i).eval(rti).asNumber());
-                    return rti.getArray(arr, ii);
-                };
+            if (tz.accept(Tokenizer.LPAREN)) {
+                Interpreter.NumExpr[] idx = parseIndices();
+                int slot = rt.arraySlot(name);
+                if (stringVar) return Nodes.strArray(slot, name, idx);
+                return Nodes.numArray(slot, name, idx);
             }
             // einfache Variable
-            final String uname = name;
-            return rti -> rti.getVar(uname);
+            int slot = rt.varSlot(name);
+            if (stringVar) return new Nodes.StrVar(slot, name);
+            return new Nodes.NumVar(slot, name);
         }
-        throw new Interpreter.BasicException("Unerwartetes Token: " + t);
+        throw new Interpreter.BasicException("Unerwartetes Token: " + tz.text());
     }
 
-    private Interpreter.Expr combine(Interpreter.Expr a, String op, Interpreter.Expr b) {
-        return rt -> {
-            Interpreter.Value va = a.eval(rt);
-            Interpreter.Value vb = b.eval(rt);
-            switch (op) {
-                case "+" -> {
-                    if (va.isString() || vb.isString()) return Interpreter.Value.string(va.asString() + vb.asString());
-                    return Interpreter.Value.number(va.asNumber() + vb.asNumber());
-                }
-                case "-" -> {
-                    if (va.isString() || vb.isString()) throw new Interpreter.BasicException("String mit '-' nicht erlaubt");
-                    return Interpreter.Value.number(va.asNumber() - vb.asNumber());
-                }
-                case "*" -> {
-                    if (va.isString() || vb.isString()) throw new Interpreter.BasicException("String mit '*' nicht erlaubt");
-                    return Interpreter.Value.number(va.asNumber() * vb.asNumber());
-                }
-                case "/" -> {
-                    if (va.isString() || vb.isString()) throw new Interpreter.BasicException("String mit '/' nicht erlaubt");
-                    double denom = vb.asNumber();
-                    if (denom == 0.0) throw new Interpreter.BasicException("Division durch 0");
-                    return Interpreter.Value.number(va.asNumber() / denom);
-                }
-                default -> throw new Interpreter.BasicException("Unbekannter Operator: " + op);
+    private Interpreter.Expr combine(Interpreter.Expr a, char op, Interpreter.Expr b) {
+        boolean strings = isStr(a) || isStr(b);
+        switch (op) {
+            case '+' -> {
+                if (strings) return new Nodes.Concat(str(a), str(b));
+                return new Nodes.NumBinary('+', num(a), num(b));
             }
-        };
-    }
-
-    private boolean isIdentifier(String s) {
-        if (s == null || s.isEmpty()) return false;
-        char c = s.charAt(0);
-        if (!Character.isLetter(c)) return false;
-        for (int i = 1; i < s.length(); i++) {
-            char ch = s.charAt(i);
-            if (!(Character.isLetterOrDigit(ch) || ch == '$' || ch == '_')) return false;
-        }
-        return true;
-    }
-    private boolean isNumber(String s) {
-        int dot = 0;
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (i == 0 && (c == '+' || c == '-')) continue;
-            if (c == '.') { dot++; if (dot > 1) return false; continue; }
-            if (!Character.isDigit(c)) return false;
-        }
-        return s.length() > 0;
-    }
-    private String unquote(String token) {
-        if (token.length() >= 2 && token.startsWith("\"") && token.endsWith("\"")) {
-            String inner = token.substring(1, token.length() - 1);
-            return inner.replace("\"\"", "\"");
+            case '-', '*', '/' -> {
+                if (strings) return new Nodes.TypeError("String mit '" + op + "' nicht erlaubt", a, b);
+                return new Nodes.NumBinary(op, num(a), num(b));
+            }
+            default -> throw new Interpreter.BasicException("Unbekannter Operator: " + op);
         }
-        return token;
     }
 
-    /* --- LValues --- */
-    interface LValue { void assign(Interpreter rt, Interpreter.Value v); }
-    static final class VarLValue implements LValue {
-        final String name;
-        VarLValue(String name) { this.name = name; }
-        public void assign(Interpreter rt, Interpreter.Value v) { rt.setVar(name, v); }
+    /* --- statische Typen --- */
+    private static boolean isStr(Interpreter.Expr e) { return e instanceof Interpreter.StrExpr; }
+    private static Interpreter.NumExpr num(Interpreter.Expr e) {
+        return (e instanceof Interpreter.NumExpr n) ? n : new Nodes.StrToNum((Interpreter.StrExpr) e);
     }
-    static final class ArrayLValue implements LValue {
-        final String name;
-        final List<Interpreter.Expr> idx;
-        ArrayLValue(String name, List<Interpreter.Expr> idx) { this.name = name; this.idx = idx; }
-        public void assign(Interpreter rt, Interpreter.Value v) {
-            int[] ii = new int[idx.size()];
-            for (int i = 0; i < ii.length; i++) ii[i] = (int)Math.floor(idx.get(i).eval(rt).asNumber());
-            rt.setArray(name, ii, v);
-        }
+    private static Interpreter.StrExpr str(Interpreter.Expr e) {
+        return (e instanceof Interpreter.StrExpr s) ? s : new Nodes.NumToStr((Interpreter.NumExpr) e);
     }
-
-    static final class DimDef {
-        final String name; final boolean stringType; final List<Interpreter.Expr> dimExprs;
-        DimDef(String name, boolean stringType, List<Interpreter.Expr> dimExprs) {
-            this.name = name; this.stringType = stringType; this.dimExprs = dimExprs;
-        }
+    // Bedingung: Zahl != 0 bzw. String != "" gilt als wahr
+    private static Interpreter.NumExpr truth(Interpreter.Expr e) {
+        return (e instanceof Interpreter.NumExpr n) ? n : new Nodes.StrTruth((Interpreter.StrExpr) e);
     }
 }
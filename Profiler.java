@@ -0,0 +1,135 @@
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stichproben-Profiler für RUN PROFILE.
+ *
+ * Der ausführende Thread meldet nur die aktuelle Programmzeile (pc) und den GOSUB-Aufrufpfad;
+ * ein eigener Thread liest beides im festen Abstand und zählt mit. Geschrieben und gelesen wird
+ * "opaque" (VarHandle): das ist auf x86 ein gewöhnlicher Speicherzugriff ohne Barriere, der
+ * Sampler sieht aber trotzdem den Fortschritt. Ohne PROFILE gibt es keinen Profiler und keine
+ * Zusatzarbeit außer einem Null-Test je Zeile.
+ */
+final class Profiler {
+    private static final VarHandle PC, PATH;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            PC = l.findVarHandle(Profiler.class, "pc", int.class);
+            PATH = l.findVarHandle(Profiler.class, "path", Frame.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    // GOSUB-Pfad als unveränderliche Kette; pc ist die Zeile mit dem GOSUB
+    private record Frame(Frame parent, int pc) {}
+
+    private final long intervalNanos;
+    private int pc = -1;                               // nur über PC (opaque)
+    private Frame path;                                // vom ausführenden Thread geschrieben (opaque)
+
+    // nur vom Sampler-Thread geschrieben, nach join gelesen
+    private int[] lines;
+    private long[] hits;
+    private Frame[] pathSamples = new Frame[1024];     // Pfade erst im Bericht zusammenfassen
+    private int pathCount;
+    private long samples;
+    private long nanos;
+
+    private volatile boolean running;
+    private Thread sampler;
+
+    Profiler(long intervalMicros) {
+        if (intervalMicros < 1) throw new Interpreter.BasicException("PROFILE: Intervall muss > 0 µs sein");
+        this.intervalNanos = intervalMicros * 1000;
+    }
+
+    /* ===== ausführender Thread ===== */
+    void at(int pc) { PC.setOpaque(this, pc); }
+    void call(int pc) { PATH.setOpaque(this, new Frame(path, pc)); }
+    void ret() {
+        Frame f = path;
+        if (f != null) PATH.setOpaque(this, f.parent);
+    }
+
+    /* ===== Sampler ===== */
+    void start(int[] lines) {
+        this.lines = lines;
+        hits = new long[lines.length];
+        running = true;
+        sampler = new Thread(this::sample, "MiniBasic-Profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(sampler);
+        try { sampler.join(); }
+        catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+    }
+
+    private void sample() {
+        long t0 = System.nanoTime();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            int p = (int) PC.getOpaque(this);
+            if (p < 0 || p >= hits.length) continue;
+            hits[p]++;
+            samples++;
+            // nur die Referenz merken: der Sampler soll dem ausführenden Thread möglichst wenig Zeit nehmen
+            Frame f = (Frame) PATH.getOpaque(this);
+            if (f == null) continue;
+            if (pathCount == pathSamples.length) pathSamples = Arrays.copyOf(pathSamples, pathCount * 2);
+            pathSamples[pathCount++] = f;
+        }
+        nanos = System.nanoTime() - t0;
+    }
+
+    // Pfad inklusive: jeder Präfix (äußerstes GOSUB zuerst) bekommt die Stichprobe
+    private Map<String, long[]> paths() {
+        Map<String, long[]> paths = new HashMap<>();
+        List<Integer> calls = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int s = 0; s < pathCount; s++) {
+            calls.clear();
+            for (Frame f = pathSamples[s]; f != null; f = f.parent) calls.add(lines[f.pc]);
+            sb.setLength(0);
+            for (int i = calls.size() - 1; i >= 0; i--) {
+                if (sb.length() > 0) sb.append(" > ");
+                sb.append(calls.get(i));
+                paths.computeIfAbsent(sb.toString(), k -> new long[1])[0]++;
+            }
+        }
+        return paths;
+    }
+
+    /** Die {@code top} teuersten Zeilen mit Quelltext und die GOSUB-Pfade nach Anteil. */
+    void report(Interpreter rt, int top, PrintStream out) {
+        if (hits == null) return;                      // Fehler schon beim Übersetzen, nichts gelaufen
+        out.printf(Locale.ROOT, "PROFILE: %d Stichproben alle %d µs in %.3f s (Baum-Interpreter ohne JIT)%n",
+                samples, intervalNanos / 1000, nanos / 1e9);
+        if (samples == 0) { out.println("Keine Stichproben – Programm zu kurz oder Intervall zu groß."); return; }
+        Integer[] order = new Integer[hits.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(hits[b], hits[a]));
+        out.printf("%7s %7s %8s  %s%n", "Zeile", "Anteil", "Proben", "Quelltext");
+        for (int i = 0; i < Math.min(top, order.length) && hits[order[i]] > 0; i++) {
+            int p = order[i];
+            out.printf(Locale.ROOT, "%7d %6.1f%% %8d  %s%n", lines[p], 100.0 * hits[p] / samples, hits[p], rt.sourceLine(lines[p]));
+        }
+        Map<String, long[]> paths = paths();
+        if (paths.isEmpty()) return;
+        out.println("GOSUB-Pfade (inklusive, Zeilen der GOSUB-Aufrufe):");
+        List<Map.Entry<String, long[]>> ps = new ArrayList<>(paths.entrySet());
+        ps.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        for (int i = 0; i < Math.min(top, ps.size()); i++) {
+            long n = ps.get(i).getValue()[0];
+            out.printf(Locale.ROOT, "%6.1f%% %8d  %s%n", 100.0 * n / samples, n, ps.get(i).getKey());
+        }
+    }
+}
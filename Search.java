@@ -0,0 +1,113 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Vorübersetztes Suchmuster für INSTR, COUNT und REPLACE$.
+ *
+ * Konstante Muster übersetzt der Parser einmal (BuiltinFunction.specialize), alle anderen holt
+ * {@link #of} aus einem kleinen LRU-Cache. Wie gesucht wird, entscheidet das Muster beim Übersetzen:
+ * In einem String sucht immer String.indexOf; der JIT ersetzt es durch eine vektorisierte Schleife,
+ * die hier in allen Messungen (SearchBench) schneller war als jede Sprungtabelle. Einen Text mit
+ * langem Muster (ab {@link #LONG} Zeichen) durchsucht Boyer-Moore-Horspool direkt in seinem Puffer:
+ * dort wird nur ein Bruchteil der Zeichen angesehen und der Text muss nicht erst zu einem String
+ * geglättet werden. Bei kurzen Mustern ist Glätten plus indexOf schneller.
+ */
+final class Search {
+    /** Ab dieser Musterlänge gibt es die Sprungtabelle. */
+    static final int LONG = 32;
+    private static final int CACHE_SIZE = 64;
+
+    // Muster -> Suche, zuletzt benutzte zuletzt; von allen Interpretern geteilt, daher synchronisiert
+    private static final Map<String, Search> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Search> e) { return size() > CACHE_SIZE; }
+    };
+
+    final String pattern;
+    private final char[] p;                            // nur bei langen Mustern, sonst null
+    private final int[] skip;                          // Sprung je unterem Byte des Zeichens unter dem Musterende
+
+    private Search(String pattern) {
+        this.pattern = pattern;
+        int m = pattern.length();
+        if (m < LONG) { p = null; skip = null; return; }
+        p = pattern.toCharArray();
+        // Zeichen mit gleichem unteren Byte teilen sich den kleinsten Sprung: vorsichtiger, nie falsch
+        skip = new int[256];
+        Arrays.fill(skip, m);
+        for (int i = 0; i < m - 1; i++) skip[p[i] & 0xFF] = m - 1 - i;
+    }
+
+    /** Neu übersetzt, für konstante Muster. */
+    static Search compile(CharSequence pattern) { return new Search(pattern.toString()); }
+
+    /** Aus dem LRU-Cache; kurze Muster haben keine Tabelle und brauchen keinen Cache. */
+    static Search of(CharSequence pattern) {
+        String key = pattern.toString();
+        if (key.length() < LONG) return new Search(key);
+        synchronized (CACHE) {
+            Search s = CACHE.get(key);
+            if (s == null) CACHE.put(key, s = new Search(key));
+            return s;
+        }
+    }
+
+    int length() { return pattern.length(); }
+
+    /** Erstes Vorkommen in s ab from (0-basiert) oder -1, wie String.indexOf. */
+    int indexOf(CharSequence s, int from) {
+        if (skip != null && s instanceof Text t) {
+            int n = t.length(), off = t.offset();
+            if (from < 0) from = 0;
+            if (from > n - p.length) return -1;
+            int i = horspool(t.array(), off + from, off + n);
+            return (i >= 0) ? i - off : -1;
+        }
+        return s.toString().indexOf(pattern, from);
+    }
+
+    /** Anzahl nicht überlappender Vorkommen; leeres Muster: 0. */
+    int count(CharSequence s) {
+        int m = pattern.length();
+        if (m == 0) return 0;
+        CharSequence h = (skip != null) ? s : s.toString();
+        int n = 0;
+        for (int i = indexOf(h, 0); i >= 0; i = indexOf(h, i + m)) n++;
+        return n;
+    }
+
+    /** s mit jedem (nicht überlappenden) Vorkommen durch r ersetzt; leeres Muster oder kein Treffer: s selbst. */
+    CharSequence replace(CharSequence s, CharSequence r) {
+        int m = pattern.length();
+        if (m == 0) return s;
+        CharSequence h = (skip != null) ? s : s.toString();
+        int i = indexOf(h, 0);
+        if (i < 0) return s;
+        StringBuilder sb = new StringBuilder(h.length() + Math.max(0, r.length() - m) * 4);
+        int last = 0;
+        do {
+            sb.append(h, last, i).append(r);
+            last = i + m;
+            i = indexOf(h, last);
+        } while (i >= 0);
+        return sb.append(h, last, h.length()).toString();
+    }
+
+    // a[from, to): Position im Array oder -1; verglichen wird zuerst das Zeichen unter dem Musterende
+    private int horspool(char[] a, int from, int to) {
+        char[] p = this.p;
+        int[] skip = this.skip;
+        int last = p.length - 1;
+        char end = p[last];
+        for (int i = from + last; i < to; ) {
+            char c = a[i];
+            if (c == end) {
+                int k = i - last, j = 0;
+                while (j < last && a[k + j] == p[j]) j++;
+                if (j == last) return k;
+            }
+            i += skip[c & 0xFF];
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Dünn besetztes Array: nur beschriebene Zellen liegen in einer Hash-Tabelle (flacher Index ->
+ * Zahl bzw. String), alle anderen lesen sich als 0 bzw. "". Der Speicher folgt also den benutzten
+ * Zellen, nicht dem DIM; {@code DIM G(100000,100000)} kostet zunächst fast nichts.
+ *
+ * Offene Adressierung mit linearer Sondierung über primitive long-Schlüssel (gespeichert als
+ * Index + 1, 0 = frei), höchstens halb voll. 0 bzw. "" zu schreiben gibt die Zelle wieder frei
+ * (Rückwärtsverschieben statt Grabsteinen). Sind mehr als 1/{@link #FILL} der Zellen belegt, ist
+ * ein dichtes Array kleiner und schneller: dann meldet {@link #full} true und ArrayVar stellt einmal
+ * um (Strings nur, solange ein Java-Array reicht, sonst bleibt es dünn).
+ */
+final class Sparse {
+    /** Umstellen auf dicht ab total / FILL belegten Zellen; eine Zelle kostet hier gut 32 Bytes, dicht 8. */
+    static final int FILL = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long MAX_HEAP = Integer.MAX_VALUE - 8;
+
+    private final boolean strings;
+    private final long total;
+    private long[] keys = new long[16];                // Index + 1, 0 = frei
+    private double[] nums;
+    private CharSequence[] strs;
+    private int count;
+
+    Sparse(boolean strings, long total) {
+        this.strings = strings;
+        this.total = total;
+        if (strings) strs = new CharSequence[keys.length]; else nums = new double[keys.length];
+    }
+
+    /** Genug belegt, dass ein dichtes Array kleiner wäre (und eines möglich ist). */
+    boolean full() { return count > total / FILL && (!strings || total <= MAX_HEAP); }
+
+    double num(long i) {
+        int k = find(i);
+        return (k >= 0) ? nums[k] : 0.0;
+    }
+
+    CharSequence str(long i) {
+        int k = find(i);
+        return (k >= 0) ? strs[k] : "";
+    }
+
+    void setNum(long i, double d) {
+        // nur +0.0 ist "unbelegt": -0 muss als -0 zurückkommen
+        if (Double.doubleToRawLongBits(d) == 0) { remove(i); return; }
+        int k = slot(i);
+        if (keys[k] == 0) { keys[k] = i + 1; count++; nums[k] = d; grow(); }
+        else nums[k] = d;
+    }
+
+    void setStr(long i, CharSequence s) {
+        if (s.length() == 0) { remove(i); return; }
+        int k = slot(i);
+        if (keys[k] == 0) { keys[k] = i + 1; count++; strs[k] = s; grow(); }
+        else strs[k] = s;
+    }
+
+    // Fibonacci-Hashing: die oberen Bits des Produkts, damit benachbarte Indizes streuen
+    private int hash(long i) { return (int) ((i * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length))); }
+
+    // Platz von i in der Tabelle oder -1
+    private int find(long i) {
+        long key = i + 1;
+        int mask = keys.length - 1;
+        for (int k = hash(i); ; k = (k + 1) & mask) {
+            long e = keys[k];
+            if (e == key) return k;
+            if (e == 0) return -1;
+        }
+    }
+
+    // Platz von i: belegt mit i oder der freie Platz, an den i gehört
+    private int slot(long i) {
+        long key = i + 1;
+        int mask = keys.length - 1;
+        int k = hash(i);
+        while (keys[k] != 0 && keys[k] != key) k = (k + 1) & mask;
+        return k;
+    }
+
+    private void remove(long i) {
+        int k = find(i);
+        if (k < 0) return;
+        count--;
+        // Nachfolger der Kette zurückschieben, solange ihr Heimplatz nicht zwischen Lücke und Platz liegt
+        int mask = keys.length - 1;
+        for (int gap = k, j = (k + 1) & mask; ; j = (j + 1) & mask) {
+            long e = keys[j];
+            if (e == 0) { clear(gap); return; }
+            int home = hash(e - 1);
+            if (((j - home) & mask) >= ((j - gap) & mask)) { move(j, gap); gap = j; }
+        }
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        if (strings) strs[to] = strs[from]; else nums[to] = nums[from];
+    }
+
+    private void clear(int k) {
+        keys[k] = 0;
+        if (strings) strs[k] = null;
+    }
+
+    private void grow() {
+        if (count * 2 <= keys.length) return;
+        if (keys.length == MAX_CAPACITY) throw new Interpreter.BasicException("Array: zu viele belegte Zellen (" + count + ")");
+        long[] oldKeys = keys; double[] oldNums = nums; CharSequence[] oldStrs = strs;
+        keys = new long[oldKeys.length * 2];
+        if (strings) strs = new CharSequence[keys.length]; else nums = new double[keys.length];
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] == 0) continue;
+            int n = slot(oldKeys[k] - 1);
+            keys[n] = oldKeys[k];
+            if (strings) strs[n] = oldStrs[k]; else nums[n] = oldNums[k];
+        }
+    }
+
+    // belegte Zellen in das dichte Array übertragen
+    void copyTo(double[] dst) { for (int k = 0; k < keys.length; k++) if (keys[k] != 0) dst[(int) (keys[k] - 1)] = nums[k]; }
+    void copyTo(OffHeap dst) { for (int k = 0; k < keys.length; k++) if (keys[k] != 0) dst.set(keys[k] - 1, nums[k]); }
+    void copyTo(CharSequence[] dst) { for (int k = 0; k < keys.length; k++) if (keys[k] != 0) dst[(int) (keys[k] - 1)] = strs[k]; }
+}
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * Lange BASIC-Zeichenkette als Ausschnitt (off, len) eines gemeinsamen char-Puffers.
+ *
+ * Anhängen: reicht die linke Seite genau bis zum belegten Ende ihres Puffers, werden nur die
+ * neuen Zeichen dahinter geschrieben; {@code A$ = A$ + X$} kopiert A$ also nicht mehr (der Puffer
+ * wächst bei Bedarf auf das Doppelte). Sonst entsteht ein neuer Puffer. LEFT$/MID$/RIGHT$ liefern
+ * Ausschnitte desselben Puffers ohne Kopie. Geschriebene Zeichen ändern sich nie mehr, jeder
+ * Ausschnitt bleibt also unveränderlich.
+ *
+ * Kurze Ergebnisse (unter {@link #SMALL} Zeichen) sind gewöhnliche Strings: die Kopie ist dort
+ * billiger als der Umweg, und kleine Ausschnitte halten so keinen großen Puffer am Leben.
+ * Nicht threadsicher, wie der Rest des Laufzeitsystems.
+ */
+final class Text implements CharSequence {
+    static final int SMALL = 32;
+    private static final int MAX = Integer.MAX_VALUE - 8;
+
+    // belegt: chars[0, used); nur ein Ausschnitt, der bei used endet, darf anhängen
+    private static final class Buffer {
+        char[] chars;
+        int used;
+        Buffer(int capacity) { chars = new char[capacity]; }
+    }
+
+    private final Buffer buf;
+    private final int off, len;
+    private String flat;                               // toString, erst bei Bedarf
+
+    private Text(Buffer buf, int off, int len) { this.buf = buf; this.off = off; this.len = len; }
+
+    /** a + b; ohne Kopie von a, wenn a am Ende seines Puffers liegt. */
+    static CharSequence concat(CharSequence a, CharSequence b) {
+        int la = a.length(), lb = b.length();
+        if (lb == 0) return a;
+        if (la == 0) return b;
+        if ((long) la + lb > MAX) throw new Interpreter.BasicException("Zeichenkette zu lang");
+        int n = la + lb;
+        if (n < SMALL) return a.toString().concat(b.toString());
+        if (a instanceof Text t && t.off + t.len == t.buf.used) {
+            Buffer p = t.buf;
+            if (p.chars.length - p.used < lb) {
+                p.chars = Arrays.copyOf(p.chars, (int) Math.min(MAX, Math.max((long) p.used + lb, 2L * p.chars.length)));
+            }
+            getChars(b, 0, lb, p.chars, p.used);
+            p.used += lb;
+            return new Text(p, t.off, n);
+        }
+        Buffer p = new Buffer(n);
+        getChars(a, 0, la, p.chars, 0);
+        getChars(b, 0, lb, p.chars, la);
+        p.used = n;
+        return new Text(p, 0, n);
+    }
+
+    /** s[begin, end) ohne Kopie, wenn s ein Text ist und das Ergebnis nicht kurz. */
+    static CharSequence slice(CharSequence s, int begin, int end) {
+        if (begin == 0 && end == s.length()) return s;
+        if (s instanceof Text t) {
+            return (end - begin >= SMALL) ? new Text(t.buf, t.off + begin, end - begin) : new String(t.buf.chars, t.off + begin, end - begin);
+        }
+        return (s instanceof String str) ? str.substring(begin, end) : s.subSequence(begin, end).toString();
+    }
+
+    /** Lexikografisch wie String.compareTo. */
+    static int compare(CharSequence a, CharSequence b) {
+        if (a instanceof String x && b instanceof String y) return x.compareTo(y);
+        return CharSequence.compare(a, b);
+    }
+
+    /** Wie String.getChars, für String und Text ohne Zwischenkopie. */
+    static void getChars(CharSequence s, int from, int to, char[] dst, int at) {
+        if (s instanceof String str) str.getChars(from, to, dst, at);
+        else if (s instanceof Text t) System.arraycopy(t.buf.chars, t.off + from, dst, at, to - from);
+        else for (int i = from; i < to; i++) dst[at++] = s.charAt(i);
+    }
+
+    // für Search: die Zeichen liegen in array()[offset(), offset() + length())
+    char[] array() { return buf.chars; }
+    int offset() { return off; }
+
+    @Override public int length() { return len; }
+    @Override public char charAt(int i) {
+        if (i < 0 || i >= len) throw new StringIndexOutOfBoundsException(i);
+        return buf.chars[off + i];
+    }
+    @Override public CharSequence subSequence(int begin, int end) {
+        if (begin < 0 || end > len || begin > end) throw new StringIndexOutOfBoundsException("begin " + begin + ", end " + end + ", length " + len);
+        return slice(this, begin, end);
+    }
+    @Override public String toString() {
+        String s = flat;
+        if (s == null) flat = s = new String(buf.chars, off, len);
+        return s;
+    }
+}
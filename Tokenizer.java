@@ -1,84 +1,303 @@
-import java.util.Locale;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.*;
 
+/**
+ * Zerlegt eine Programmzeile in Tokens. Gearbeitet wird direkt auf einem char[]:
+ * das aktuelle Token ist nur Art + Anfang/Ende, Zahlen werden an Ort und Stelle gelesen,
+ * Schlüsselwörter über einen perfekten Hash erkannt. Strings entstehen nur für Namen
+ * (einmal je Name, danach aus der Namenstabelle) und für String-Literale.
+ *
+ * Der Tokenizer ist wiederverwendbar (reset je Zeile); die Namenstabelle bleibt dabei erhalten.
+ */
 public class Tokenizer {
-    private final String s;
-    private int i = 0;
-    private String cached = null;
+    // Token-Arten
+    static final int EOF = 0, NUMBER = 1, STRING = 2, IDENT = 3,
+            PLUS = 4, MINUS = 5, STAR = 6, SLASH = 7, LPAREN = 8, RPAREN = 9, COMMA = 10, SEMI = 11, COLON = 12, AMP = 13,
+            EQ = 14, NE = 15, LT = 16, LE = 17, GT = 18, GE = 19;
+    private static final String[] SYMBOLS = {
+            "", null, null, null, "+", "-", "*", "/", "(", ")", ",", ";", ":", "&", "=", "<>", "<", "<=", ">", ">=" };
 
-    public Tokenizer(String s) { this.s = s; }
+    // Schlüsselwörter (nur für IDENT-Tokens; NONE = gewöhnlicher Name)
+    static final int NONE = 0, REM = 1, PRINT = 2, LET = 3, INPUT = 4, IF = 5, THEN = 6, GOTO = 7, GOSUB = 8,
+            RETURN = 9, FOR = 10, TO = 11, STEP = 12, NEXT = 13, DIM = 14, RANDOMIZE = 15, END = 16, STOP = 17;
+    private static final String[] KEYWORDS = {
+            null, "REM", "PRINT", "LET", "INPUT", "IF", "THEN", "GOTO", "GOSUB",
+            "RETURN", "FOR", "TO", "STEP", "NEXT", "DIM", "RANDOMIZE", "END", "STOP" };
+    private static final int KW_MAX = 9;                    // längstes Schlüsselwort
+    private static final char[][] KW_WORD = new char[32][];
+    private static final byte[] KW_CODE = new byte[32];
+    static {
+        for (int k = 1; k < KEYWORDS.length; k++) {
+            char[] w = KEYWORDS[k].toCharArray();
+            int h = keywordHash(w[0], w[w.length - 2], w[w.length - 1], w.length);
+            if (KW_WORD[h] != null) throw new IllegalStateException("Schlüsselwort-Hash nicht eindeutig: " + KEYWORDS[k]);
+            KW_WORD[h] = w; KW_CODE[h] = (byte) k;
+        }
+    }
+    // kollisionsfrei für die Schlüsselwörter oben (beim Laden der Klasse geprüft); Zeichen groß geschrieben
+    private static int keywordHash(char first, char beforeLast, char last, int len) {
+        return (first * 18 + beforeLast * 14 + last + len) & 31;
+    }
+
+    private char[] s = new char[128];
+    private int len, pos;
+    // aktuelles Token
+    private int kind, start, end, keyword;
+    private double number;
+    private String name;                                     // bei IDENT: Name in Großbuchstaben
+
+    // Namen in Großbuchstaben, offene Adressierung; jeder Name wird nur einmal als String angelegt
+    private String[] names = new String[64];
+    private int nameCount;
+    private char[] upper = new char[32];
+
+    public Tokenizer() {}
+    public Tokenizer(String line) { reset(line); }
+
+    /** Beginnt eine neue Zeile; das erste Token steht danach bereit. */
+    public Tokenizer reset(String line) {
+        len = line.length();
+        if (s.length < len) s = new char[Math.max(len, s.length * 2)];
+        line.getChars(0, len, s, 0);
+        pos = 0;
+        advance();
+        return this;
+    }
+
+    public boolean hasMore() { return kind != EOF; }
+    public int kind() { return kind; }
+    public int keyword() { return keyword; }
+    public boolean is(int k) { return kind == k; }
+    /** Verbraucht das aktuelle Token, wenn es von der Art {@code k} ist. */
+    public boolean accept(int k) { if (kind != k) return false; advance(); return true; }
+    public void next() { advance(); }
+    /** Rest der Zeile ab dem aktuellen Token (für Fehlermeldungen). */
+    public String remaining() { return kind == EOF ? "" : new String(s, start, len - start); }
+    /** Überspringt den Rest der Zeile (REM). */
+    public void skipRest() { pos = len; kind = EOF; start = end = len; keyword = NONE; }
 
-    public boolean hasMore() { skipWs(); return i < s.length(); }
-    public String remaining() { if (!hasMore()) return ""; return s.substring(i); }
+    /** Text des aktuellen Tokens wie im Quelltext (für Fehlermeldungen). */
+    public String text() { return new String(s, start, end - start); }
+    /** Schreibweise einer Symbol-Art, z. B. "<=" für LE. */
+    static String symbol(int k) { return SYMBOLS[k]; }
 
-    public String peek() { if (cached == null) cached = nextToken(); return cached; }
-    public String peekUpper() { return peek().toUpperCase(Locale.ROOT); }
-    public String next() { if (cached != null) { String t = cached; cached = null; return t; } return nextToken(); }
+    public double number() { return number; }
+    public String name() { return name; }
+    /** Wert des aktuellen String-Literals ohne Anführungszeichen ("" im Literal wird zu "). */
+    public String string() {
+        int from = start + 1, to = end - 1, quotes = 0;
+        for (int k = from; k < to; k++) if (s[k] == '"') { quotes++; k++; }
+        if (quotes == 0) return new String(s, from, to - from);
+        char[] out = new char[to - from - quotes];
+        int n = 0;
+        for (int k = from; k < to; k++) { out[n++] = s[k]; if (s[k] == '"') k++; }
+        return new String(out);
+    }
 
-    public void expect(String sym) {
-        String t = next();
-        if (!sym.equals(t)) throw new Interpreter.BasicException("Erwartet '" + sym + "', erhielt '" + t + "'");
+    public void expect(int k) {
+        if (kind != k) throw new Interpreter.BasicException("Erwartet '" + SYMBOLS[k] + "', erhielt '" + text() + "'");
+        advance();
     }
     public int expectInteger() {
-        String t = next();
-        try { return Integer.parseInt(t); }
-        catch (NumberFormatException nfe) { throw new Interpreter.BasicException("Erwartete Zahl, erhielt '" + t + "'"); }
+        if (kind != NUMBER) throw new Interpreter.BasicException("Erwartete Zahl, erhielt '" + text() + "'");
+        long v = 0;
+        for (int k = start; k < end; k++) {
+            char c = s[k];
+            if (c == '.' || (v = v * 10 + (c - '0')) > Integer.MAX_VALUE)
+                throw new Interpreter.BasicException("Erwartete Zahl, erhielt '" + text() + "'");
+        }
+        advance();
+        return (int) v;
     }
     public String expectIdentifier() {
-        String t = next().toUpperCase(Locale.ROOT);
-        if (!(Character.isLetter(t.charAt(0)))) throw new Interpreter.BasicException("Erwartete Variable, erhielt '" + t + "'");
-        return t;
+        if (kind != IDENT) throw new Interpreter.BasicException("Erwartete Variable, erhielt '" + text().toUpperCase(Locale.ROOT) + "'");
+        String n = name;
+        advance();
+        return n;
     }
 
-    private void skipWs() { while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++; }
+    /* ===== Scanner ===== */
 
-    private String nextToken() {
-        skipWs();
-        if (i >= s.length()) return "";
-        char c = s.charAt(i);
+    private void advance() {
+        while (pos < len && Character.isWhitespace(s[pos])) pos++;
+        start = pos; keyword = NONE;
+        if (pos >= len) { kind = EOF; end = pos; return; }
+        char c = s[pos];
 
         if (c == '"') {
-            int start = i++;
-            StringBuilder sb = new StringBuilder(); sb.append('"');
-            boolean closed = false;
-            while (i < s.length()) {
-                char ch = s.charAt(i++); sb.append(ch);
-                if (ch == '"') {
-                    if (i < s.length() && s.charAt(i) == '"') { sb.append('"'); i++; continue; }
-                    else { closed = true; break; }
-                }
+            pos++;
+            while (true) {
+                if (pos >= len) throw new Interpreter.BasicException("Unbeendetes Stringliteral");
+                if (s[pos++] != '"') continue;
+                if (pos < len && s[pos] == '"') { pos++; continue; }
+                break;
             }
-            if (!closed) throw new Interpreter.BasicException("Unbeendetes Stringliteral");
-            return sb.toString();
+            kind = STRING; end = pos;
+            return;
         }
+        if (isDigit(c) || (c == '.' && pos + 1 < len && isDigit(s[pos + 1]))) { scanNumber(); return; }
+        if (Character.isLetter(c)) { scanName(); return; }
 
-        if (Character.isDigit(c) || (c == '.' && i + 1 < s.length() && Character.isDigit(s.charAt(i + 1)))
-                || ((c == '+' || c == '-') && i + 1 < s.length() && Character.isDigit(s.charAt(i + 1)))) {
-            int start = i++; boolean dot = (c == '.');
-            while (i < s.length()) {
-                char ch = s.charAt(i);
-                if (Character.isDigit(ch)) { i++; continue; }
-                if (ch == '.' && !dot) { dot = true; i++; continue; }
-                break;
+        pos++;
+        switch (c) {
+            case '+' -> kind = PLUS;
+            case '-' -> kind = MINUS;
+            case '*' -> kind = STAR;
+            case '/' -> kind = SLASH;
+            case '(' -> kind = LPAREN;
+            case ')' -> kind = RPAREN;
+            case ',' -> kind = COMMA;
+            case ';' -> kind = SEMI;
+            case ':' -> kind = COLON;
+            case '&' -> kind = AMP;
+            case '=' -> kind = EQ;
+            case '<' -> {
+                if (pos < len && s[pos] == '>') { pos++; kind = NE; }
+                else if (pos < len && s[pos] == '=') { pos++; kind = LE; }
+                else kind = LT;
+            }
+            case '>' -> {
+                if (pos < len && s[pos] == '=') { pos++; kind = GE; }
+                else kind = GT;
             }
-            return s.substring(start, i);
+            default -> throw new Interpreter.BasicException("Unerwartetes Zeichen: '" + c + "'");
         }
+        end = pos;
+    }
 
-        if (Character.isLetter(c)) {
-            int start = i++; while (i < s.length()) {
-                char ch = s.charAt(i);
-                if (Character.isLetterOrDigit(ch) || ch == '$' || ch == '_') { i++; continue; }
-                break;
-            }
-            return s.substring(start, i);
+    private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    // Ziffern [. Ziffern]; bis 15 signifikante Stellen und 22 Nachkommastellen sind Mantisse und
+    // Zehnerpotenz exakt, die Division rundet dann genau wie Double.parseDouble
+    private void scanNumber() {
+        long mantissa = 0;
+        int digits = 0, fraction = 0;
+        boolean dot = false;
+        for (; pos < len; pos++) {
+            char c = s[pos];
+            if (isDigit(c)) {
+                if (digits > 0 || c != '0') digits++;
+                if (digits <= 15) mantissa = mantissa * 10 + (c - '0');
+                if (dot) fraction++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else break;
+        }
+        kind = NUMBER; end = pos;
+        if (digits <= 15 && fraction <= 22) number = mantissa / POW10[fraction];
+        else number = Double.parseDouble(new String(s, start, end - start));
+    }
+
+    private void scanName() {
+        int h = 0;
+        if (upper.length < len) upper = new char[len];
+        int n = 0;
+        boolean ascii = true;
+        for (; pos < len; pos++) {
+            char c = s[pos];
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            else if (c >= 128) {
+                if (!Character.isLetterOrDigit(c)) break;
+                ascii = false;
+            } else if (!((c >= 'A' && c <= 'Z') || isDigit(c) || c == '$' || c == '_')) break;
+            upper[n++] = c;
+            h = 31 * h + c;
+        }
+        kind = IDENT; end = pos;
+        if (!ascii) {
+            // Sonderfälle wie ß -> SS: wie bisher über String.toUpperCase
+            String u = new String(s, start, end - start).toUpperCase(Locale.ROOT);
+            n = u.length(); h = u.hashCode();
+            if (upper.length < n) upper = new char[n];
+            u.getChars(0, n, upper, 0);
+        }
+        if (n >= 2 && n <= KW_MAX) {
+            int k = keywordHash(upper[0], upper[n - 2], upper[n - 1], n);
+            if (KW_CODE[k] != 0 && Arrays.equals(KW_WORD[k], 0, KW_WORD[k].length, upper, 0, n)) keyword = KW_CODE[k];
+        }
+        name = intern(upper, n, h);
+    }
+
+    private String intern(char[] c, int n, int h) {
+        int mask = names.length - 1;
+        for (int k = (h ^ (h >>> 16)) & mask; ; k = (k + 1) & mask) {
+            String e = names[k];
+            if (e == null) break;
+            if (e.length() == n && e.hashCode() == h && sameChars(e, c, n)) return e;
         }
+        String e = new String(c, 0, n);
+        if (++nameCount * 2 > names.length) rehash();
+        mask = names.length - 1;
+        int k = (h ^ (h >>> 16)) & mask;
+        while (names[k] != null) k = (k + 1) & mask;
+        names[k] = e;
+        return e;
+    }
+
+    private static boolean sameChars(String e, char[] c, int n) {
+        for (int k = 0; k < n; k++) if (e.charAt(k) != c[k]) return false;
+        return true;
+    }
 
-        if (i + 1 < s.length()) {
-            String two = s.substring(i, i + 2);
-            if (two.equals("<>") || two.equals("<=") || two.equals(">=")) { i += 2; return two; }
+    private void rehash() {
+        String[] old = names;
+        names = new String[old.length * 2];
+        int mask = names.length - 1;
+        for (String e : old) {
+            if (e == null) continue;
+            int h = e.hashCode(), k = (h ^ (h >>> 16)) & mask;
+            while (names[k] != null) k = (k + 1) & mask;
+            names[k] = e;
         }
+    }
+
+    /* ============================ DURCHSATZ ============================ */
 
-        if ("+-*/()=,<>&".indexOf(c) >= 0 || c == '>' || c == ';' || c == ':') { i++; return String.valueOf(c); }
+    /**
+     * Durchsatz-Messung: zerlegt alle Zeilen des Programms {@code runs}-mal nur in Tokens
+     * und misst danach Laden + Übersetzen des ganzen Programms (wie bei RUN, ohne Ausführung).
+     */
+    static void benchmark(Path bas, int runs, PrintStream out) throws IOException {
+        Interpreter interp = new Interpreter(FunctionRegistry.createDefault());
+        interp.load(bas);
+        List<String> source = new ArrayList<>();
+        long chars = 0;
+        for (int ln : interp.programLines()) { String t = interp.sourceLine(ln); source.add(t); chars += t.length(); }
 
-        throw new Interpreter.BasicException("Unerwartetes Zeichen: '" + c + "'");
+        Tokenizer tz = new Tokenizer();
+        long[] tt = new long[runs], tl = new long[runs];
+        long tokens = 0;
+        for (int r = 0; r < runs; r++) {
+            long t0 = System.nanoTime();
+            tokens = 0;
+            for (String line : source) {
+                tz.reset(line);
+                if (tz.keyword() == REM) { tokens++; continue; }
+                while (tz.hasMore()) { tz.next(); tokens++; }
+            }
+            tt[r] = System.nanoTime() - t0;
+        }
+        for (int r = 0; r < runs; r++) {
+            long t0 = System.nanoTime();
+            Interpreter fresh = new Interpreter(interp.functions());
+            fresh.load(bas);
+            fresh.compileProgram(fresh.programLines());
+            tl[r] = System.nanoTime() - t0;
+        }
+        long best = min(tt);
+        out.printf(Locale.ROOT, "%d Zeilen, %d Zeichen, %d Tokens%n", source.size(), chars, tokens);
+        out.printf(Locale.ROOT, "Tokenizer:            min %.1f ms, Median %.1f ms (%.1f Mio. Tokens/s, %.1f MB/s)%n",
+                best / 1e6, median(tt) / 1e6, tokens * 1e3 / best, chars * 1e3 / best);
+        out.printf(Locale.ROOT, "Laden + Übersetzen:   min %.1f ms, Median %.1f ms (%.0f Zeilen/s)%n",
+                min(tl) / 1e6, median(tl) / 1e6, source.size() * 1e9 / min(tl));
     }
+
+    private static long min(long[] a) { return Arrays.stream(a).min().orElse(0); }
+    private static long median(long[] a) { long[] c = a.clone(); Arrays.sort(c); return c[c.length / 2]; }
 }
@@ -0,0 +1,505 @@
+import java.util.*;
+
+/**
+ * Alternative Ausführung (--engine=vm): das gebundene Programm wird in einen flachen
+ * int[]-Befehlsstrom mit Konstantenpool und nummerierten Registern übersetzt und von
+ * einer einzigen Dispatch-Schleife ausgeführt.
+ *
+ * Register: numerische Register sind rt.nums (Variablen-Slots, danach Konstanten und
+ * Temporäre), String-Register entsprechend rt.strs. Operanden zeigen direkt auf
+ * Variablen, daher ist z. B. {@code I = I + 1} ein einziger Befehl.
+ * Superinstruktionen: JCMP (Vergleich + bedingter Sprung), INC (Variable += Konstante),
+ * NEXT (Schritt + Test + Rücksprung in einem Befehl).
+ */
+final class Vm {
+    // Opcodes; Operanden folgen direkt im Befehlsstrom
+    static final int
+        LINE = 0,      // pc line                    Zeilenanfang (Context.pc/currentLine)
+        HALT = 1,      //                            Programmende, END/STOP
+        NMOV = 2,      // d a
+        ADD = 3, SUB = 4, MUL = 5, DIV = 6,   // d a b
+        NEG = 7,       // d a
+        CMP = 8,       // d code a b                 numerischer Vergleich -> 1/0
+        SCMP = 9,      // d code a b                 String-Vergleich -> 1/0
+        STRUTH = 10,   // d s                        nicht-leer -> 1
+        S2N = 11,      // d s
+        N2S = 12,      // sd a
+        CAT = 13,      // sd sa sb
+        SMOV = 14,     // sd sa
+        AGETN = 15,    // d slot k i1..ik
+        AGETS = 16,    // sd slot k i1..ik
+        ASETN = 17,    // slot v k i1..ik
+        ASETS = 18,    // slot sv k i1..ik
+        CALLN = 19,    // d fn k a1..ak              fn: gebundene Funktion im Pool; Argument >= 0: Zahl-Register, < 0: ~String-Register
+        CALLS = 20,    // sd fn k a1..ak
+        CALL = 21,     // fn k a1..ak                Ergebnis verworfen
+        TYPEERR = 22,  // msg
+        PRINTN = 23,   // a
+        PRINTS = 24,   // sa
+        PRINTSP = 25,
+        PRINTLN = 26,
+        INPUT = 27,    // slot name
+        JMP = 28,      // target                     Programmindex
+        JT = 29,       // a target
+        JF = 30,       // a addr                     Adresse im Befehlsstrom (Rest der Zeile überspringen)
+        GOSUB = 31,    // target
+        RET = 32,
+        FOR = 33,      // slot name start end step
+        NEXT = 34,     // slot
+        DIM = 35,      // slot stringType file k d1..dk   file: String-Register (AS FILE) oder -1
+        RANDOMIZE = 36,// a (-1 = Zeit)
+        JCMP = 37,     // code a b target
+        INC = 38,      // slot k
+        NEVAL = 39,    // d node                     unbekannte Knoten: Baum-Interpreter
+        SEVAL = 40,    // sd node
+        EXEC = 41;     // node
+
+    /** Übersetztes Programm; gültig für die Slot-Belegung, mit der es erzeugt wurde. */
+    static final class Program {
+        final int[] code; final int[] lineAddr; final Object[] pool;
+        final int numVars, strVars, numRegs, strRegs;
+        final double[] numConsts; final String[] strConsts;
+        Program(int[] code, int[] lineAddr, Object[] pool, int numVars, int strVars, int numRegs, int strRegs,
+                double[] numConsts, String[] strConsts) {
+            this.code = code; this.lineAddr = lineAddr; this.pool = pool;
+            this.numVars = numVars; this.strVars = strVars; this.numRegs = numRegs; this.strRegs = strRegs;
+            this.numConsts = numConsts; this.strConsts = strConsts;
+        }
+    }
+
+    private Vm() {}
+
+    /* ============================ AUSFÜHRUNG ============================ */
+
+    /** Führt das Programm aus; Fehler tragen wie beim Baum-Interpreter die Zeile aus c.currentLine. */
+    static void execute(Program p, Interpreter.Context c) {
+        Interpreter rt = c.rt;
+        // Registerdatei = Variablen-Slots + Konstanten + Temporäre
+        if (rt.nums.length < p.numRegs) rt.nums = Arrays.copyOf(rt.nums, p.numRegs);
+        if (rt.strs.length < p.strRegs) rt.strs = Arrays.copyOf(rt.strs, p.strRegs);
+        System.arraycopy(p.numConsts, 0, rt.nums, p.numVars, p.numConsts.length);
+        System.arraycopy(p.strConsts, 0, rt.strs, p.strVars, p.strConsts.length);
+        try {
+            loop(p, c, rt, rt.nums, rt.strs);
+        } finally {
+            // Register hinter den Variablen wieder leeren: später vergebene Slots beginnen bei 0 bzw. ""
+            Arrays.fill(rt.nums, p.numVars, rt.nums.length, 0.0);
+            Arrays.fill(rt.strs, p.strVars, rt.strs.length, null);
+        }
+    }
+
+    private static void loop(Program p, Interpreter.Context c, Interpreter rt, double[] N, CharSequence[] S) {
+        final int[] code = p.code, lineAddr = p.lineAddr;
+        final Object[] pool = p.pool;
+        int ip = 0;
+        for (;;) {
+            switch (code[ip]) {
+                case LINE -> { c.pc = code[ip + 1]; c.currentLine = code[ip + 2]; c.trace(c.pc); ip += 3; }
+                case HALT -> { c.stop = true; return; }
+                case NMOV -> { N[code[ip + 1]] = N[code[ip + 2]]; ip += 3; }
+                case ADD -> { N[code[ip + 1]] = N[code[ip + 2]] + N[code[ip + 3]]; ip += 4; }
+                case SUB -> { N[code[ip + 1]] = N[code[ip + 2]] - N[code[ip + 3]]; ip += 4; }
+                case MUL -> { N[code[ip + 1]] = N[code[ip + 2]] * N[code[ip + 3]]; ip += 4; }
+                case DIV -> { N[code[ip + 1]] = Nodes.div(N[code[ip + 2]], N[code[ip + 3]]); ip += 4; }
+                case NEG -> { N[code[ip + 1]] = -N[code[ip + 2]]; ip += 3; }
+                case CMP -> {
+                    N[code[ip + 1]] = Nodes.test(code[ip + 2], Double.compare(N[code[ip + 3]], N[code[ip + 4]])) ? 1.0 : 0.0;
+                    ip += 5;
+                }
+                case SCMP -> {
+                    N[code[ip + 1]] = Nodes.test(code[ip + 2], Text.compare(str(S[code[ip + 3]]), str(S[code[ip + 4]]))) ? 1.0 : 0.0;
+                    ip += 5;
+                }
+                case STRUTH -> { N[code[ip + 1]] = str(S[code[ip + 2]]).isEmpty() ? 0.0 : 1.0; ip += 3; }
+                case S2N -> { N[code[ip + 1]] = Numbers.parse(str(S[code[ip + 2]])); ip += 3; }
+                case N2S -> { S[code[ip + 1]] = Numbers.format(N[code[ip + 2]]); ip += 3; }
+                case CAT -> { S[code[ip + 1]] = Text.concat(str(S[code[ip + 2]]), str(S[code[ip + 3]])); ip += 4; }
+                case SMOV -> { S[code[ip + 1]] = str(S[code[ip + 2]]); ip += 3; }
+                case AGETN -> { int k = code[ip + 3]; N[code[ip + 1]] = rt.getArrayNum(code[ip + 2], indices(code, ip + 4, k, N)); ip += 4 + k; }
+                case AGETS -> { int k = code[ip + 3]; S[code[ip + 1]] = rt.getArrayStr(code[ip + 2], indices(code, ip + 4, k, N)); ip += 4 + k; }
+                case ASETN -> { int k = code[ip + 3]; rt.setArrayNum(code[ip + 1], indices(code, ip + 4, k, N), N[code[ip + 2]]); ip += 4 + k; }
+                case ASETS -> { int k = code[ip + 3]; rt.setArrayStr(code[ip + 1], indices(code, ip + 4, k, N), str(S[code[ip + 2]])); ip += 4 + k; }
+                case CALLN -> {
+                    int k = code[ip + 3];
+                    N[code[ip + 1]] = call(rt, (BuiltinFunction) pool[code[ip + 2]], code, ip + 4, k, N, S).asNumber();
+                    ip += 4 + k;
+                }
+                case CALLS -> {
+                    int k = code[ip + 3];
+                    S[code[ip + 1]] = call(rt, (BuiltinFunction) pool[code[ip + 2]], code, ip + 4, k, N, S).asText();
+                    ip += 4 + k;
+                }
+                case CALL -> {
+                    int k = code[ip + 2];
+                    call(rt, (BuiltinFunction) pool[code[ip + 1]], code, ip + 3, k, N, S);
+                    ip += 3 + k;
+                }
+                case TYPEERR -> Nodes.typeError((String) pool[code[ip + 1]]);
+                case PRINTN -> { c.out.print(N[code[ip + 1]]); ip += 2; }
+                case PRINTS -> { c.out.print(str(S[code[ip + 1]])); ip += 2; }
+                case PRINTSP -> { c.out.print(" "); ip += 1; }
+                case PRINTLN -> { c.out.println(); ip += 1; }
+                case INPUT -> { Nodes.input(c, code[ip + 1], (String) pool[code[ip + 2]]); ip += 3; }
+                case JMP -> ip = lineAddr[code[ip + 1]];
+                case JT -> ip = (N[code[ip + 1]] != 0.0) ? lineAddr[code[ip + 2]] : ip + 3;
+                case JF -> ip = (N[code[ip + 1]] != 0.0) ? ip + 3 : code[ip + 2];
+                case JCMP -> ip = Nodes.test(code[ip + 1], Double.compare(N[code[ip + 2]], N[code[ip + 3]]))
+                        ? lineAddr[code[ip + 4]] : ip + 5;
+                case INC -> { N[code[ip + 1]] += N[code[ip + 2]]; ip += 3; }
+                case GOSUB -> { Nodes.gosub(c, code[ip + 1]); ip = lineAddr[c.jumpPc]; c.jumpPc = -1; }
+                case RET -> { Nodes.ret(c); ip = lineAddr[c.jumpPc]; c.jumpPc = -1; }
+                case FOR -> {
+                    Nodes.enterFor(c, code[ip + 1], (String) pool[code[ip + 2]], N[code[ip + 3]], N[code[ip + 4]], N[code[ip + 5]]);
+                    ip += 6;
+                }
+                case NEXT -> {
+                    // Superinstruktion: Schritt, Endtest und Rücksprung ohne Umweg über jumpPc
+                    if (c.forEmpty()) throw new Interpreter.BasicException("NEXT ohne FOR");
+                    Interpreter.ForFrame f = c.peekFor();
+                    if (f.slot != code[ip + 1]) throw new Interpreter.BasicException("NEXT für falsche Variable (erwartet " + f.var + ")");
+                    double cur = N[f.slot] + f.step;
+                    N[f.slot] = cur;
+                    if (f.step >= 0 ? (cur <= f.end) : (cur >= f.end)) ip = lineAddr[f.pcAfterFor];
+                    else { c.popFor(); ip += 2; }
+                }
+                case DIM -> {
+                    int k = code[ip + 4];
+                    int[] dims = new int[k];
+                    for (int i = 0; i < k; i++) dims[i] = Nodes.dimSize(N[code[ip + 5 + i]]);
+                    int file = code[ip + 3];
+                    rt.dimArray(code[ip + 1], code[ip + 2] != 0, dims, (file >= 0) ? str(S[file]) : null);
+                    ip += 5 + k;
+                }
+                case RANDOMIZE -> { int a = code[ip + 1]; rt.randomize(a < 0 ? null : (long) N[a]); ip += 2; }
+                case NEVAL -> { N[code[ip + 1]] = ((Interpreter.NumExpr) pool[code[ip + 2]]).evalNumber(rt); ip += 3; }
+                case SEVAL -> { S[code[ip + 1]] = ((Interpreter.StrExpr) pool[code[ip + 2]]).evalString(rt); ip += 3; }
+                case EXEC -> {
+                    c.clearControl();
+                    ((Interpreter.Statement) pool[code[ip + 1]]).execute(c);
+                    if (c.stop) return;
+                    if (c.jumpPc >= 0) { ip = lineAddr[c.jumpPc]; c.jumpPc = -1; }
+                    else ip += 2;
+                }
+                default -> throw new IllegalStateException("VM: unbekannter Opcode " + code[ip]);
+            }
+        }
+    }
+
+    private static CharSequence str(CharSequence s) { return (s != null) ? s : ""; }
+
+    private static int[] indices(int[] code, int at, int k, double[] N) {
+        int[] ii = new int[k];
+        for (int i = 0; i < k; i++) ii[i] = (int) Math.floor(N[code[at + i]]);
+        return ii;
+    }
+
+    // Aufruf der gebundenen Funktion; bis 3 Argumente ohne Array/Liste
+    private static Interpreter.Value call(Interpreter rt, BuiltinFunction f, int[] code, int at, int k, double[] N, CharSequence[] S) {
+        switch (k) {
+            case 0: return Nodes.call0(rt, f);
+            case 1: return Nodes.call1(rt, f, arg(code[at], N, S));
+            case 2: return Nodes.call2(rt, f, arg(code[at], N, S), arg(code[at + 1], N, S));
+            case 3: return Nodes.call3(rt, f, arg(code[at], N, S), arg(code[at + 1], N, S), arg(code[at + 2], N, S));
+            default:
+                Interpreter.Value[] v = new Interpreter.Value[k];
+                for (int i = 0; i < k; i++) v[i] = arg(code[at + i], N, S);
+                return Nodes.callValues(rt, f, v);
+        }
+    }
+
+    private static Interpreter.Value arg(int r, double[] N, CharSequence[] S) {
+        return (r >= 0) ? Interpreter.Value.number(N[r]) : Interpreter.Value.string(str(S[~r]));
+    }
+
+    /* ============================ ÜBERSETZUNG ============================ */
+
+    static Program compile(Interpreter.Statement[] program, int[] lines, int numVars, int strVars) {
+        return new Compiler(numVars, strVars).compile(program, lines);
+    }
+
+    private static final class Compiler {
+        private final int numVars, strVars;
+        private int[] code = new int[256];
+        private int size = 0;
+        private final List<Object> pool = new ArrayList<>();
+        private final Map<Object, Integer> poolIndex = new HashMap<>();
+        private final List<Double> numConsts = new ArrayList<>();
+        private final Map<Long, Integer> numConstIndex = new HashMap<>();
+        private final List<String> strConsts = new ArrayList<>();
+        private final Map<String, Integer> strConstIndex = new HashMap<>();
+        // Temporäre Register je Statement; Nummern relativ zum Beginn des Temporärbereichs
+        private int numTemp, strTemp, maxNumTemp, maxStrTemp;
+
+        Compiler(int numVars, int strVars) { this.numVars = numVars; this.strVars = strVars; }
+
+        Program compile(Interpreter.Statement[] program, int[] lines) {
+            int[] lineAddr = new int[program.length];
+            for (int pc = 0; pc < program.length; pc++) {
+                lineAddr[pc] = size;
+                emit(LINE, pc, lines[pc]);
+                stmt(program[pc]);
+            }
+            emit(HALT);
+            // Temporäre liegen hinter den Konstanten: Registernummern jetzt festlegen
+            int numBase = numVars + numConsts.size(), strBase = strVars + strConsts.size();
+            resolveTemps(numBase, strBase);
+            double[] nc = new double[numConsts.size()];
+            for (int i = 0; i < nc.length; i++) nc[i] = numConsts.get(i);
+            return new Program(Arrays.copyOf(code, size), lineAddr, pool.toArray(), numVars, strVars,
+                    numBase + maxNumTemp, strBase + maxStrTemp, nc, strConsts.toArray(new String[0]));
+        }
+
+        /* ----- Registervergabe ----- */
+        // Temporäre werden vorläufig negativ kodiert (TEMP - n) und am Ende verschoben,
+        // weil die Anzahl der Konstanten erst nach der Übersetzung feststeht.
+        private static final int TEMP = -1_000_000;
+        private final BitSet numTempAt = new BitSet(), strTempAt = new BitSet(), strArgAt = new BitSet();
+
+        private int numTemp() { int t = numTemp++; maxNumTemp = Math.max(maxNumTemp, numTemp); return TEMP - t; }
+        private int strTemp() { int t = strTemp++; maxStrTemp = Math.max(maxStrTemp, strTemp); return TEMP - t; }
+
+        private void resolveTemps(int numBase, int strBase) {
+            for (int i = numTempAt.nextSetBit(0); i >= 0; i = numTempAt.nextSetBit(i + 1)) code[i] = numBase + (TEMP - code[i]);
+            for (int i = strTempAt.nextSetBit(0); i >= 0; i = strTempAt.nextSetBit(i + 1)) code[i] = strBase + (TEMP - code[i]);
+            for (int i = strArgAt.nextSetBit(0); i >= 0; i = strArgAt.nextSetBit(i + 1)) code[i] = ~(strBase + (TEMP - code[i]));
+        }
+
+        private int numConst(double d) {
+            Integer r = numConstIndex.get(Double.doubleToRawLongBits(d));
+            if (r == null) {
+                r = numVars + numConsts.size();
+                numConsts.add(d);
+                numConstIndex.put(Double.doubleToRawLongBits(d), r);
+            }
+            return r;
+        }
+
+        private int strConst(String s) {
+            Integer r = strConstIndex.get(s);
+            if (r == null) {
+                r = strVars + strConsts.size();
+                strConsts.add(s);
+                strConstIndex.put(s, r);
+            }
+            return r;
+        }
+
+        private int poolRef(Object o) {
+            Integer i = poolIndex.get(o);
+            if (i == null) { i = pool.size(); pool.add(o); poolIndex.put(o, i); }
+            return i;
+        }
+
+        // Fallback-Knoten nie zusammenlegen (Identität statt equals)
+        private int poolNode(Object node) { pool.add(node); return pool.size() - 1; }
+
+        /* ----- Befehlsstrom ----- */
+        private void emit(int... words) {
+            if (size + words.length > code.length) code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+            System.arraycopy(words, 0, code, size, words.length);
+            size += words.length;
+        }
+
+        // Registeroperand anhängen; vorläufige Temporäre für die spätere Verschiebung merken
+        private void num(int reg) { if (reg <= TEMP) numTempAt.set(size); emit(reg); }
+        private void str(int reg) { if (reg <= TEMP) strTempAt.set(size); emit(reg); }
+        // String-Argumente als ~Register; bei Temporären erst nach der Verschiebung
+        private void strArg(int reg) { if (reg <= TEMP) { strArgAt.set(size); emit(reg); } else emit(~reg); }
+
+        /* ----- Statements ----- */
+        private void stmt(Interpreter.Statement st) {
+            numTemp = 0; strTemp = 0;
+            if (st instanceof Nodes.Nop) return;
+            if (st instanceof Nodes.Seq q) { for (Interpreter.Statement part : q.parts) stmt(part); return; }
+            if (st instanceof Nodes.Print pr) {
+                for (int i = 0; i < pr.parts.length; i++) {
+                    Interpreter.Expr e = pr.parts[i];
+                    if (e instanceof Interpreter.NumExpr n) { int r = numExpr(n, -1); emit(PRINTN); num(r); }
+                    else { int r = strExpr((Interpreter.StrExpr) e, -1); emit(PRINTS); str(r); }
+                    if (i < pr.seps.length && pr.seps[i] == ',') emit(PRINTSP);
+                }
+                emit(PRINTLN);
+            } else if (st instanceof Nodes.NumAssign a) {
+                if (!increment(a)) numExpr(a.value, a.slot);
+            } else if (st instanceof Nodes.StrAssign a) {
+                strExpr(a.value, a.slot);
+            } else if (st instanceof Nodes.ArrayAssign a) {
+                if (a.value instanceof Interpreter.NumExpr n) {
+                    int v = numExpr(n, -1);
+                    int[] ix = indexRegs(a.idx);
+                    emit(ASETN, a.slot); num(v); emit(ix.length); for (int r : ix) num(r);
+                } else {
+                    int v = strExpr((Interpreter.StrExpr) a.value, -1);
+                    int[] ix = indexRegs(a.idx);
+                    emit(ASETS, a.slot); str(v); emit(ix.length); for (int r : ix) num(r);
+                }
+            } else if (st instanceof Nodes.ArrayStore1 || st instanceof Nodes.ArrayStore2) {
+                Nodes.ArrayAccess a = (Nodes.ArrayAccess) st;
+                Interpreter.Expr value = (st instanceof Nodes.ArrayStore1 s) ? s.value : ((Nodes.ArrayStore2) st).value;
+                int v = a.strings() ? strExpr((Interpreter.StrExpr) value, -1) : numExpr((Interpreter.NumExpr) value, -1);
+                int[] ix = indexRegs(a.indices());
+                emit(a.strings() ? ASETS : ASETN, a.slot());
+                if (a.strings()) str(v); else num(v);
+                emit(ix.length); for (int r : ix) num(r);
+            } else if (st instanceof Nodes.Input in) {
+                emit(INPUT, in.slot, poolRef(in.name));
+            } else if (st instanceof Nodes.IfJump j) {
+                if (j.cond instanceof Nodes.NumCompare cmp) {
+                    // Superinstruktion: IF a < b THEN <zeile>
+                    int a = numExpr(cmp.a, -1), b = numExpr(cmp.b, -1);
+                    emit(JCMP, cmp.code); num(a); num(b); emit(j.target);
+                } else {
+                    int r = numExpr(j.cond, -1);
+                    emit(JT); num(r); emit(j.target);
+                }
+            } else if (st instanceof Nodes.IfThen t) {
+                int r = numExpr(t.cond, -1);
+                emit(JF); num(r);
+                int patch = size;
+                emit(0);
+                stmt(t.inner);
+                code[patch] = size;
+            } else if (st instanceof Nodes.Goto g) {
+                emit(JMP, g.target);
+            } else if (st instanceof Nodes.Gosub g) {
+                emit(GOSUB, g.target);
+            } else if (st instanceof Nodes.Return) {
+                emit(RET);
+            } else if (st instanceof Nodes.For f) {
+                int s = numExpr(f.start, -1), e = numExpr(f.end, -1);
+                int step = (f.step == null) ? numConst(1.0) : numExpr(f.step, -1);
+                emit(FOR, f.slot, poolRef(f.name)); num(s); num(e); num(step);
+            } else if (st instanceof Nodes.Next x) {
+                emit(NEXT, x.slot);
+            } else if (st instanceof Nodes.Dim d) {
+                for (Nodes.DimDef def : d.defs) {
+                    int[] regs = new int[def.dims.length];
+                    for (int i = 0; i < regs.length; i++) regs[i] = numExpr(def.dims[i], -1);
+                    int file = (def.file != null) ? strExpr(def.file, -1) : 0;
+                    emit(DIM, def.slot, def.stringType ? 1 : 0);
+                    if (def.file != null) str(file); else emit(-1);
+                    emit(regs.length);
+                    for (int r : regs) num(r);
+                }
+            } else if (st instanceof Nodes.Randomize r) {
+                if (r.seed == null) emit(RANDOMIZE, -1);
+                else { int s = numExpr(r.seed, -1); emit(RANDOMIZE); num(s); }
+            } else if (st instanceof Nodes.End) {
+                emit(HALT);
+            } else if (st instanceof Nodes.CallStmt cs) {
+                call(CALL, -1, false, cs.fn, cs.args);
+            } else {
+                emit(EXEC, poolNode(st));
+            }
+        }
+
+        // I = I + k / I = I - k  ->  INC I, k
+        private boolean increment(Nodes.NumAssign a) {
+            if (!(a.value instanceof Nodes.NumBinary b) || (b.op != '+' && b.op != '-')) return false;
+            if (!(b.a instanceof Nodes.NumVar v) || v.slot != a.slot || !(b.b instanceof Nodes.NumLit k)) return false;
+            emit(INC, a.slot, numConst(b.op == '+' ? k.value : -k.value));
+            return true;
+        }
+
+        private int[] indexRegs(Interpreter.NumExpr[] idx) {
+            int[] regs = new int[idx.length];
+            for (int i = 0; i < regs.length; i++) regs[i] = numExpr(idx[i], -1);
+            return regs;
+        }
+
+        private void call(int op, int dst, boolean strDst, BuiltinFunction fn, Interpreter.Expr[] args) {
+            // Argumente zuerst (Reihenfolge wie im Baum), dann der Aufruf
+            int[] regs = new int[args.length];
+            boolean[] isStr = new boolean[args.length];
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] instanceof Interpreter.NumExpr n) regs[i] = numExpr(n, -1);
+                else { regs[i] = strExpr((Interpreter.StrExpr) args[i], -1); isStr[i] = true; }
+            }
+            if (op == CALL) emit(CALL, poolRef(fn), args.length);
+            else { emit(op); if (strDst) str(dst); else num(dst); emit(poolRef(fn), args.length); }
+            for (int i = 0; i < args.length; i++) {
+                if (isStr[i]) strArg(regs[i]); else num(regs[i]);
+            }
+        }
+
+        /* ----- Ausdrücke ----- */
+        // Liefert das Register mit dem Ergebnis; dst >= 0 erzwingt ein Zielregister.
+        private int numExpr(Interpreter.NumExpr e, int dst) {
+            if (e instanceof Nodes.NumLit l) return move(numConst(l.value), dst);
+            if (e instanceof Nodes.NumVar v) return move(v.slot, dst);
+            int d = (dst >= 0) ? dst : numTemp();
+            if (e instanceof Nodes.NumBinary b) {
+                int ra = numExpr(b.a, -1), rb = numExpr(b.b, -1);
+                int op = switch (b.op) { case '+' -> ADD; case '-' -> SUB; case '*' -> MUL; default -> DIV; };
+                emit(op); num(d); num(ra); num(rb);
+            } else if (e instanceof Nodes.Neg n) {
+                int r = numExpr(n.e, -1);
+                emit(NEG); num(d); num(r);
+            } else if (e instanceof Nodes.NumCompare cmp) {
+                int ra = numExpr(cmp.a, -1), rb = numExpr(cmp.b, -1);
+                emit(CMP); num(d); emit(cmp.code); num(ra); num(rb);
+            } else if (e instanceof Nodes.StrCompare cmp) {
+                int ra = strExpr(cmp.a, -1), rb = strExpr(cmp.b, -1);
+                emit(SCMP); num(d); emit(cmp.code); str(ra); str(rb);
+            } else if (e instanceof Nodes.StrTruth t) {
+                int r = strExpr(t.e, -1);
+                emit(STRUTH); num(d); str(r);
+            } else if (e instanceof Nodes.StrToNum t) {
+                int r = strExpr(t.e, -1);
+                emit(S2N); num(d); str(r);
+            } else if (e instanceof Nodes.NumArrayRef a) {
+                int[] ix = indexRegs(a.idx);
+                emit(AGETN); num(d); emit(a.slot, ix.length); for (int r : ix) num(r);
+            } else if (e instanceof Nodes.ArrayAccess a) {
+                int[] ix = indexRegs(a.indices());
+                emit(AGETN); num(d); emit(a.slot(), ix.length); for (int r : ix) num(r);
+            } else if (e instanceof Nodes.NumCall f) {
+                call(CALLN, d, false, f.fn, f.args);
+            } else if (e instanceof Nodes.TypeError t) {
+                for (Interpreter.Expr o : t.operands) {
+                    if (o instanceof Interpreter.NumExpr n) numExpr(n, -1); else strExpr((Interpreter.StrExpr) o, -1);
+                }
+                emit(TYPEERR, poolRef(t.message));
+            } else {
+                emit(NEVAL); num(d); emit(poolNode(e));
+            }
+            return d;
+        }
+
+        private int strExpr(Interpreter.StrExpr e, int dst) {
+            if (e instanceof Nodes.StrLit l) return smove(strConst(l.value), dst);
+            if (e instanceof Nodes.StrVar v) return smove(v.slot, dst);
+            int d = (dst >= 0) ? dst : strTemp();
+            if (e instanceof Nodes.Concat cc) {
+                int ra = strExpr(cc.a, -1), rb = strExpr(cc.b, -1);
+                emit(CAT); str(d); str(ra); str(rb);
+            } else if (e instanceof Nodes.NumToStr t) {
+                int r = numExpr(t.e, -1);
+                emit(N2S); str(d); num(r);
+            } else if (e instanceof Nodes.StrArrayRef a) {
+                int[] ix = indexRegs(a.idx);
+                emit(AGETS); str(d); emit(a.slot, ix.length); for (int r : ix) num(r);
+            } else if (e instanceof Nodes.ArrayAccess a) {
+                int[] ix = indexRegs(a.indices());
+                emit(AGETS); str(d); emit(a.slot(), ix.length); for (int r : ix) num(r);
+            } else if (e instanceof Nodes.StrCall f) {
+                call(CALLS, d, true, f.fn, f.args);
+            } else {
+                emit(SEVAL); str(d); emit(poolNode(e));
+            }
+            return d;
+        }
+
+        private int move(int src, int dst) {
+            if (dst < 0 || dst == src) return src;
+            emit(NMOV); num(dst); num(src);
+            return dst;
+        }
+
+        private int smove(int src, int dst) {
+            if (dst < 0 || dst == src) return src;
+            emit(SMOV); str(dst); str(src);
+            return dst;
+        }
+    }
+}
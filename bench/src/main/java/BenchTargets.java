@@ -0,0 +1,169 @@
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Brücke zwischen den JMH-Benchmarks und den Klassen im Standardpaket.
+ *
+ * JMH verlangt Benchmarks in einem benannten Paket, und von dort lässt sich das Standardpaket
+ * nicht importieren. Die Benchmarks holen sich deshalb im Setup per Reflection eine dieser
+ * Methoden; sie baut den Zustand auf und liefert die Messoperation als Funktionsobjekt.
+ * In der Messschleife bleibt nur noch der (monomorphe) Interface-Aufruf.
+ */
+public final class BenchTargets {
+    private BenchTargets() {}
+
+    private static Interpreter interpreter() { return new Interpreter(FunctionRegistry.createDefault()); }
+
+    // "10 PRINT X" -> "PRINT X" (wie Interpreter.load)
+    private static List<String> statements(List<String> program) {
+        List<String> out = new ArrayList<>();
+        for (String line : program) {
+            line = line.strip();
+            int sp = line.indexOf(' ');
+            if (sp > 0) out.add(line.substring(sp + 1).strip());
+        }
+        return out;
+    }
+
+    /** Tokenisiert alle Zeilen; liefert die Anzahl Token. */
+    public static IntSupplier tokenize(List<String> program) {
+        String[] lines = statements(program).toArray(new String[0]);
+        Tokenizer tz = new Tokenizer();
+        return () -> {
+            int n = 0;
+            for (String s : lines) {
+                tz.reset(s);
+                while (tz.hasMore()) { n++; tz.next(); }
+            }
+            return n;
+        };
+    }
+
+    /** Parst alle Zeilen zu Statement-Bäumen (ohne Optimierer); liefert die Anzahl Zeilen. */
+    public static IntSupplier parse(List<String> program) {
+        String[] lines = statements(program).toArray(new String[0]);
+        Interpreter rt = interpreter();
+        Tokenizer tz = new Tokenizer();
+        return () -> {
+            int n = 0;
+            for (String s : lines) {
+                if (new Parser(rt, tz.reset(s)).parseStatement() != null) n++;
+            }
+            return n;
+        };
+    }
+
+    // Ausdruck über den Parser (combine) bauen; A..D und A$..B$ sind belegt
+    private static Interpreter.Expr expression(Interpreter rt, String expr) {
+        rt.setVar("A", Interpreter.Value.number(3));
+        rt.setVar("B", Interpreter.Value.number(7.5));
+        rt.setVar("C", Interpreter.Value.number(-2));
+        rt.setVar("D", Interpreter.Value.number(1e6));
+        rt.setVar("A$", Interpreter.Value.string("Mini"));
+        rt.setVar("B$", Interpreter.Value.string("Basic"));
+        return new Parser(rt, new Tokenizer(expr)).parseExpression();
+    }
+
+    /** Numerischer Ausdruck, primitiv ausgewertet. */
+    public static DoubleSupplier number(String expr) {
+        Interpreter rt = interpreter();
+        Interpreter.NumExpr e = (Interpreter.NumExpr) expression(rt, expr);
+        return () -> e.evalNumber(rt);
+    }
+
+    /** String-Ausdruck. */
+    public static Supplier<CharSequence> string(String expr) {
+        Interpreter rt = interpreter();
+        Interpreter.StrExpr e = (Interpreter.StrExpr) expression(rt, expr);
+        return () -> e.evalString(rt);
+    }
+
+    /** Variablenzugriff über den Namen (Map-Lookup, Value-Objekt). */
+    public static Supplier<Object> getVar(String name) {
+        Interpreter rt = interpreter();
+        rt.setVar(name, Interpreter.isStringName(name) ? Interpreter.Value.string("x") : Interpreter.Value.number(42));
+        return () -> rt.getVar(name);
+    }
+
+    /** Array-Element über den Namen; das Array ist 10x10 dimensioniert. */
+    public static Supplier<Object> getArray(String name, int[] idx) {
+        Interpreter rt = interpreter();
+        rt.dimArray(name, Interpreter.isStringName(name), new int[] { 10, 10 });
+        return () -> rt.getArray(name, idx);
+    }
+
+    /** Dasselbe über den zur Parse-Zeit vergebenen Slot, wie es die Knoten tun. */
+    public static DoubleSupplier getArrayNum(String name, int[] idx) {
+        Interpreter rt = interpreter();
+        int slot = rt.arraySlot(name);
+        rt.dimArray(slot, false, new int[] { 10, 10 });
+        return () -> rt.getArrayNum(slot, idx);
+    }
+
+    private static List<Interpreter.Value> values(Object[] args) {
+        List<Interpreter.Value> vs = new ArrayList<>();
+        for (Object a : args) vs.add(a instanceof String s ? Interpreter.Value.string(s) : Interpreter.Value.number(((Number) a).doubleValue()));
+        return vs;
+    }
+
+    /** Aufruf über FunctionRegistry.call: Name -> Funktion bei jedem Aufruf, Argumente als Liste. */
+    public static Supplier<Object> call(String name, Object[] args) {
+        Interpreter rt = interpreter();
+        FunctionRegistry fn = rt.functions();
+        List<Interpreter.Value> vs = values(args);
+        return () -> fn.call(name, rt, vs);
+    }
+
+    /** Aufruf der vom Parser gebundenen Funktion über call0..call3 (ohne Lookup und Liste). */
+    public static Supplier<Object> bound(String name, Object[] args) {
+        Interpreter rt = interpreter();
+        BuiltinFunction f = rt.functions().get(name);
+        Interpreter.Value[] v = values(args).toArray(new Interpreter.Value[0]);
+        return switch (v.length) {
+            case 0 -> () -> f.call0(rt);
+            case 1 -> () -> f.call1(rt, v[0]);
+            case 2 -> () -> f.call2(rt, v[0], v[1]);
+            case 3 -> () -> f.call3(rt, v[0], v[1], v[2]);
+            default -> throw new IllegalArgumentException("zu viele Argumente: " + v.length);
+        };
+    }
+
+    /**
+     * Suche wie INSTR in einer Zeile von gut 1000 Zeichen, needle steht am Ende: "indexOf" ist der
+     * bisherige Weg (asString, String.indexOf), "compiled" das vom Parser vorübersetzte Muster,
+     * "cached" ein dynamisches Muster über den LRU-Cache. Mit text=true ist die Zeile ein Text
+     * (z. B. aus A$ = A$ + X$), jeder Aufruf bekommt einen frischen Ausschnitt davon.
+     */
+    public static IntSupplier search(String mode, String needle, boolean text) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1000) sb.append("the quick brown fox jumps over the lazy dog, pack my box with five dozen liquor jugs. ");
+        CharSequence line = text ? Text.concat(Text.concat(sb.toString(), " "), needle) : sb.append(' ').append(needle).toString();
+        Supplier<CharSequence> subject = text ? () -> Text.slice(line, 1, line.length()) : () -> line;
+        Search compiled = Search.compile(needle);
+        return switch (mode) {
+            case "indexOf" -> () -> subject.get().toString().indexOf(needle);
+            case "compiled" -> () -> compiled.indexOf(subject.get(), 0);
+            case "cached" -> () -> Search.of(needle).indexOf(subject.get(), 0);
+            default -> throw new IllegalArgumentException("mode: " + mode);
+        };
+    }
+
+    /** Ganzer RUN (Start und Ausführung) mit verworfener Ausgabe. */
+    public static Runnable program(List<String> program, String engine) {
+        Interpreter rt = interpreter();
+        for (String line : program) {
+            line = line.strip();
+            int sp = line.indexOf(' ');
+            if (sp > 0) rt.addOrReplaceLine(Integer.parseInt(line.substring(0, sp)), line.substring(sp + 1).strip());
+        }
+        rt.setEngine(Interpreter.Engine.valueOf(engine));
+        OutputSink sink = new OutputSink(Channels.newChannel(OutputStream.nullOutputStream()), StandardCharsets.UTF_8, OutputSink.Flush.SIZE);
+        BufferedReader in = new BufferedReader(Reader.nullReader());
+        return () -> rt.run(in, sink);
+    }
+}
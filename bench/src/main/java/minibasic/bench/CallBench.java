@@ -0,0 +1,32 @@
+package minibasic.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+/** Eingebaute Funktionen: FunctionRegistry.call (Lookup + Liste) gegen den gebundenen callN-Pfad. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallBench {
+    @Param({ "ABS", "MID$" })
+    public String function;
+
+    private Supplier<Object> registry, bound;
+
+    @Setup
+    public void setup() {
+        Object[] args = function.equals("ABS") ? new Object[] { -2.5 } : new Object[] { "MiniBasic", 5, 3 };
+        registry = Targets.get("call", function, args);
+        bound = Targets.get("bound", function, args);
+    }
+
+    @Benchmark
+    public Object registry() { return registry.get(); }
+
+    @Benchmark
+    public Object bound() { return bound.get(); }
+}
@@ -0,0 +1,38 @@
+package minibasic.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+/** Auswertung der Ausdrucksbäume, die Parser.combine aufbaut. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBench {
+    private DoubleSupplier arithmetic, compare, functions;
+    private Supplier<CharSequence> concat;
+
+    @Setup
+    public void setup() {
+        arithmetic = Targets.get("number", "A * 2 + (B - 3) / 7 - A * B + D / (C + 5)");
+        compare = Targets.get("number", "A * B < D - C");
+        functions = Targets.get("number", "INT(B) + ABS(C) * SQR(D)");
+        concat = Targets.get("string", "A$ + B$ + \"!\"");
+    }
+
+    @Benchmark
+    public double arithmetic() { return arithmetic.getAsDouble(); }
+
+    @Benchmark
+    public double compare() { return compare.getAsDouble(); }
+
+    @Benchmark
+    public double functions() { return functions.getAsDouble(); }
+
+    @Benchmark
+    public CharSequence concat() { return concat.get(); }
+}
@@ -0,0 +1,31 @@
+package minibasic.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.*;
+
+/** Tokenizer und Parser über die Zeilen eines Korpus-Programms. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontendBench {
+    @Param({ "sieve", "mandel", "strings", "gosub" })
+    public String program;
+
+    private IntSupplier tokenize, parse;
+
+    @Setup
+    public void setup() {
+        tokenize = Targets.get("tokenize", Targets.corpus(program));
+        parse = Targets.get("parse", Targets.corpus(program));
+    }
+
+    @Benchmark
+    public int tokenize() { return tokenize.getAsInt(); }
+
+    @Benchmark
+    public int parse() { return parse.getAsInt(); }
+}
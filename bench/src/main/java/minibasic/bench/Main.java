@@ -0,0 +1,18 @@
+package minibasic.bench;
+
+import java.util.*;
+
+/**
+ * Startet JMH; ohne -rf/-rff landen die Ergebnisse als JSON in jmh-result.json,
+ * damit Läufe verglichen werden können (z. B. mit jmh.morethan.net oder per jq).
+ */
+public final class Main {
+    private Main() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> a = new ArrayList<>(Arrays.asList(args));
+        if (!a.contains("-rf")) a.addAll(0, List.of("-rf", "json"));
+        if (!a.contains("-rff")) a.addAll(0, List.of("-rff", "jmh-result.json"));
+        org.openjdk.jmh.Main.main(a.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,27 @@
+package minibasic.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Ganze Programme des Korpus (RUN inkl. Start), je Ausführungsmodell. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgramBench {
+    @Param({ "sieve", "mandel", "strings", "gosub" })
+    public String program;
+
+    @Param({ "TREE", "VM" })
+    public String engine;
+
+    private Runnable run;
+
+    @Setup
+    public void setup() { run = Targets.get("program", Targets.corpus(program), engine); }
+
+    @Benchmark
+    public void run() { run.run(); }
+}
@@ -0,0 +1,38 @@
+package minibasic.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.*;
+
+/** INSTR-Suche: bisheriges String.indexOf gegen vorübersetztes Muster und LRU-Cache (Search). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBench {
+    @Param({ "needle", "a needle that is longer than thirty-two chars" })
+    public String needle;
+
+    @Param({ "false", "true" })
+    public boolean text;
+
+    private IntSupplier indexOf, compiled, cached;
+
+    @Setup
+    public void setup() {
+        indexOf = Targets.get("search", "indexOf", needle, text);
+        compiled = Targets.get("search", "compiled", needle, text);
+        cached = Targets.get("search", "cached", needle, text);
+    }
+
+    @Benchmark
+    public int indexOf() { return indexOf.getAsInt(); }
+
+    @Benchmark
+    public int compiled() { return compiled.getAsInt(); }
+
+    @Benchmark
+    public int cached() { return cached.getAsInt(); }
+}
@@ -0,0 +1,34 @@
+package minibasic.bench;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/** Zugriff auf BenchTargets (Standardpaket) und das Programm-Korpus unter /corpus. */
+final class Targets {
+    private Targets() {}
+
+    @SuppressWarnings("unchecked")
+    static <T> T get(String name, Object... args) {
+        try {
+            for (Method m : Class.forName("BenchTargets").getMethods()) {
+                if (m.getName().equals(name) && m.getParameterCount() == args.length) return (T) m.invoke(null, args);
+            }
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("BenchTargets." + name + ": " + ex, ex);
+        }
+        throw new IllegalArgumentException("BenchTargets." + name + " fehlt");
+    }
+
+    /** Zeilen eines Korpus-Programms, z. B. "sieve" -> /corpus/sieve.bas. */
+    static List<String> corpus(String name) {
+        InputStream is = Targets.class.getResourceAsStream("/corpus/" + name + ".bas");
+        if (is == null) throw new IllegalArgumentException("Kein Korpus-Programm: " + name);
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            return r.lines().toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
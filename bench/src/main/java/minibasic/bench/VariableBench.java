@@ -0,0 +1,42 @@
+package minibasic.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+/** Variablen- und Arrayzugriff über den Namen (getVar/getArray) und über den Slot. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableBench {
+    private Supplier<Object> num, str, array, strArray;
+    private DoubleSupplier arraySlot;
+
+    @Setup
+    public void setup() {
+        num = Targets.get("getVar", "X");
+        str = Targets.get("getVar", "N$");
+        array = Targets.get("getArray", "M", new int[] { 3, 7 });
+        strArray = Targets.get("getArray", "W$", new int[] { 3, 7 });
+        arraySlot = Targets.get("getArrayNum", "M", new int[] { 3, 7 });
+    }
+
+    @Benchmark
+    public Object getVarNum() { return num.get(); }
+
+    @Benchmark
+    public Object getVarStr() { return str.get(); }
+
+    @Benchmark
+    public Object getArray() { return array.get(); }
+
+    @Benchmark
+    public Object getArrayStr() { return strArray.get(); }
+
+    @Benchmark
+    public double getArrayNumSlot() { return arraySlot.getAsDouble(); }
+}
@@ -0,0 +1,15 @@
+10 REM verschachtelte Unterprogramme
+20 S = 0
+30 FOR I = 1 TO 3000
+40 GOSUB 100
+50 NEXT I
+60 PRINT S
+70 END
+100 S = S + 1
+110 GOSUB 200
+120 RETURN
+200 S = S + 2
+210 GOSUB 300
+220 RETURN
+300 S = S + I - INT(I / 2) * 2
+310 RETURN
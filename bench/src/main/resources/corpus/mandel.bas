@@ -0,0 +1,19 @@
+10 REM Mandelbrot-Menge als Text, 48 x 16 Zeichen
+20 FOR Y = 0 TO 15
+30 L$ = ""
+40 FOR X = 0 TO 47
+50 CR = X / 16 - 2
+60 CI = Y / 8 - 1
+70 ZR = 0 : ZI = 0 : K = 0
+80 T = ZR * ZR - ZI * ZI + CR
+90 ZI = 2 * ZR * ZI + CI
+100 ZR = T
+110 K = K + 1
+120 IF ZR * ZR + ZI * ZI > 4 THEN 160
+130 IF K < 60 THEN 80
+140 L$ = L$ + "#"
+150 GOTO 170
+160 L$ = L$ + " "
+170 NEXT X
+180 PRINT L$
+190 NEXT Y
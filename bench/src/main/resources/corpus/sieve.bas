@@ -0,0 +1,12 @@
+10 REM Sieb des Eratosthenes bis 20000
+20 N = 20000
+30 DIM F(20000)
+40 C = 0
+50 FOR I = 2 TO N
+60 IF F(I) = 1 THEN 110
+70 C = C + 1
+80 IF I * I > N THEN 110
+90 FOR J = I * I TO N STEP I
+100 F(J) = 1 : NEXT J
+110 NEXT I
+120 PRINT C
@@ -0,0 +1,12 @@
+10 REM Zeichenketten aufbauen und zerlegen
+20 S$ = ""
+30 FOR I = 1 TO 2000
+40 S$ = S$ + CHR$(65 + I - INT(I / 26) * 26)
+50 NEXT I
+60 C = 0
+70 FOR I = 1 TO LEN(S$) STEP 7
+80 T$ = MID$(S$, I, 5)
+90 IF LEFT$(T$, 1) = "A" THEN C = C + 1
+100 U$ = UCASE$(LCASE$(T$)) + STR$(I)
+110 NEXT I
+120 PRINT LEN(S$); " "; C; " "; U$
@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Vorgezogene Indexprüfung (Optimizer.hoistBoundsChecks): Fälle, in denen ein Zugriff im Rumpf
+ * trotz Prüfung beim FOR-Eintritt außerhalb liegt. Der zweite Index läuft jeweils über, ohne
+ * Prüfung träfe der Zugriff also still eine andere Zelle statt zu werfen.
+ */
+class BoundsCheckTest {
+
+    // Sprung von außen in den Rumpf, erst nach dem ersten RUN hinzugefügt: die Guards der
+    // zwischengespeicherten Knoten dürfen nicht stehen bleiben
+    @ParameterizedTest
+    @EnumSource(Interpreter.Engine.class)
+    void gotoIntoBodyAddedAfterRun(Interpreter.Engine engine) {
+        Interpreter rt = interpreter(engine,
+                "10 DIM A(5, 5)",
+                "20 FOR I = 1 TO 5",
+                "30 A(2, I) = I",
+                "40 NEXT I",
+                "50 PRINT A(2, 5)",
+                "60 END");
+        assertEquals("5", output(rt).strip());
+        rt.addOrReplaceLine(55, "I = 6 : GOTO 30");
+        assertOutOfRange(rt);
+    }
+
+    // Index-Variable nur außerhalb des Rumpfs geändert: beim nächsten Eintritt neu prüfen
+    @ParameterizedTest
+    @EnumSource(Interpreter.Engine.class)
+    void varIndexChangedOutsideBody(Interpreter.Engine engine) {
+        assertOutOfRange(interpreter(engine,
+                "10 DIM A(5, 5)",
+                "20 K = 5",
+                "30 FOR I = 1 TO 4",
+                "40 S = S + A(I, K)",
+                "50 NEXT I",
+                "60 K = K + 1",
+                "70 IF K < 7 THEN GOTO 30"));
+    }
+
+    // Index-Variable im Rumpf geändert: keine vorgezogene Prüfung
+    @ParameterizedTest
+    @EnumSource(Interpreter.Engine.class)
+    void varIndexChangedInBody(Interpreter.Engine engine) {
+        assertOutOfRange(interpreter(engine,
+                "10 DIM A(5, 5)",
+                "20 K = 1",
+                "30 FOR I = 1 TO 4",
+                "40 K = K + 2",
+                "50 A(I, K) = 1",
+                "60 NEXT I"));
+    }
+
+    // bedingtes NEXT: nach dem letzten Durchlauf läuft der Rest des Rumpfs mit I = 6
+    @ParameterizedTest
+    @EnumSource(Interpreter.Engine.class)
+    void conditionalNext(Interpreter.Engine engine) {
+        assertOutOfRange(interpreter(engine,
+                "10 DIM A(5, 5)",
+                "20 FOR I = 1 TO 5",
+                "30 IF I < 6 THEN NEXT I",
+                "40 A(2, I) = 1",
+                "50 NEXT I"));
+    }
+
+    // FOR J hinter FOR I in derselben Zeile: NEXT I setzt wie jeder FOR in der nächsten Zeile fort,
+    // also mitten im Rumpf von J mit J = 6
+    @ParameterizedTest
+    @EnumSource(Interpreter.Engine.class)
+    void nestedForOnOneLine(Interpreter.Engine engine) {
+        assertOutOfRange(interpreter(engine,
+                "10 DIM A(5, 5)",
+                "20 FOR I = 1 TO 5 : FOR J = 1 TO 5",
+                "30 A(I, J) = I + J",
+                "40 NEXT J : NEXT I"));
+    }
+
+    // Wiedereintritt in den Rumpf (über NEXT K), nachdem die Laufvariable außerhalb gesetzt wurde
+    @ParameterizedTest
+    @EnumSource(Interpreter.Engine.class)
+    void reenteredAfterLoopVariableAssigned(Interpreter.Engine engine) {
+        assertOutOfRange(interpreter(engine,
+                "10 DIM A(5, 5)",
+                "20 FOR K = 1 TO 2 : FOR I = 1 TO 5",
+                "30 A(2, I) = K",
+                "40 NEXT I",
+                "50 I = 6 : NEXT K"));
+    }
+
+    private static Interpreter interpreter(Interpreter.Engine engine, String... program) {
+        Interpreter rt = new Interpreter(FunctionRegistry.createDefault());
+        rt.setEngine(engine);
+        for (String line : program) {
+            int sp = line.indexOf(' ');
+            rt.addOrReplaceLine(Integer.parseInt(line.substring(0, sp)), line.substring(sp + 1));
+        }
+        return rt;
+    }
+
+    private static String output(Interpreter rt) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        rt.run(new BufferedReader(new StringReader("")), OutputSink.of(out, StandardCharsets.UTF_8, rt.outputFlush()));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void assertOutOfRange(Interpreter rt) {
+        String message = null;
+        try { output(rt); }
+        catch (Interpreter.BasicException ex) { message = ex.getMessage(); }
+        assertNotNull(message, "kein Fehler");
+        assertTrue(message.contains("Index ausserhalb"), message);
+    }
+}